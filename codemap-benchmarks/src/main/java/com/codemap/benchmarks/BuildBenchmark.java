@@ -0,0 +1,90 @@
+package com.codemap.benchmarks;
+
+import com.codemap.graph.GraphBuilderImpl;
+import com.codemap.model.ClassInfo;
+import com.codemap.model.CodeGraph;
+import com.codemap.model.MethodInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link GraphBuilderImpl#build(java.util.List)} over a whole
+ * generated project, including the adjacency index built with the graph.
+ * {@link #build} scales the number of classes; {@link #buildByCallFanOut}
+ * keeps them fixed and scales the calls each method makes, also reporting
+ * calls resolved per second. Build time is linear in the number of calls if
+ * the time added between two fan-outs is proportional to the calls added;
+ * calls per second then rises toward a plateau as the fixed cost per class
+ * is spread over more calls.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+@State(Scope.Thread)
+public class BuildBenchmark {
+
+    private final GraphBuilderImpl builder = new GraphBuilderImpl();
+
+    @Benchmark
+    public CodeGraph build(ProjectState project) {
+        CodeGraph graph = builder.build(project.classes);
+        graph.index();
+        return graph;
+    }
+
+    @Benchmark
+    public CodeGraph buildByCallFanOut(CallFanOutState project, CallCounter counter) {
+        CodeGraph graph = builder.build(project.classes);
+        graph.index();
+        counter.calls += project.callCount;
+        return graph;
+    }
+
+    /**
+     * A project of {@value #CLASS_COUNT} classes whose methods each make
+     * {@code callFanOut} calls.
+     */
+    @State(Scope.Benchmark)
+    public static class CallFanOutState {
+
+        static final int CLASS_COUNT = 10_000;
+
+        @Param({ "2", "8", "32" })
+        public int callFanOut;
+
+        public List<ClassInfo> classes;
+        public long callCount;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            classes = SyntheticProjectGenerator.builder().classes(CLASS_COUNT).callFanOut(callFanOut).build()
+                    .generateClasses(Path.of("/synthetic"));
+            callCount = 0;
+            for (ClassInfo cls : classes) {
+                for (MethodInfo method : cls.getMethods()) {
+                    callCount += method.getMethodCalls().size();
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls in the projects built, reported by JMH as calls per second.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class CallCounter {
+
+        public long calls;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            calls = 0;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.codemap.benchmarks;
+
+import com.codemap.analysis.CircularDependencyDetector;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of cycle detection over the class dependency graph of a whole
+ * generated project.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+public class CircularDependencyBenchmark {
+
+    @Benchmark
+    public List<List<String>> detectCircularDependencies(ProjectState project) {
+        return new CircularDependencyDetector(project.graph).detectCircularDependencies();
+    }
+}
@@ -0,0 +1,61 @@
+package com.codemap.benchmarks;
+
+import com.codemap.analysis.ImpactAnalyzer;
+import com.codemap.model.CodeGraph;
+import com.codemap.model.ReachabilityIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Impact analysis of classes spread over the project, by reverse traversal
+ * and from a {@link ReachabilityIndex}, plus the cost of building the index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+@State(Scope.Thread)
+public class ImpactBenchmark {
+
+    private static final int TARGETS = 64;
+
+    private CodeGraph graph;
+    private ImpactAnalyzer traversing;
+    private ImpactAnalyzer indexed;
+    private String[] targets;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(ProjectState project) {
+        graph = project.graph;
+        traversing = new ImpactAnalyzer(graph);
+        indexed = new ImpactAnalyzer(graph, new ReachabilityIndex(graph, ImpactAnalyzer.IMPACT_EDGE_TYPES));
+        targets = new String[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            targets[i] = project.generator.qualifiedName((int) ((long) i * project.classCount / TARGETS));
+        }
+    }
+
+    @Benchmark
+    public CodeGraph impactTraverse() {
+        return traversing.getImpactAnalysis(nextTarget());
+    }
+
+    @Benchmark
+    public CodeGraph impactIndexed() {
+        return indexed.getImpactAnalysis(nextTarget());
+    }
+
+    @Benchmark
+    public ReachabilityIndex buildIndex() {
+        return new ReachabilityIndex(graph, ImpactAnalyzer.IMPACT_EDGE_TYPES);
+    }
+
+    private String nextTarget() {
+        String target = targets[next];
+        next = (next + 1) % targets.length;
+        return target;
+    }
+}
@@ -0,0 +1,66 @@
+package com.codemap.benchmarks;
+
+import com.codemap.model.ClassInfo;
+import com.codemap.parser.JavaParserImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Throughput of {@link JavaParserImpl#parseFile(Path)} on generated source
+ * files. Parsing is per file, so only a sample of each project is written to
+ * disk; the project size only affects the names the files refer to.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseBenchmark {
+
+    private static final int SAMPLE_FILES = 256;
+
+    @Param({ "1000", "10000", "100000" })
+    public int classCount;
+
+    private final JavaParserImpl parser = new JavaParserImpl();
+    private Path directory;
+    private Path[] files;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void writeSources() throws IOException {
+        directory = Files.createTempDirectory("codemap-parse-bench");
+        SyntheticProjectGenerator generator = SyntheticProjectGenerator.builder().classes(classCount).build();
+        files = new Path[SAMPLE_FILES];
+        int stride = Math.max(1, classCount / SAMPLE_FILES);
+        for (int i = 0; i < SAMPLE_FILES; i++) {
+            int index = (i * stride) % classCount;
+            files[i] = directory.resolve(index + ".java");
+            Files.writeString(files[i], generator.source(index));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSources() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<ClassInfo> parseFile() {
+        Path file = files[next];
+        next = (next + 1) % files.length;
+        return parser.parseFile(file);
+    }
+}
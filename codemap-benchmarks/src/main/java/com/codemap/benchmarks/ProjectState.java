@@ -0,0 +1,32 @@
+package com.codemap.benchmarks;
+
+import com.codemap.graph.GraphBuilderImpl;
+import com.codemap.model.ClassInfo;
+import com.codemap.model.CodeGraph;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A generated project at each benchmark size, shared by all threads of a
+ * trial: the parsed class models and the graph built from them. Models are
+ * generated directly, so large projects do not have to be parsed in setup.
+ */
+@State(Scope.Benchmark)
+public class ProjectState {
+
+    @Param({ "1000", "10000", "100000" })
+    public int classCount;
+
+    public SyntheticProjectGenerator generator;
+    public List<ClassInfo> classes;
+    public CodeGraph graph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = SyntheticProjectGenerator.builder().classes(classCount).build();
+        classes = generator.generateClasses(Path.of("/synthetic"));
+        graph = new GraphBuilderImpl().build(classes);
+    }
+}
@@ -0,0 +1,49 @@
+package com.codemap.benchmarks;
+
+import com.codemap.graph.GraphQuery;
+import com.codemap.model.CodeGraph;
+import com.codemap.model.EdgeType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link GraphQuery#traverse} following calls forward to depth
+ * five, cycling through start methods of classes spread over the project.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+@State(Scope.Thread)
+public class QueryBenchmark {
+
+    private static final int START_NODES = 64;
+    private static final Set<EdgeType> CALLS = EnumSet.of(EdgeType.CALLS);
+
+    private GraphQuery query;
+    private String[] starts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(ProjectState project) {
+        query = new GraphQuery(project.graph);
+        starts = new String[START_NODES];
+        for (int i = 0; i < START_NODES; i++) {
+            int index = (int) ((long) i * project.classCount / START_NODES);
+            while (project.generator.isInterface(index))
+                index++;
+            starts[i] = "method:" + project.generator.qualifiedName(index) + ".m" + (i % 8) + "()";
+        }
+    }
+
+    @Benchmark
+    public CodeGraph traverse() {
+        String start = starts[next];
+        next = (next + 1) % starts.length;
+        return query.traverse(start, 5, CALLS, true);
+    }
+}
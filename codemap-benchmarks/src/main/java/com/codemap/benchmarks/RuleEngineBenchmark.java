@@ -0,0 +1,49 @@
+package com.codemap.benchmarks;
+
+import com.codemap.rules.ArchitectureRule;
+import com.codemap.rules.RuleEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of evaluating the default architecture rules over a whole
+ * generated project, one rule after another and with one task per rule.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+@State(Scope.Thread)
+public class RuleEngineBenchmark {
+
+    private final RuleEngine engine = new RuleEngine();
+    private ExecutorService executor;
+    private RuleEngine parallelEngine;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        parallelEngine = new RuleEngine(executor, Duration.ofMinutes(5));
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public List<ArchitectureRule.Violation> evaluate(ProjectState project) {
+        return engine.evaluate(project.graph);
+    }
+
+    @Benchmark
+    public List<ArchitectureRule.Violation> evaluateParallel(ProjectState project) {
+        return parallelEngine.evaluate(project.graph);
+    }
+}
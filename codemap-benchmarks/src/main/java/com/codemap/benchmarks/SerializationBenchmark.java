@@ -0,0 +1,50 @@
+package com.codemap.benchmarks;
+
+import com.codemap.model.AnalysisResult;
+import com.codemap.serialization.GraphJsonSerializer;
+import com.codemap.serialization.OutputFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of serializing a full-graph result: {@code toJson} builds the
+ * whole document as a String, {@code writeJson} streams it as the CLI does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({ "PRETTY", "COMPACT" })
+    public OutputFormat format;
+
+    private GraphJsonSerializer serializer;
+    private AnalysisResult result;
+
+    @Setup(Level.Trial)
+    public void setUp(ProjectState project) {
+        serializer = new GraphJsonSerializer(format);
+        result = AnalysisResult.builder()
+                .command("fullgraph")
+                .graph(project.graph)
+                .totalClassesParsed(project.classes.size())
+                .build();
+    }
+
+    @Benchmark
+    public String toJson() {
+        return serializer.toJson(result);
+    }
+
+    @Benchmark
+    public Writer writeJson() {
+        Writer out = Writer.nullWriter();
+        serializer.writeJson(result, out);
+        return out;
+    }
+}
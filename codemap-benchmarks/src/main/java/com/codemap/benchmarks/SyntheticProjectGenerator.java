@@ -0,0 +1,382 @@
+package com.codemap.benchmarks;
+
+import com.codemap.model.ClassInfo;
+import com.codemap.model.MethodInfo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Deterministic generator of synthetic Java projects for benchmarks and
+ * stress tests.
+ *
+ * Packages are assigned to layers round-robin ({@code controller},
+ * {@code service}, {@code repository}, {@code model} by default, matching
+ * {@link com.codemap.rules.LayerViolationRule}). Within a package the first
+ * types are interfaces and the rest are classes that implement one of them
+ * and form {@code extends} chains of the configured depth. Each class holds
+ * fields typed by classes of the next layer down; with probability
+ * {@code cycleDensity} a field points a layer up instead, producing
+ * dependency cycles and layer violations. Every method makes
+ * {@code callFanOut} calls, to its own class or through the fields.
+ *
+ * All choices for class {@code i} come from a random generator seeded with
+ * {@code (seed, i)}, so a project can be produced as source files
+ * ({@link #writeTo(Path)}) or directly as the models {@link
+ * com.codemap.parser.JavaParserImpl} would parse from them
+ * ({@link #generateClasses(Path)}), and both are identical across runs.
+ */
+public final class SyntheticProjectGenerator {
+
+    private final int classCount;
+    private final int packageCount;
+    private final int methodsPerClass;
+    private final int callFanOut;
+    private final int dependenciesPerClass;
+    private final int inheritanceDepth;
+    private final double interfaceRatio;
+    private final double cycleDensity;
+    private final List<String> layers;
+    private final String basePackage;
+    private final long seed;
+
+    private final int classesPerPackage;
+    private final int interfacesPerPackage;
+
+    private SyntheticProjectGenerator(Builder builder) {
+        this.classCount = builder.classCount;
+        this.packageCount = builder.packageCount > 0
+                ? Math.min(builder.packageCount, builder.classCount)
+                : Math.max(1, builder.classCount / 50);
+        this.methodsPerClass = builder.methodsPerClass;
+        this.callFanOut = builder.callFanOut;
+        this.dependenciesPerClass = builder.dependenciesPerClass;
+        this.inheritanceDepth = builder.inheritanceDepth;
+        this.interfaceRatio = builder.interfaceRatio;
+        this.cycleDensity = builder.cycleDensity;
+        this.layers = List.copyOf(builder.layers);
+        this.basePackage = builder.basePackage;
+        this.seed = builder.seed;
+
+        this.classesPerPackage = (classCount + packageCount - 1) / packageCount;
+        this.interfacesPerPackage = (int) Math.round(classesPerPackage * interfaceRatio);
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public int getPackageCount() {
+        return packageCount;
+    }
+
+    /**
+     * The parsed form of the project, as if {@link #writeTo(Path)} had
+     * written it under {@code root} and it had been parsed from there.
+     */
+    public List<ClassInfo> generateClasses(Path root) {
+        List<ClassInfo> classes = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            classes.add(render(i, root).model);
+        }
+        return classes;
+    }
+
+    /**
+     * Write one source file per type under {@code root}.
+     *
+     * @return the written files, in class index order
+     */
+    public List<Path> writeTo(Path root) throws IOException {
+        List<Path> files = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            Path file = root.resolve(relativePath(i));
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, render(i, root).source);
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * Source text of the type with the given class index.
+     */
+    public String source(int index) {
+        return render(index, Path.of("")).source;
+    }
+
+    /**
+     * Path of a type's source file relative to the project root.
+     */
+    public Path relativePath(int index) {
+        return Path.of(packageName(packageOf(index)).replace('.', '/'), typeName(index) + ".java");
+    }
+
+    /**
+     * Qualified name of the type with the given class index.
+     */
+    public String qualifiedName(int index) {
+        return packageName(packageOf(index)) + "." + typeName(index);
+    }
+
+    public boolean isInterface(int index) {
+        return localIndex(index) < interfacesPerPackage;
+    }
+
+    private Rendered render(int index, Path root) {
+        Random random = new Random(seed * 0x9E3779B97F4A7C15L + index);
+        int pkg = packageOf(index);
+        String packageName = packageName(pkg);
+        String name = typeName(index);
+        boolean isInterface = isInterface(index);
+
+        // Fields and the imports they need
+        List<String> fieldTypes = new ArrayList<>();
+        Set<String> imports = new LinkedHashSet<>();
+        if (!isInterface) {
+            for (int f = 0; f < dependenciesPerClass; f++) {
+                int target = dependencyTarget(index, random);
+                if (target < 0)
+                    continue;
+                fieldTypes.add(typeName(target));
+                if (packageOf(target) != pkg)
+                    imports.add(qualifiedName(target));
+            }
+        }
+
+        String superClass = null;
+        String iface = null;
+        if (!isInterface) {
+            int concrete = localIndex(index) - interfacesPerPackage;
+            if (inheritanceDepth > 0 && concrete % (inheritanceDepth + 1) > 0)
+                superClass = typeName(index - 1);
+            if (interfacesPerPackage > 0)
+                iface = typeName(pkg * classesPerPackage + concrete % interfacesPerPackage);
+        }
+
+        ClassInfo.Builder model = ClassInfo.builder()
+                .name(name)
+                .packageName(packageName)
+                .filePath(root.resolve(relativePath(index)).toString())
+                .isInterface(isInterface)
+                .imports(new ArrayList<>(imports));
+
+        Lines src = new Lines();
+        src.add("package " + packageName + ";");
+        src.add("");
+        for (String imp : imports) {
+            src.add("import " + imp + ";");
+        }
+        if (!imports.isEmpty())
+            src.add("");
+
+        StringBuilder header = new StringBuilder("public ").append(isInterface ? "interface " : "class ").append(name);
+        if (superClass != null) {
+            header.append(" extends ").append(superClass);
+            model.superClass(superClass);
+        }
+        if (iface != null) {
+            header.append(" implements ").append(iface);
+            model.addInterface(iface);
+        }
+        model.lineNumber(src.add(header.append(" {").toString()));
+
+        for (int f = 0; f < fieldTypes.size(); f++) {
+            src.add("    private " + fieldTypes.get(f) + " dep" + f + ";");
+            model.addField(fieldTypes.get(f) + " dep" + f);
+        }
+
+        for (int m = 0; m < methodsPerClass; m++) {
+            src.add("");
+            MethodInfo.Builder method = MethodInfo.builder()
+                    .name("m" + m)
+                    .className(packageName + "." + name)
+                    .returnType("void");
+            if (isInterface) {
+                // Interface methods are implicitly public and abstract
+                method.accessModifier("public").isAbstract(true);
+                method.lineNumber(src.add("    void m" + m + "();"));
+            } else {
+                method.accessModifier("public");
+                method.lineNumber(src.add("    public void m" + m + "() {"));
+                for (int c = 0; c < callFanOut; c++) {
+                    String call;
+                    if (fieldTypes.isEmpty() || random.nextInt(4) == 0) {
+                        call = "m" + random.nextInt(methodsPerClass);
+                    } else {
+                        call = "dep" + random.nextInt(fieldTypes.size()) + ".m" + random.nextInt(methodsPerClass);
+                    }
+                    src.add("        " + call + "();");
+                    method.addMethodCall(call);
+                }
+                src.add("    }");
+            }
+            model.addMethod(method.build());
+        }
+        src.add("}");
+
+        return new Rendered(src.toString(), model.build());
+    }
+
+    /**
+     * A type in the next layer down, or a layer up with probability
+     * {@code cycleDensity}; -1 if no other type exists.
+     */
+    private int dependencyTarget(int index, Random random) {
+        int layer = packageOf(index) % layers.size();
+        boolean upward = random.nextDouble() < cycleDensity;
+        int targetLayer = upward ? layer - 1 : layer + 1;
+        if (targetLayer < 0 || targetLayer >= layers.size() || targetLayer >= packageCount)
+            targetLayer = layer;
+
+        // Packages of a layer are targetLayer, targetLayer + L, targetLayer + 2L, ...
+        int packagesInLayer = (packageCount - 1 - targetLayer) / layers.size() + 1;
+        int pkg = targetLayer + random.nextInt(packagesInLayer) * layers.size();
+        int first = pkg * classesPerPackage;
+        int size = Math.min(classesPerPackage, classCount - first);
+        int target = first + random.nextInt(size);
+        if (target == index)
+            target = size > 1 ? first + (target - first + 1) % size : -1;
+        return target;
+    }
+
+    private int packageOf(int index) {
+        return index / classesPerPackage;
+    }
+
+    private int localIndex(int index) {
+        return index % classesPerPackage;
+    }
+
+    private String packageName(int pkg) {
+        return basePackage + "." + layers.get(pkg % layers.size()) + ".p" + pkg;
+    }
+
+    private String typeName(int index) {
+        String layer = layers.get(packageOf(index) % layers.size());
+        String prefix = Character.toUpperCase(layer.charAt(0)) + layer.substring(1);
+        return prefix + (isInterface(index) ? "Api" : "") + index;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private int classCount = 1_000;
+        private int packageCount;
+        private int methodsPerClass = 8;
+        private int callFanOut = 4;
+        private int dependenciesPerClass = 3;
+        private int inheritanceDepth = 3;
+        private double interfaceRatio = 0.1;
+        private double cycleDensity = 0.05;
+        private List<String> layers = List.of("controller", "service", "repository", "model");
+        private String basePackage = "com.synthetic";
+        private long seed = 42;
+
+        /** Total number of types, interfaces included. */
+        public Builder classes(int classCount) {
+            this.classCount = classCount;
+            return this;
+        }
+
+        /** Number of packages; 0 (the default) means one per 50 types. */
+        public Builder packages(int packageCount) {
+            this.packageCount = packageCount;
+            return this;
+        }
+
+        public Builder methodsPerClass(int methodsPerClass) {
+            this.methodsPerClass = methodsPerClass;
+            return this;
+        }
+
+        /** Calls made by each method. */
+        public Builder callFanOut(int callFanOut) {
+            this.callFanOut = callFanOut;
+            return this;
+        }
+
+        /** Fields, and so class dependencies, per class. */
+        public Builder dependenciesPerClass(int dependenciesPerClass) {
+            this.dependenciesPerClass = dependenciesPerClass;
+            return this;
+        }
+
+        /** Length of {@code extends} chains; 0 disables inheritance. */
+        public Builder inheritanceDepth(int inheritanceDepth) {
+            this.inheritanceDepth = inheritanceDepth;
+            return this;
+        }
+
+        /** Fraction of each package's types that are interfaces. */
+        public Builder interfaceRatio(double interfaceRatio) {
+            this.interfaceRatio = interfaceRatio;
+            return this;
+        }
+
+        /** Probability that a dependency points a layer up instead of down. */
+        public Builder cycleDensity(double cycleDensity) {
+            this.cycleDensity = cycleDensity;
+            return this;
+        }
+
+        /** Layer names, highest first. */
+        public Builder layers(List<String> layers) {
+            this.layers = layers;
+            return this;
+        }
+
+        public Builder basePackage(String basePackage) {
+            this.basePackage = basePackage;
+            return this;
+        }
+
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public SyntheticProjectGenerator build() {
+            if (classCount < 1)
+                throw new IllegalArgumentException("classes must be positive");
+            if (layers.isEmpty())
+                throw new IllegalArgumentException("at least one layer is required");
+            if (methodsPerClass < 1)
+                throw new IllegalArgumentException("methodsPerClass must be positive");
+            return new SyntheticProjectGenerator(this);
+        }
+    }
+
+    private static final class Rendered {
+        final String source;
+        final ClassInfo model;
+
+        Rendered(String source, ClassInfo model) {
+            this.source = source;
+            this.model = model;
+        }
+    }
+
+    /**
+     * Source text that tracks the line number of each added line.
+     */
+    private static final class Lines {
+        private final StringBuilder text = new StringBuilder();
+        private int count;
+
+        /** @return the 1-based line number of the added line */
+        int add(String line) {
+            text.append(line).append('\n');
+            return ++count;
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
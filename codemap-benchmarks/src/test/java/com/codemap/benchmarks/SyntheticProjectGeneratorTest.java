@@ -0,0 +1,68 @@
+package com.codemap.benchmarks;
+
+import com.codemap.model.ClassInfo;
+import com.codemap.parser.JavaParserImpl;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for SyntheticProjectGenerator — determinism and agreement with the
+ * parser.
+ */
+class SyntheticProjectGeneratorTest {
+
+    private static final Gson GSON = new Gson();
+
+    private static SyntheticProjectGenerator generator(long seed) {
+        return SyntheticProjectGenerator.builder().classes(120).packages(6).cycleDensity(0.2).seed(seed).build();
+    }
+
+    @Test
+    void shouldGenerateSameProjectForSameSeed(@TempDir Path first, @TempDir Path second) throws IOException {
+        Path root = Path.of("/synthetic");
+        assertEquals(json(generator(7).generateClasses(root)), json(generator(7).generateClasses(root)));
+        assertNotEquals(json(generator(7).generateClasses(root)), json(generator(8).generateClasses(root)));
+
+        List<Path> firstFiles = generator(7).writeTo(first);
+        List<Path> secondFiles = generator(7).writeTo(second);
+        assertEquals(firstFiles.size(), secondFiles.size());
+        for (int i = 0; i < firstFiles.size(); i++) {
+            assertEquals(first.relativize(firstFiles.get(i)), second.relativize(secondFiles.get(i)));
+            assertEquals(Files.readString(firstFiles.get(i)), Files.readString(secondFiles.get(i)));
+        }
+    }
+
+    @Test
+    void shouldGenerateWhatParserReadsFromWrittenSources(@TempDir Path root) throws IOException {
+        SyntheticProjectGenerator generator = generator(7);
+        generator.writeTo(root);
+
+        List<ClassInfo> parsed = new JavaParserImpl().parse(root);
+        assertEquals(generator.getClassCount(), parsed.size());
+        assertEquals(byName(generator.generateClasses(root)), byName(parsed));
+    }
+
+    /**
+     * JSON of each class by qualified name, as the models have no equals
+     * and the parser returns files in walk order.
+     */
+    private static Map<String, String> byName(List<ClassInfo> classes) {
+        Map<String, String> byName = new TreeMap<>();
+        for (ClassInfo info : classes) {
+            byName.put(info.getQualifiedName(), GSON.toJson(info));
+        }
+        return byName;
+    }
+
+    private static String json(List<ClassInfo> classes) {
+        return GSON.toJson(classes);
+    }
+}
@@ -3,32 +3,54 @@ package com.codemap;
 import com.codemap.analysis.*;
 import com.codemap.cache.*;
 import com.codemap.graph.*;
+import com.codemap.metrics.MetricsRecorder;
+import com.codemap.metrics.PhaseMetrics;
+import com.codemap.metrics.QueryEvent;
 import com.codemap.model.*;
 import com.codemap.parser.*;
 import com.codemap.serialization.GraphJsonSerializer;
+import com.codemap.serialization.OutputFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Writer;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Main façade for the CodeMap analysis engine.
  * Combines parsing, graph building, and analysis into a unified API.
- * Supports caching for incremental analysis.
+ * Supports caching for incremental analysis, and patching the graph when
+ * single files change ({@link #update(Path)}).
  */
 public class CodeMapEngine {
 
     private static final Logger log = LoggerFactory.getLogger(CodeMapEngine.class);
 
+    /** Command names accepted by {@link #runCommand(String, String, int)}. */
+    public static final List<String> COMMANDS = List.of(
+            "callgraph", "incoming-calls", "dependencies", "circular-deps", "impact", "path", "fullgraph");
+
     private final JavaSourceParser parser;
     private final GraphBuilder graphBuilder;
     private final AnalysisCache cache;
     private final GraphJsonSerializer serializer;
 
     private CodeGraph currentGraph;
-    private List<ClassInfo> currentClasses;
+    private int classCount;
+    private int methodCount;
+    private List<Path> currentRoots;
+    private SortedMap<Path, List<ClassInfo>> currentFiles;
+    private IncrementalGraphBuilder incrementalBuilder;
+    private List<PhaseMetrics> analysisMetrics = List.of();
+    private boolean profiling;
+    private boolean incremental;
+    private boolean reachabilityIndexEnabled;
+    private ReachabilityIndex reachability;
 
     public CodeMapEngine() {
         this(new JavaParserImpl(), new GraphBuilderImpl(), new FileBasedCache());
@@ -43,27 +65,292 @@ public class CodeMapEngine {
 
     /**
      * Analyze a Java project source directory.
-     * Parses all source files, builds the code graph, and caches results.
+     * Files whose content is unchanged since they were last cached are served
+     * from the cache; only new or modified files are re-parsed.
      *
      * @param sourceRoot root of the Java source tree
      * @return the built code graph
      */
     public CodeGraph analyze(Path sourceRoot) {
-        log.info("Starting analysis of {}", sourceRoot);
+        return analyze(sourceRoot, List.of());
+    }
+
+    /**
+     * Analyze a source directory together with further source roots, e.g.
+     * generated sources, whose classes belong to the same graph.
+     *
+     * @see #analyze(Path)
+     */
+    public CodeGraph analyze(Path sourceRoot, List<Path> extraRoots) {
+        List<Path> roots = new ArrayList<>();
+        roots.add(sourceRoot);
+        roots.addAll(extraRoots);
+        log.info("Starting analysis of {}", roots.size() == 1 ? sourceRoot : roots);
         long start = System.currentTimeMillis();
 
-        currentClasses = parser.parse(sourceRoot);
-        currentGraph = graphBuilder.build(currentClasses);
+        MetricsRecorder recorder = new MetricsRecorder();
+        currentRoots = List.copyOf(roots);
+        currentFiles = parseWithCache(currentRoots, recorder);
+        countClasses();
+        incrementalBuilder = null;
+        if (incremental && graphBuilder.getClass() == GraphBuilderImpl.class) {
+            try (MetricsRecorder.Phase phase = recorder.start("build")) {
+                incrementalBuilder = new IncrementalGraphBuilder(currentFiles);
+                currentGraph = incrementalBuilder.getGraph();
+                phase.count("nodes", currentGraph.nodeCount()).count("edges", currentGraph.edgeCount());
+            }
+        } else {
+            currentGraph = graphBuilder.build(flatten(currentFiles), recorder);
+        }
+        analysisMetrics = recorder.getPhases();
 
         long elapsed = System.currentTimeMillis() - start;
         log.info("Analysis complete in {}ms — {} classes, {} methods, {} nodes, {} edges",
-                elapsed, currentClasses.size(),
-                currentClasses.stream().mapToInt(c -> c.getMethods().size()).sum(),
-                currentGraph.nodeCount(), currentGraph.edgeCount());
+                elapsed, classCount, methodCount, currentGraph.nodeCount(), currentGraph.edgeCount());
 
         return currentGraph;
     }
 
+    private SortedMap<Path, List<ClassInfo>> parseWithCache(List<Path> sourceRoots, MetricsRecorder recorder) {
+        List<Path> files = new ArrayList<>();
+        try (MetricsRecorder.Phase phase = recorder.start("discovery")) {
+            for (Path root : sourceRoots) {
+                files.addAll(parser.findSourceFiles(root));
+            }
+            phase.count("files", files.size());
+        }
+        List<List<ClassInfo>> perFile = new ArrayList<>(Collections.nCopies(files.size(), null));
+
+        List<Integer> staleIndexes = new ArrayList<>();
+        List<Path> staleFiles = new ArrayList<>();
+        try (MetricsRecorder.Phase phase = recorder.start("cache")) {
+            // Entries of files deleted or renamed since the last run would never be read again
+            int pruned = 0;
+            for (Path root : sourceRoots) {
+                pruned += cache.retainOnly(root, files);
+            }
+            phase.count("pruned", pruned);
+            for (int i = 0; i < files.size(); i++) {
+                List<ClassInfo> cached = cache.get(files.get(i));
+                if (cached != null) {
+                    perFile.set(i, cached);
+                } else {
+                    staleIndexes.add(i);
+                    staleFiles.add(files.get(i));
+                }
+            }
+            phase.count("hits", files.size() - staleFiles.size()).count("misses", staleFiles.size());
+        }
+
+        try (MetricsRecorder.Phase phase = recorder.start("parse")) {
+            List<List<ClassInfo>> parsed = parser.parseFiles(staleFiles, phase);
+            int classCount = 0;
+            for (int i = 0; i < staleFiles.size(); i++) {
+                perFile.set(staleIndexes.get(i), parsed.get(i));
+                cache.put(staleFiles.get(i), parsed.get(i));
+                classCount += parsed.get(i).size();
+            }
+            phase.count("files", staleFiles.size()).count("classes", classCount);
+        }
+        log.info("Re-parsed {} files, reused {} cached files", staleFiles.size(), files.size() - staleFiles.size());
+
+        SortedMap<Path, List<ClassInfo>> classesByFile = new TreeMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            classesByFile.put(files.get(i), perFile.get(i));
+        }
+        return classesByFile;
+    }
+
+    private void countClasses() {
+        classCount = 0;
+        methodCount = 0;
+        for (List<ClassInfo> classes : currentFiles.values()) {
+            count(classes, 1);
+        }
+    }
+
+    /**
+     * Add ({@code sign} 1) or subtract ({@code sign} -1) a file's classes
+     * and methods from the totals.
+     */
+    private void count(List<ClassInfo> classes, int sign) {
+        classCount += sign * classes.size();
+        for (ClassInfo cls : classes) {
+            methodCount += sign * cls.getMethods().size();
+        }
+    }
+
+    private static List<ClassInfo> flatten(SortedMap<Path, List<ClassInfo>> classesByFile) {
+        List<ClassInfo> classes = new ArrayList<>();
+        for (List<ClassInfo> fileClasses : classesByFile.values()) {
+            classes.addAll(fileClasses);
+        }
+        return classes;
+    }
+
+    /**
+     * Re-parse one changed, new, or deleted source file and patch the current
+     * graph instead of re-analyzing the project. Only the file itself is
+     * re-parsed, and only files whose references may resolve differently are
+     * re-resolved; the new graph shares unchanged nodes and edges with the
+     * previous one.
+     *
+     * @param changedFile a source file under the analyzed root; if it no
+     *                    longer exists it is treated as deleted, and anything
+     *                    {@link #analyze(Path)} would not have parsed is
+     *                    ignored unless it was part of the graph
+     * @return the changes; {@link GraphDelta#getGraph()} is the new current graph
+     */
+    public GraphDelta update(Path changedFile) {
+        ensureAnalyzed();
+        Path file = fileKey(changedFile);
+        if (!isSourceFile(file)) {
+            if (currentFiles.containsKey(file))
+                return remove(file);
+            return GraphDelta.apply(currentGraph, List.of(), List.of(), List.of(), List.of());
+        }
+        if (!Files.exists(file))
+            return remove(file);
+
+        List<ClassInfo> classes;
+        try {
+            classes = parser.parseFile(file);
+        } catch (RuntimeException e) {
+            // Same as a failed parse during analysis: the file contributes nothing
+            log.warn("Failed to parse file: {}", file, e);
+            classes = List.of();
+        }
+        cache.put(file, classes);
+        return applyChanges(Map.of(file, classes));
+    }
+
+    /**
+     * Apply a batch of file changes, as collected by a file-system watcher.
+     * A directory stands for every source file beneath it, both those found
+     * there now and those analyzed before, so a moved or deleted directory
+     * can be reported as one path. Other files are ignored unless they were
+     * part of the graph, as for a single update. The changed files are
+     * parsed together and patched into the graph at once, so a batch costs
+     * one patch of the graph however many files it touches.
+     *
+     * @return the combined changes of the batch
+     * @see #update(Path)
+     */
+    public GraphDelta update(Collection<Path> changedFiles) {
+        ensureAnalyzed();
+        Set<Path> files = new TreeSet<>();
+        for (Path changed : changedFiles) {
+            Path file = fileKey(changed);
+            if (currentFiles.containsKey(file) || isSourceFile(file) && Files.isRegularFile(file)) {
+                files.add(file);
+                continue;
+            }
+            if (Files.isDirectory(file)) {
+                for (Path found : parser.findSourceFiles(file)) {
+                    Path key = fileKey(found);
+                    if (isSourceFile(key))
+                        files.add(key);
+                }
+            }
+            for (Path known : currentFiles.keySet()) {
+                if (known.startsWith(file))
+                    files.add(known);
+            }
+        }
+
+        Map<Path, List<ClassInfo>> changes = new TreeMap<>();
+        List<Path> existing = new ArrayList<>();
+        for (Path file : files) {
+            if (isSourceFile(file) && Files.isRegularFile(file)) {
+                existing.add(file);
+            } else {
+                cache.invalidate(file);
+                changes.put(file, List.of());
+            }
+        }
+        List<List<ClassInfo>> parsed = parser.parseFiles(existing);
+        for (int i = 0; i < existing.size(); i++) {
+            cache.put(existing.get(i), parsed.get(i));
+            changes.put(existing.get(i), parsed.get(i));
+        }
+        if (changes.isEmpty())
+            return GraphDelta.apply(currentGraph, List.of(), List.of(), List.of(), List.of());
+        return applyChanges(changes);
+    }
+
+    /**
+     * Drop a deleted source file from the current graph.
+     *
+     * @see #update(Path)
+     */
+    public GraphDelta remove(Path deletedFile) {
+        ensureAnalyzed();
+        Path file = fileKey(deletedFile);
+        cache.invalidate(file);
+        return applyChanges(Map.of(file, List.of()));
+    }
+
+    /**
+     * Patch the current graph with newly parsed classes per file; an empty
+     * list removes the file.
+     */
+    private GraphDelta applyChanges(Map<Path, List<ClassInfo>> changes) {
+        long start = System.nanoTime();
+        if (incrementalBuilder == null && graphBuilder.getClass() == GraphBuilderImpl.class) {
+            // Without incremental mode this costs one more full build, once per analysis
+            log.info("Building incremental graph state for the first update");
+            incrementalBuilder = new IncrementalGraphBuilder(currentFiles);
+        }
+
+        changes.forEach((file, classes) -> {
+            List<ClassInfo> old = classes.isEmpty() ? currentFiles.remove(file) : currentFiles.put(file, classes);
+            if (old != null)
+                count(old, -1);
+            count(classes, 1);
+        });
+
+        GraphDelta delta;
+        if (incrementalBuilder != null) {
+            delta = incrementalBuilder.update(changes);
+        } else {
+            // Custom builders are opaque: rebuild and compare
+            delta = GraphDelta.diff(currentGraph, graphBuilder.build(flatten(currentFiles)));
+        }
+        currentGraph = delta.getGraph();
+        log.info("Updated {} in {}ms — {}", changes.size() == 1 ? changes.keySet().iterator().next()
+                : changes.size() + " files", (System.nanoTime() - start) / 1_000_000, delta);
+        return delta;
+    }
+
+    /**
+     * Whether {@link #analyze(Path)} would parse the file: a Java source file
+     * beneath one of the analyzed roots.
+     */
+    private boolean isSourceFile(Path file) {
+        if (!file.toString().endsWith(".java"))
+            return false;
+        Path absolute = file.toAbsolutePath().normalize();
+        for (Path sourceRoot : currentRoots) {
+            if (absolute.startsWith(sourceRoot.toAbsolutePath().normalize()))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * The path under which {@link #analyze(Path)} would have found a file, so
+     * absolute and root-relative spellings of it refer to the same entry.
+     */
+    private Path fileKey(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        for (Path sourceRoot : currentRoots) {
+            Path root = sourceRoot.toAbsolutePath().normalize();
+            if (absolute.startsWith(root))
+                return sourceRoot.resolve(root.relativize(absolute));
+        }
+        return absolute;
+    }
+
     /**
      * Get the call graph for a method, up to the specified depth.
      */
@@ -125,14 +412,181 @@ public class CodeMapEngine {
      * Analyze the impact of modifying a class.
      */
     public AnalysisResult getImpactAnalysis(String className) {
+        return getImpactAnalysis(className, null);
+    }
+
+    private AnalysisResult getImpactAnalysis(String className, MetricsRecorder recorder) {
         ensureAnalyzed();
         long start = System.currentTimeMillis();
-        ImpactAnalyzer analyzer = new ImpactAnalyzer(currentGraph);
+        ImpactAnalyzer analyzer = new ImpactAnalyzer(currentGraph, reachabilityIndex(recorder));
         CodeGraph result = analyzer.getImpactAnalysis(className);
 
         return buildResult("impact-analysis", className, result, start);
     }
 
+    /**
+     * The combined impact of a change set: the nodes its changed lines fall
+     * in, everything that depends on them, found in one pass, and which
+     * changed node affects which impacted node
+     * ({@link AnalysisResult#getAttribution()}).
+     *
+     * @param target description of the changes for the result
+     */
+    public AnalysisResult getBatchImpact(ChangeSet changes, String target) {
+        return getBatchImpact(changes, target, null);
+    }
+
+    private AnalysisResult getBatchImpact(ChangeSet changes, String target, MetricsRecorder recorder) {
+        ensureAnalyzed();
+        long start = System.currentTimeMillis();
+        ImpactAnalyzer analyzer = new ImpactAnalyzer(currentGraph, reachabilityIndex(recorder));
+        List<String> changed = analyzer.getChangedNodes(changes);
+        ImpactAnalyzer.BatchImpact impact = analyzer.getBatchImpact(changed);
+        log.info("{} changed files, {} changed nodes, {} impacted nodes",
+                changes.files().size(), changed.size(), impact.graph().nodeCount());
+
+        return buildResult("impact-batch", target, impact.graph(), start).toBuilder()
+                .attribution(impact.attribution())
+                .build();
+    }
+
+    /**
+     * Find the shortest paths from one method or class to another. The
+     * result graph holds only the nodes and edges on those paths, and
+     * {@link AnalysisResult#getPaths()} lists each path's node IDs.
+     *
+     * @param limit     maximum number of paths, at least 1
+     * @param edgeTypes edge types to follow (null/empty = all)
+     */
+    public AnalysisResult getPaths(String from, String to, int limit, Set<EdgeType> edgeTypes) {
+        ensureAnalyzed();
+        long start = System.currentTimeMillis();
+        PathAnalyzer analyzer = new PathAnalyzer(currentGraph);
+        List<GraphQuery.GraphPath> paths = analyzer.findPaths(from, to, limit, edgeTypes);
+
+        List<List<String>> nodeIds = new ArrayList<>(paths.size());
+        for (GraphQuery.GraphPath path : paths) {
+            nodeIds.add(path.nodeIds());
+        }
+        return buildResult("path", from + " -> " + to, analyzer.getPathGraph(paths), start).toBuilder()
+                .paths(nodeIds)
+                .build();
+    }
+
+    /**
+     * Run one analysis command by name, as used by the CLI and the daemon.
+     *
+     * @param command one of {@link #COMMANDS}
+     * @param target  target method signature or class name (ignored by
+     *                commands that analyze the whole project)
+     * @param depth   max traversal depth for call graphs
+     * @return the analysis result
+     * @throws IllegalArgumentException if the command is unknown or needs a
+     *                                  target that was not given
+     */
+    public AnalysisResult runCommand(String command, String target, int depth) {
+        return runCommand(command, target, depth, null);
+    }
+
+    /**
+     * Run one analysis command by name, with the end point and options of
+     * the {@code path} command.
+     *
+     * @param paths options for {@code path}; ignored by other commands
+     * @see #runCommand(String, String, int)
+     */
+    public AnalysisResult runCommand(String command, String target, int depth, PathOptions paths) {
+        return runQuery(command, target, depth, recorder -> dispatch(command, target, depth, paths, recorder));
+    }
+
+    /**
+     * Run the {@code impact-batch} command: the combined impact of the
+     * changed files, or of the changes in a git revision range of the
+     * repository containing the source root.
+     *
+     * @param files    changed files, each changed as a whole; if empty,
+     *                 {@code gitRange} is used
+     * @param gitRange revision range for {@code git diff}, e.g. {@code main...HEAD}
+     * @throws IllegalArgumentException if neither files nor a range are given
+     * @see #getBatchImpact(ChangeSet, String)
+     */
+    public AnalysisResult runImpactBatch(List<Path> files, String gitRange) {
+        ensureAnalyzed();
+        boolean byFiles = files != null && !files.isEmpty();
+        if (!byFiles && (gitRange == null || gitRange.isEmpty()))
+            throw new IllegalArgumentException("Files or a git revision range are required for command: impact-batch");
+        String target = byFiles ? files.stream().map(Path::toString).collect(Collectors.joining(", ")) : gitRange;
+        return runQuery("impact-batch", target, -1, recorder -> {
+            ChangeSet changes = byFiles ? ChangeSet.ofFiles(files) : ChangeSet.fromGit(currentRoots.get(0), gitRange);
+            return getBatchImpact(changes, target, recorder);
+        });
+    }
+
+    /**
+     * Run a query, recording a {@code query} phase and a query event, and
+     * attach metrics when profiling.
+     */
+    private AnalysisResult runQuery(String command, String target, int depth,
+            Function<MetricsRecorder, AnalysisResult> query) {
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        MetricsRecorder recorder = new MetricsRecorder();
+        AnalysisResult result;
+        try (MetricsRecorder.Phase phase = recorder.start("query")) {
+            result = query.apply(recorder);
+            phase.count("nodes", result.getGraph().nodeCount()).count("edges", result.getGraph().edgeCount());
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.command = command;
+            event.target = target;
+            event.depth = depth;
+            event.nodeCount = result.getGraph().nodeCount();
+            event.edgeCount = result.getGraph().edgeCount();
+            event.commit();
+        }
+        if (!profiling)
+            return result;
+
+        List<PhaseMetrics> metrics = new ArrayList<>(analysisMetrics);
+        metrics.addAll(recorder.getPhases());
+        return result.toBuilder().metrics(metrics).build();
+    }
+
+    private AnalysisResult dispatch(String command, String target, int depth, PathOptions paths,
+            MetricsRecorder recorder) {
+        switch (command.toLowerCase()) {
+            case "callgraph":
+                return getCallGraph(requireTarget(command, target), depth);
+            case "incoming-calls":
+                return getIncomingCalls(requireTarget(command, target));
+            case "dependencies":
+                return getClassDependencies(requireTarget(command, target));
+            case "circular-deps":
+                return detectCircularDependencies();
+            case "impact":
+                return getImpactAnalysis(requireTarget(command, target), recorder);
+            case "path":
+                if (paths == null || paths.to() == null || paths.to().isEmpty())
+                    throw new IllegalArgumentException("An end point ('to') is required for command: " + command);
+                return getPaths(requireTarget(command, target), paths.to(), paths.limit(), paths.edgeTypes());
+            case "fullgraph":
+                return getFullGraphResult();
+            default:
+                throw new IllegalArgumentException(
+                        "Unknown command: " + command + ". Available: " + String.join(", ", COMMANDS));
+        }
+    }
+
+    /**
+     * Get the full code graph wrapped as an analysis result.
+     */
+    public AnalysisResult getFullGraphResult() {
+        ensureAnalyzed();
+        long start = System.currentTimeMillis();
+        return buildResult("fullgraph", "all", currentGraph, start);
+    }
+
     /**
      * Get the full code graph.
      */
@@ -155,6 +609,97 @@ public class CodeMapEngine {
         return serializer.toJson(graph);
     }
 
+    /**
+     * Stream an analysis result as JSON without materializing it in memory.
+     */
+    public void writeJson(AnalysisResult result, Writer out) {
+        serializer.writeJson(result, out);
+    }
+
+    /**
+     * Stream an analysis result as JSON in the given layout.
+     */
+    public void writeJson(AnalysisResult result, Writer out, OutputFormat format) {
+        GraphJsonSerializer target = format == serializer.getFormat() ? serializer : new GraphJsonSerializer(format);
+        target.writeJson(result, out);
+    }
+
+    /**
+     * When enabled, results returned by {@link #runCommand(String, String, int)}
+     * carry per-phase metrics for the last analysis and the query.
+     */
+    public void setProfiling(boolean profiling) {
+        this.profiling = profiling;
+    }
+
+    public boolean isProfiling() {
+        return profiling;
+    }
+
+    /**
+     * When enabled, {@link #analyze(Path)} builds the graph through an
+     * {@link IncrementalGraphBuilder}, so that later updates patch it
+     * directly. Otherwise the first update after an analysis builds the
+     * incremental state first, which costs a second full build. Enable it
+     * when the graph will be kept up to date, e.g. by a watching server;
+     * the builder's bookkeeping is then held for the engine's life.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * When enabled, impact queries read impacted sets from a
+     * {@link ReachabilityIndex} instead of traversing the graph. The index is
+     * built by the first impact query after each analysis or update, and its
+     * build shows up as a {@code reachability} phase of that query.
+     */
+    public void setReachabilityIndexEnabled(boolean enabled) {
+        this.reachabilityIndexEnabled = enabled;
+        if (!enabled)
+            reachability = null;
+    }
+
+    public boolean isReachabilityIndexEnabled() {
+        return reachabilityIndexEnabled;
+    }
+
+    /**
+     * The reachability index of the current graph, or null if it is disabled
+     * or has not been built for this graph version yet. Its size and build
+     * time are available from the index.
+     */
+    public ReachabilityIndex getReachabilityIndex() {
+        return reachability != null && reachability.getGraph() == currentGraph ? reachability : null;
+    }
+
+    private ReachabilityIndex reachabilityIndex(MetricsRecorder recorder) {
+        if (!reachabilityIndexEnabled)
+            return null;
+        if (reachability == null || reachability.getGraph() != currentGraph) {
+            MetricsRecorder target = recorder != null ? recorder : new MetricsRecorder();
+            try (MetricsRecorder.Phase phase = target.start("reachability")) {
+                reachability = new ReachabilityIndex(currentGraph, ImpactAnalyzer.IMPACT_EDGE_TYPES);
+                phase.count("components", reachability.componentCount())
+                        .count("intervals", reachability.intervalCount())
+                        .count("bytes", reachability.memoryBytes());
+            }
+            log.info("Built {}", reachability);
+        }
+        return reachability;
+    }
+
+    /**
+     * Phase metrics of the most recent {@link #analyze(Path)}.
+     */
+    public List<PhaseMetrics> getAnalysisMetrics() {
+        return analysisMetrics;
+    }
+
     /**
      * Get cache statistics.
      */
@@ -168,7 +713,29 @@ public class CodeMapEngine {
     public void clearCache() {
         cache.clear();
         currentGraph = null;
-        currentClasses = null;
+        classCount = 0;
+        methodCount = 0;
+        currentFiles = null;
+        currentRoots = null;
+        incrementalBuilder = null;
+        reachability = null;
+    }
+
+    /**
+     * Options of the {@code path} command; the start is the command target.
+     *
+     * @param to        method signature or class name to reach
+     * @param limit     maximum number of paths, at least 1
+     * @param edgeTypes edge types to follow (null/empty = all)
+     */
+    public record PathOptions(String to, int limit, Set<EdgeType> edgeTypes) {
+    }
+
+    private static String requireTarget(String command, String target) {
+        if (target == null || target.isEmpty()) {
+            throw new IllegalArgumentException("A target is required for command: " + command);
+        }
+        return target;
     }
 
     private void ensureAnalyzed() {
@@ -184,9 +751,8 @@ public class CodeMapEngine {
                 .graph(resultGraph)
                 .timestamp(Instant.now())
                 .analysisTimeMs(System.currentTimeMillis() - startTime)
-                .totalClassesParsed(currentClasses != null ? currentClasses.size() : 0)
-                .totalMethodsParsed(
-                        currentClasses != null ? currentClasses.stream().mapToInt(c -> c.getMethods().size()).sum() : 0)
+                .totalClassesParsed(classCount)
+                .totalMethodsParsed(methodCount)
                 .build();
     }
 }
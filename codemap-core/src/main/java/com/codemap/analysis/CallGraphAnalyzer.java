@@ -54,23 +54,6 @@ public class CallGraphAnalyzer {
      * Resolve a method signature to its graph node ID.
      */
     private String resolveMethodId(String methodSignature) {
-        // Try direct match
-        String directId = "method:" + methodSignature;
-        if (graph.getNode(directId).isPresent())
-            return directId;
-
-        // Fuzzy match by qualified name suffix
-        for (GraphNode node : graph.getNodesByType(NodeType.METHOD)) {
-            if (node.getQualifiedName() != null && node.getQualifiedName().contains(methodSignature)) {
-                return node.getId();
-            }
-        }
-        for (GraphNode node : graph.getNodesByType(NodeType.CONSTRUCTOR)) {
-            if (node.getQualifiedName() != null && node.getQualifiedName().contains(methodSignature)) {
-                return node.getId();
-            }
-        }
-
-        return null;
+        return graph.symbols().resolveMethodId(methodSignature);
     }
 }
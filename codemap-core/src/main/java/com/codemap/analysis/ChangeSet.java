@@ -0,0 +1,205 @@
+package com.codemap.analysis;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Source files and line ranges that changed, as input to batch impact
+ * analysis. A file is either changed as a whole or in specific lines of its
+ * current version.
+ */
+public final class ChangeSet {
+
+    /** Changed line ranges by absolute, normalized file; empty for a whole file */
+    private final Map<Path, List<LineRange>> changes;
+
+    private ChangeSet(Map<Path, List<LineRange>> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Every line of the given files changed.
+     */
+    public static ChangeSet ofFiles(Collection<Path> files) {
+        Map<Path, List<LineRange>> changes = new LinkedHashMap<>();
+        for (Path file : files) {
+            changes.put(normalize(file), List.of());
+        }
+        return new ChangeSet(changes);
+    }
+
+    /**
+     * The Java changes between two revisions of the local git repository
+     * containing {@code directory}, or between a revision and the working
+     * tree, read with {@code git diff}. Nothing is fetched.
+     *
+     * @param range a revision range as accepted by {@code git diff}, e.g.
+     *              {@code main...HEAD} or {@code HEAD~3}
+     * @throws IllegalArgumentException if the range is empty or looks like
+     *                                  an option
+     * @throws IllegalStateException    if git fails
+     */
+    public static ChangeSet fromGit(Path directory, String range) {
+        if (range == null || range.isBlank() || range.startsWith("-"))
+            throw new IllegalArgumentException("Invalid git revision range: " + range);
+        Path topLevel = Path.of(git(directory, "rev-parse", "--show-toplevel").trim());
+        // Explicit prefixes, so diff.noprefix or diff.mnemonicPrefix settings do not change the paths
+        String diff = git(directory, "-c", "core.quotePath=false", "diff", "--unified=0", "--no-color",
+                "--no-ext-diff", "--src-prefix=a/", "--dst-prefix=b/", range, "--", "*.java");
+        return parseDiff(diff, topLevel);
+    }
+
+    /**
+     * Parse a unified diff with {@code a/} and {@code b/} path prefixes,
+     * taking the changed lines of each file's new version from the hunk
+     * headers. Lines removed without replacement mark the line they were
+     * removed after; deleted files are left out, as they are no longer part
+     * of the graph.
+     *
+     * @param baseDir directory the diff's paths are relative to
+     */
+    public static ChangeSet parseDiff(String diff, Path baseDir) {
+        Map<Path, List<LineRange>> changes = new LinkedHashMap<>();
+        List<LineRange> current = null;
+        boolean afterOldHeader = false;
+        // Lines of the current hunk still to come, per side; content lines
+        // may themselves start with "--- " or "+++ "
+        int oldRemaining = 0;
+        int newRemaining = 0;
+        for (String line : diff.split("\n")) {
+            if (oldRemaining > 0 || newRemaining > 0) {
+                if (line.startsWith("-")) {
+                    oldRemaining--;
+                } else if (line.startsWith("+")) {
+                    newRemaining--;
+                } else if (line.startsWith(" ")) {
+                    oldRemaining--;
+                    newRemaining--;
+                }
+                continue;
+            }
+
+            if (line.startsWith("--- ")) {
+                afterOldHeader = true;
+                continue;
+            }
+            if (line.startsWith("+++ ") && afterOldHeader) {
+                String name = line.substring(4).trim();
+                if (name.length() > 1 && name.startsWith("\"") && name.endsWith("\""))
+                    name = name.substring(1, name.length() - 1);
+                if (name.equals("/dev/null")) {
+                    current = null;
+                } else {
+                    if (name.startsWith("b/"))
+                        name = name.substring(2);
+                    current = changes.computeIfAbsent(normalize(baseDir.resolve(name)), k -> new ArrayList<>());
+                }
+            } else if (line.startsWith("@@ ")) {
+                int[] hunk = parseHunk(line);
+                if (hunk != null) {
+                    oldRemaining = hunk[1];
+                    newRemaining = hunk[3];
+                    if (current != null) {
+                        int start = Math.max(hunk[2], 1);
+                        current.add(new LineRange(start, hunk[3] == 0 ? start : start + hunk[3] - 1));
+                    }
+                }
+            } else if (line.startsWith("diff ")) {
+                current = null;
+            }
+            afterOldHeader = false;
+        }
+        // A file with no hunks (e.g. a mode change) carries no changed lines
+        changes.values().removeIf(List::isEmpty);
+        return new ChangeSet(changes);
+    }
+
+    /**
+     * The ranges of a hunk header {@code @@ -a[,b] +c[,d] @@} as
+     * {@code {a, b, c, d}}, or null if it is malformed.
+     */
+    private static int[] parseHunk(String header) {
+        String[] tokens = header.split(" ");
+        if (tokens.length < 3 || !tokens[1].startsWith("-") || !tokens[2].startsWith("+"))
+            return null;
+        try {
+            int[] hunk = new int[4];
+            for (int side = 0; side < 2; side++) {
+                String[] parts = tokens[side + 1].substring(1).split(",");
+                hunk[2 * side] = Integer.parseInt(parts[0]);
+                hunk[2 * side + 1] = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            }
+            return hunk;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Run git and return its output. Errors go to a temporary file rather
+     * than a pipe, so a chatty git cannot block on a full error pipe while
+     * its output is being read.
+     */
+    private static String git(Path directory, String... args) {
+        List<String> command = new ArrayList<>(List.of("git", "-C", directory.toString()));
+        command.addAll(List.of(args));
+        File errorFile = null;
+        try {
+            errorFile = File.createTempFile("codemap-git", ".err");
+            Process process = new ProcessBuilder(command).redirectError(errorFile).start();
+            process.getOutputStream().close();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            int exit = process.waitFor();
+            if (exit != 0) {
+                String errors = Files.readString(errorFile.toPath(), StandardCharsets.UTF_8);
+                throw new IllegalStateException("git " + String.join(" ", args) + " failed: " + errors.trim());
+            }
+            return output;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot run git: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running git", e);
+        } finally {
+            if (errorFile != null)
+                errorFile.delete();
+        }
+    }
+
+    private static Path normalize(Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+
+    /**
+     * The changed files, as absolute, normalized paths.
+     */
+    public Set<Path> files() {
+        return Collections.unmodifiableSet(changes.keySet());
+    }
+
+    /**
+     * Changed lines of a file from {@link #files()}; empty when the whole
+     * file counts as changed.
+     */
+    public List<LineRange> lines(Path file) {
+        return changes.getOrDefault(file, List.of());
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeSet" + changes;
+    }
+
+    /**
+     * Lines {@code start} to {@code end} of a file, inclusive and 1-based.
+     */
+    public record LineRange(int start, int end) {
+    }
+}
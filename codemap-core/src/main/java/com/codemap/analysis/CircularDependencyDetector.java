@@ -5,10 +5,15 @@ import com.codemap.model.*;
 import java.util.*;
 
 /**
- * Detects circular dependencies between classes using Tarjan's SCC algorithm.
+ * Detects circular dependencies between classes using Tarjan's SCC algorithm,
+ * as implemented by {@link GraphIndex#stronglyConnectedComponents}, which
+ * neither recurses nor boxes and handles arbitrarily deep dependency chains.
  */
 public class CircularDependencyDetector {
 
+    private static final int CLASS_EDGES = GraphIndex.edgeTypeMask(
+            EnumSet.of(EdgeType.DEPENDENCY, EdgeType.EXTENDS, EdgeType.IMPLEMENTS));
+
     private final CodeGraph graph;
 
     public CircularDependencyDetector(CodeGraph graph) {
@@ -23,81 +28,36 @@ public class CircularDependencyDetector {
      *         cycle)
      */
     public List<List<String>> detectCircularDependencies() {
-        // Build adjacency from class-level edges only
-        Set<EdgeType> classEdges = EnumSet.of(EdgeType.DEPENDENCY, EdgeType.EXTENDS, EdgeType.IMPLEMENTS);
-        List<GraphNode> classNodes = new ArrayList<>();
-        classNodes.addAll(graph.getNodesByType(NodeType.CLASS));
-        classNodes.addAll(graph.getNodesByType(NodeType.INTERFACE));
-        classNodes.addAll(graph.getNodesByType(NodeType.ENUM));
-
-        Set<String> classIds = new HashSet<>();
-        for (GraphNode node : classNodes) {
-            classIds.add(node.getId());
-        }
-
-        // Tarjan's algorithm
-        Map<String, Integer> index = new HashMap<>();
-        Map<String, Integer> lowLink = new HashMap<>();
-        Map<String, Boolean> onStack = new HashMap<>();
-        Deque<String> stack = new ArrayDeque<>();
-        List<List<String>> sccs = new ArrayList<>();
-        int[] counter = { 0 };
-
-        for (GraphNode node : classNodes) {
-            if (!index.containsKey(node.getId())) {
-                strongConnect(node.getId(), index, lowLink, onStack, stack, sccs, counter, classIds, classEdges);
-            }
-        }
-
-        // Filter out single-node SCCs (they aren't cycles)
+        GraphIndex index = graph.index();
         List<List<String>> cycles = new ArrayList<>();
-        for (List<String> scc : sccs) {
-            if (scc.size() > 1) {
+        // Only class-level nodes are searched, in the order of classNodes
+        index.stronglyConnectedComponents(CLASS_EDGES, classNodes(index), null, (component, members, from, to) -> {
+            // Single-node SCCs aren't cycles
+            if (to - from > 1) {
+                List<String> scc = new ArrayList<>(to - from);
+                for (int i = to - 1; i >= from; i--) {
+                    scc.add(index.idAt(members[i]));
+                }
                 cycles.add(scc);
             }
-        }
+        });
         return cycles;
     }
 
-    private void strongConnect(String nodeId,
-            Map<String, Integer> index,
-            Map<String, Integer> lowLink,
-            Map<String, Boolean> onStack,
-            Deque<String> stack,
-            List<List<String>> sccs,
-            int[] counter,
-            Set<String> classIds,
-            Set<EdgeType> classEdges) {
-        index.put(nodeId, counter[0]);
-        lowLink.put(nodeId, counter[0]);
-        counter[0]++;
-        stack.push(nodeId);
-        onStack.put(nodeId, true);
-
-        for (GraphEdge edge : graph.getOutgoingEdges(nodeId)) {
-            if (!classEdges.contains(edge.getType()))
-                continue;
-            String target = edge.getTargetId();
-            if (!classIds.contains(target))
-                continue;
-
-            if (!index.containsKey(target)) {
-                strongConnect(target, index, lowLink, onStack, stack, sccs, counter, classIds, classEdges);
-                lowLink.put(nodeId, Math.min(lowLink.get(nodeId), lowLink.get(target)));
-            } else if (onStack.getOrDefault(target, false)) {
-                lowLink.put(nodeId, Math.min(lowLink.get(nodeId), index.get(target)));
+    /**
+     * Index slots of class, interface and enum nodes, in that order and in
+     * graph order within each type.
+     */
+    private static int[] classNodes(GraphIndex index) {
+        int[] slots = new int[index.size()];
+        int count = 0;
+        for (NodeType type : List.of(NodeType.CLASS, NodeType.INTERFACE, NodeType.ENUM)) {
+            for (int i = 0; i < index.size(); i++) {
+                GraphNode node = index.nodeAt(i);
+                if (node != null && node.getType() == type)
+                    slots[count++] = i;
             }
         }
-
-        if (lowLink.get(nodeId).equals(index.get(nodeId))) {
-            List<String> scc = new ArrayList<>();
-            String w;
-            do {
-                w = stack.pop();
-                onStack.put(w, false);
-                scc.add(w);
-            } while (!w.equals(nodeId));
-            sccs.add(scc);
-        }
+        return Arrays.copyOf(slots, count);
     }
 }
@@ -52,20 +52,6 @@ public class DependencyAnalyzer {
     }
 
     private String resolveClassId(String className) {
-        String directId = "class:" + className;
-        if (graph.getNode(directId).isPresent())
-            return directId;
-
-        for (GraphNode node : graph.getNodesByType(NodeType.CLASS)) {
-            if (node.getQualifiedName() != null && node.getQualifiedName().endsWith(className)) {
-                return node.getId();
-            }
-        }
-        for (GraphNode node : graph.getNodesByType(NodeType.INTERFACE)) {
-            if (node.getQualifiedName() != null && node.getQualifiedName().endsWith(className)) {
-                return node.getId();
-            }
-        }
-        return null;
+        return graph.symbols().resolveTypeId(className);
     }
 }
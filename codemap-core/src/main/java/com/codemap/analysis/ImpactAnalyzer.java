@@ -3,20 +3,50 @@ package com.codemap.analysis;
 import com.codemap.graph.GraphQuery;
 import com.codemap.model.*;
 
+import java.nio.file.Path;
 import java.util.*;
 
 /**
  * Impact analysis — determines which classes/methods are affected
  * if a given class is modified.
+ *
+ * By default every question is answered by a reverse traversal. Given a
+ * {@link ReachabilityIndex} over {@link #IMPACT_EDGE_TYPES}, impacted sets
+ * are read from the index instead, which pays off when many questions are
+ * asked of one graph version.
  */
 public class ImpactAnalyzer {
 
+    /** Edge types along which a change propagates to the edge's source. */
+    public static final Set<EdgeType> IMPACT_EDGE_TYPES = Collections.unmodifiableSet(EnumSet.of(
+            EdgeType.DEPENDENCY, EdgeType.EXTENDS, EdgeType.IMPLEMENTS, EdgeType.CALLS));
+    private static final int IMPACT_EDGES = GraphIndex.edgeTypeMask(IMPACT_EDGE_TYPES);
+
+    private static final Set<NodeType> CHANGE_KINDS = EnumSet.of(
+            NodeType.CLASS, NodeType.INTERFACE, NodeType.ENUM, NodeType.METHOD, NodeType.CONSTRUCTOR);
+
+    private static final Set<EdgeType> DIRECT_EDGE_TYPES = EnumSet.of(
+            EdgeType.DEPENDENCY, EdgeType.EXTENDS, EdgeType.IMPLEMENTS);
+    private static final int DIRECT_EDGES = GraphIndex.edgeTypeMask(DIRECT_EDGE_TYPES);
+
     private final CodeGraph graph;
     private final GraphQuery query;
+    private final ReachabilityIndex reachability;
 
     public ImpactAnalyzer(CodeGraph graph) {
+        this(graph, null);
+    }
+
+    /**
+     * @param reachability index over {@link #IMPACT_EDGE_TYPES} for this
+     *                     graph, or null to traverse
+     */
+    public ImpactAnalyzer(CodeGraph graph, ReachabilityIndex reachability) {
+        if (reachability != null && !reachability.covers(graph, IMPACT_EDGE_TYPES))
+            throw new IllegalArgumentException("Reachability index was built for another graph or edge types");
         this.graph = graph;
         this.query = new GraphQuery(graph);
+        this.reachability = reachability;
     }
 
     /**
@@ -31,10 +61,195 @@ public class ImpactAnalyzer {
         if (classId == null)
             return new CodeGraph(Collections.emptyList(), Collections.emptyList());
 
-        // Reverse traverse: find everything that depends on this class
-        Set<EdgeType> depEdges = EnumSet.of(
-                EdgeType.DEPENDENCY, EdgeType.EXTENDS, EdgeType.IMPLEMENTS, EdgeType.CALLS);
-        return query.reverseTraverse(classId, -1, depEdges);
+        if (reachability == null) {
+            // Reverse traverse: find everything that depends on this class
+            return query.reverseTraverse(classId, -1, IMPACT_EDGE_TYPES);
+        }
+
+        // The same nodes and edges as the traversal, read from the index:
+        // every impact edge entering an impacted node comes from another one
+        GraphIndex index = graph.index();
+        int[] impacted = reachability.reaching(index.indexOf(classId));
+        Arrays.sort(impacted);
+        List<GraphNode> nodes = new ArrayList<>(impacted.length);
+        List<GraphEdge> edges = new ArrayList<>();
+        for (int slot : impacted) {
+            GraphNode node = index.nodeAt(slot);
+            if (node != null)
+                nodes.add(node);
+            for (int pos = index.inStart(slot); pos < index.inEnd(slot); pos++) {
+                int edge = index.inEdgeAt(pos);
+                if (index.edgeMatches(edge, IMPACT_EDGES))
+                    edges.add(index.edgeAt(edge));
+            }
+        }
+        return new CodeGraph(nodes, edges);
+    }
+
+    /**
+     * Whether modifying the given class affects a node, i.e. the node
+     * transitively depends on it. A class affects itself.
+     *
+     * @param nodeId    ID of the node that may be affected
+     * @param className the modified class
+     */
+    public boolean isImpactedBy(String nodeId, String className) {
+        String classId = resolveClassId(className);
+        if (classId == null)
+            return false;
+        if (reachability != null)
+            return reachability.reaches(nodeId, classId);
+        return query.reverseTraverse(classId, -1, IMPACT_EDGE_TYPES).getNode(nodeId).isPresent();
+    }
+
+    /**
+     * The type, method and constructor nodes touched by a change set. Nodes
+     * only record the line they start on, so a changed line is attributed to
+     * the node starting closest before it: the enclosing method, or the
+     * class for lines of its header and of fields before its first method.
+     * Lines before the first node, such as imports, go to the first node of
+     * the file. A whole-file change touches every such node of the file.
+     *
+     * @return node IDs, in the order of the change set's files and lines
+     */
+    public List<String> getChangedNodes(ChangeSet changes) {
+        Map<Path, List<GraphNode>> nodesByFile = new HashMap<>();
+        for (GraphNode node : graph.getNodes()) {
+            if (node.getFilePath() == null || !CHANGE_KINDS.contains(node.getType()))
+                continue;
+            Path file = Path.of(node.getFilePath()).toAbsolutePath().normalize();
+            if (changes.files().contains(file))
+                nodesByFile.computeIfAbsent(file, k -> new ArrayList<>()).add(node);
+        }
+
+        Set<String> changed = new LinkedHashSet<>();
+        for (Path file : changes.files()) {
+            List<GraphNode> nodes = nodesByFile.get(file);
+            if (nodes == null)
+                continue;
+            nodes.sort(Comparator.comparingInt(GraphNode::getLineNumber));
+            List<ChangeSet.LineRange> lines = changes.lines(file);
+            if (lines.isEmpty()) {
+                nodes.forEach(node -> changed.add(node.getId()));
+                continue;
+            }
+            for (ChangeSet.LineRange range : lines) {
+                // The node enclosing the first line, then every node starting in the range
+                int first = 0;
+                while (first + 1 < nodes.size() && nodes.get(first + 1).getLineNumber() <= range.start()) {
+                    first++;
+                }
+                changed.add(nodes.get(first).getId());
+                for (int i = first + 1; i < nodes.size() && nodes.get(i).getLineNumber() <= range.end(); i++) {
+                    changed.add(nodes.get(i).getId());
+                }
+            }
+        }
+        return new ArrayList<>(changed);
+    }
+
+    /**
+     * The combined impact of several changed nodes, and which changed node
+     * affects which impacted node.
+     *
+     * Without a reachability index this is one reverse traversal from all
+     * changed nodes at once: every reached node carries a bitset of the
+     * changed nodes reaching it, and a node is visited again only when its
+     * bitset grows. With an index, each changed node's impacted set is read
+     * from it directly.
+     *
+     * @param changedIds IDs of the changed nodes; unknown IDs are ignored
+     */
+    public BatchImpact getBatchImpact(List<String> changedIds) {
+        GraphIndex index = graph.index();
+        List<String> sources = new ArrayList<>();
+        List<Integer> sourceSlots = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(changedIds)) {
+            int slot = index.indexOf(id);
+            if (slot >= 0) {
+                sources.add(id);
+                sourceSlots.add(slot);
+            }
+        }
+
+        Rows rows = new Rows(index.size(), sources.size());
+        if (reachability != null) {
+            for (int s = 0; s < sourceSlots.size(); s++) {
+                for (int slot : reachability.reaching(sourceSlots.get(s))) {
+                    rows.mark(rows.rowOf(slot), s);
+                }
+            }
+        } else {
+            // Circular FIFO; a slot is queued at most once at a time
+            int[] queue = new int[Math.max(16, sourceSlots.size())];
+            int head = 0, size = 0;
+            BitSet queued = new BitSet(index.size());
+            for (int s = 0; s < sourceSlots.size(); s++) {
+                int slot = sourceSlots.get(s);
+                rows.mark(rows.rowOf(slot), s);
+                if (!queued.get(slot)) {
+                    queued.set(slot);
+                    queue[size++] = slot;
+                }
+            }
+
+            while (size > 0) {
+                int current = queue[head];
+                head = (head + 1) % queue.length;
+                size--;
+                queued.clear(current);
+                int from = rows.rowOf(current);
+                for (int pos = index.inStart(current); pos < index.inEnd(current); pos++) {
+                    int edge = index.inEdgeAt(pos);
+                    if (!index.edgeMatches(edge, IMPACT_EDGES))
+                        continue;
+                    int neighbor = index.edgeSource(edge);
+                    if (!rows.merge(rows.rowOf(neighbor), from) || queued.get(neighbor))
+                        continue;
+                    if (size == queue.length) {
+                        int[] larger = new int[queue.length * 2];
+                        for (int i = 0; i < size; i++) {
+                            larger[i] = queue[(head + i) % queue.length];
+                        }
+                        queue = larger;
+                        head = 0;
+                    }
+                    queue[(head + size) % queue.length] = neighbor;
+                    size++;
+                    queued.set(neighbor);
+                }
+            }
+        }
+
+        List<GraphNode> nodes = new ArrayList<>(rows.count);
+        List<GraphEdge> edges = new ArrayList<>();
+        Map<String, List<String>> attribution = new LinkedHashMap<>();
+        sources.forEach(id -> attribution.put(id, new ArrayList<>()));
+        for (int row = 0; row < rows.count; row++) {
+            int slot = rows.slots[row];
+            for (int pos = index.inStart(slot); pos < index.inEnd(slot); pos++) {
+                int edge = index.inEdgeAt(pos);
+                if (index.edgeMatches(edge, IMPACT_EDGES))
+                    edges.add(index.edgeAt(edge));
+            }
+            GraphNode node = index.nodeAt(slot);
+            if (node == null)
+                continue;
+            nodes.add(node);
+            for (int s = 0; s < sources.size(); s++) {
+                if (rows.isMarked(row, s))
+                    attribution.get(sources.get(s)).add(node.getId());
+            }
+        }
+        return new BatchImpact(new CodeGraph(nodes, edges), attribution);
+    }
+
+    /**
+     * Result of {@link #getBatchImpact(List)}: the impacted nodes with the
+     * impact edges between them, and for each changed node, in the order
+     * given, the nodes it affects (itself included).
+     */
+    public record BatchImpact(CodeGraph graph, Map<String, List<String>> attribution) {
     }
 
     /**
@@ -45,32 +260,89 @@ public class ImpactAnalyzer {
         if (classId == null)
             return 0;
 
-        Set<String> directDeps = new HashSet<>();
-        for (GraphEdge edge : graph.getIncomingEdges(classId)) {
-            if (edge.getType() == EdgeType.DEPENDENCY
-                    || edge.getType() == EdgeType.EXTENDS
-                    || edge.getType() == EdgeType.IMPLEMENTS) {
-                directDeps.add(edge.getSourceId());
-            }
+        GraphIndex index = graph.index();
+        int target = index.indexOf(classId);
+        if (target < 0)
+            return 0;
+        int references = 0;
+        for (EdgeType type : DIRECT_EDGE_TYPES) {
+            references += index.degree(target, type, Direction.INCOMING);
+        }
+        if (references <= 1)
+            return references;
+
+        // A class can both extend and depend on the target; count it once
+        int[] sources = new int[references];
+        int n = 0;
+        for (int pos = index.inStart(target); pos < index.inEnd(target); pos++) {
+            int edge = index.inEdgeAt(pos);
+            if (index.edgeMatches(edge, DIRECT_EDGES))
+                sources[n++] = index.edgeSource(edge);
         }
-        return directDeps.size();
+        Arrays.sort(sources);
+        int distinct = 1;
+        for (int i = 1; i < sources.length; i++) {
+            if (sources[i] != sources[i - 1])
+                distinct++;
+        }
+        return distinct;
     }
 
     private String resolveClassId(String className) {
-        String directId = "class:" + className;
-        if (graph.getNode(directId).isPresent())
-            return directId;
+        return graph.symbols().resolveTypeId(className);
+    }
+
+    /**
+     * Reached slots in the order reached, each with a bitset of the changed
+     * nodes reaching it, stored row by row in one array.
+     */
+    private static final class Rows {
+        final int[] rowOfSlot;
+        final int words;
+        int[] slots = new int[16];
+        long[] bits;
+        int count;
+
+        Rows(int slotCount, int sourceCount) {
+            rowOfSlot = new int[slotCount];
+            Arrays.fill(rowOfSlot, -1);
+            words = Math.max(1, (sourceCount + 63) >>> 6);
+            bits = new long[slots.length * words];
+        }
 
-        for (GraphNode node : graph.getNodesByType(NodeType.CLASS)) {
-            if (node.getQualifiedName() != null && node.getQualifiedName().endsWith(className)) {
-                return node.getId();
+        /** The row of a slot, added if the slot was not reached before */
+        int rowOf(int slot) {
+            int row = rowOfSlot[slot];
+            if (row >= 0)
+                return row;
+            if (count == slots.length) {
+                slots = Arrays.copyOf(slots, count * 2);
+                bits = Arrays.copyOf(bits, count * 2 * words);
             }
+            rowOfSlot[slot] = count;
+            slots[count] = slot;
+            return count++;
+        }
+
+        void mark(int row, int source) {
+            bits[row * words + (source >>> 6)] |= 1L << source;
+        }
+
+        boolean isMarked(int row, int source) {
+            return (bits[row * words + (source >>> 6)] & 1L << source) != 0;
         }
-        for (GraphNode node : graph.getNodesByType(NodeType.INTERFACE)) {
-            if (node.getQualifiedName() != null && node.getQualifiedName().endsWith(className)) {
-                return node.getId();
+
+        /** Add the bits of row {@code from} to row {@code to}; true if any were new */
+        boolean merge(int to, int from) {
+            boolean grew = false;
+            for (int w = 0; w < words; w++) {
+                long merged = bits[to * words + w] | bits[from * words + w];
+                if (merged != bits[to * words + w]) {
+                    bits[to * words + w] = merged;
+                    grew = true;
+                }
             }
+            return grew;
         }
-        return null;
     }
 }
@@ -0,0 +1,114 @@
+package com.codemap.analysis;
+
+import com.codemap.model.*;
+
+import java.util.*;
+
+/**
+ * Length of the longest {@code EXTENDS} chain above every type node, computed
+ * in one pass. {@link GraphIndex#stronglyConnectedComponents} completes each
+ * supertype before its subtypes, so every node's depth is derived from the
+ * memoized depths of its direct supertypes and each chain is walked once,
+ * however many classes share it. A supertype outside the project (a dangling
+ * edge target) counts as one level.
+ *
+ * Inheritance cycles are invalid Java but can appear in partially parsed
+ * code. The members of a cycle of {@code k} types get depth {@code k} if
+ * nothing leaves the cycle, and otherwise {@code k - 1} plus the deepest
+ * chain leaving it, i.e. the chain is followed once around the cycle.
+ */
+public class InheritanceDepth {
+
+    /** Node metadata key written by {@link #annotate()}. */
+    public static final String METADATA_KEY = "inheritanceDepth";
+
+    private static final int EXTENDS = GraphIndex.edgeTypeMask(EnumSet.of(EdgeType.EXTENDS));
+    private static final Set<NodeType> TYPE_KINDS = EnumSet.of(NodeType.CLASS, NodeType.INTERFACE, NodeType.ENUM);
+
+    private final CodeGraph graph;
+    private final int[] depths;
+
+    public InheritanceDepth(CodeGraph graph) {
+        this.graph = graph;
+        this.depths = compute(graph.index());
+    }
+
+    /**
+     * Depth of the given node, or 0 if it is not part of the graph.
+     */
+    public int depthOf(String nodeId) {
+        int i = graph.index().indexOf(nodeId);
+        return i < 0 ? 0 : depths[i];
+    }
+
+    /**
+     * A copy of the graph whose class, interface and enum nodes carry their
+     * depth as {@value #METADATA_KEY} metadata, so that consumers of the
+     * graph or its JSON can read it without recomputing. Edges are shared.
+     */
+    public CodeGraph annotate() {
+        GraphIndex index = graph.index();
+        List<GraphNode> nodes = new ArrayList<>(graph.nodeCount());
+        for (GraphNode node : graph.getNodes()) {
+            if (TYPE_KINDS.contains(node.getType())) {
+                int depth = depths[index.indexOf(node.getId())];
+                node = node.toBuilder().metadata(METADATA_KEY, String.valueOf(depth)).build();
+            }
+            nodes.add(node);
+        }
+        return new CodeGraph(nodes, graph.getEdges());
+    }
+
+    private static int[] compute(GraphIndex index) {
+        int n = index.size();
+        int[] depths = new int[n];
+        int[] components = new int[n];
+        // Components complete supertypes first, so each is resolved from finished depths
+        index.stronglyConnectedComponents(EXTENDS, typeNodes(index), components,
+                (component, members, from, to) -> resolve(index, members, from, to, component, components, depths));
+        return depths;
+    }
+
+    /**
+     * Index slots of class, interface and enum nodes, in slot order.
+     */
+    private static int[] typeNodes(GraphIndex index) {
+        int n = index.size();
+        int[] slots = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            GraphNode node = index.nodeAt(i);
+            if (node != null && TYPE_KINDS.contains(node.getType()))
+                slots[count++] = i;
+        }
+        return Arrays.copyOf(slots, count);
+    }
+
+    /**
+     * Assign the depth of the component {@code members[from, to)}. Supertypes
+     * outside the searched type nodes keep depth 0 and count as one level.
+     */
+    private static void resolve(GraphIndex index, int[] members, int from, int to, int component,
+            int[] components, int[] depths) {
+        int size = to - from;
+        int exit = 0;
+        boolean cyclic = size > 1;
+        for (int i = from; i < to; i++) {
+            int v = members[i];
+            for (int pos = index.outStart(v); pos < index.outEnd(v); pos++) {
+                int edge = index.outEdgeAt(pos);
+                if (!index.edgeMatches(edge, EXTENDS))
+                    continue;
+                int w = index.edgeTarget(edge);
+                if (components[w] == component)
+                    cyclic = true;
+                else
+                    exit = Math.max(exit, 1 + depths[w]);
+            }
+        }
+        int depth = cyclic ? size - 1 + Math.max(1, exit) : exit;
+        for (int i = from; i < to; i++) {
+            depths[members[i]] = depth;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.codemap.analysis;
+
+import com.codemap.graph.GraphQuery;
+import com.codemap.model.*;
+
+import java.util.*;
+
+/**
+ * Finds how one method or class reaches another: the shortest paths between
+ * them rather than everything either can reach.
+ */
+public class PathAnalyzer {
+
+    private final CodeGraph graph;
+    private final GraphQuery query;
+
+    public PathAnalyzer(CodeGraph graph) {
+        this.graph = graph;
+        this.query = new GraphQuery(graph);
+    }
+
+    /**
+     * Up to {@code limit} shortest paths from one method or class to another.
+     *
+     * @param from      node ID, class name or method signature of the start
+     * @param to        node ID, class name or method signature of the end
+     * @param limit     maximum number of paths, at least 1
+     * @param edgeTypes edge types to follow (null/empty = all)
+     * @return the paths, shortest first; empty if an endpoint does not
+     *         resolve or the end cannot be reached
+     */
+    public List<GraphQuery.GraphPath> findPaths(String from, String to, int limit, Set<EdgeType> edgeTypes) {
+        String fromId = resolveNodeId(from);
+        String toId = resolveNodeId(to);
+        if (fromId == null || toId == null)
+            return Collections.emptyList();
+        return query.shortestPaths(fromId, toId, limit, edgeTypes);
+    }
+
+    /**
+     * The nodes and edges on the given paths.
+     */
+    public CodeGraph getPathGraph(List<GraphQuery.GraphPath> paths) {
+        return query.pathGraph(paths);
+    }
+
+    /**
+     * Resolve an endpoint to its node ID: an exact node ID, else the best
+     * type match, else the best method match. Types come first because a
+     * class name is also a substring of its methods' signatures.
+     */
+    private String resolveNodeId(String name) {
+        if (graph.getNode(name).isPresent())
+            return name;
+        String id = graph.symbols().resolveTypeId(name);
+        return id != null ? id : graph.symbols().resolveMethodId(name);
+    }
+}
@@ -3,6 +3,7 @@ package com.codemap.cache;
 import com.codemap.model.ClassInfo;
 
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -41,6 +42,17 @@ public interface AnalysisCache {
      */
     void invalidate(Path sourceFile);
 
+    /**
+     * Drop cached results for files under a source root that are no longer
+     * among its source files, i.e. files deleted or renamed since they were
+     * cached. Entries for files outside the root are kept.
+     *
+     * @param sourceRoot  the source root that was scanned
+     * @param sourceFiles the source files currently found under it
+     * @return number of entries dropped
+     */
+    int retainOnly(Path sourceRoot, Collection<Path> sourceFiles);
+
     /**
      * Clear the entire cache.
      */
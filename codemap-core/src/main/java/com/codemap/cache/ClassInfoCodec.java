@@ -0,0 +1,219 @@
+package com.codemap.cache;
+
+import com.codemap.model.ClassInfo;
+import com.codemap.model.MethodInfo;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compact binary encoding of parsed {@link ClassInfo}/{@link MethodInfo} lists.
+ * Every string is written once into a per-record string table and referenced
+ * by a variable-length index afterwards, so repeated package names, imports
+ * and call targets cost one or two bytes each.
+ */
+final class ClassInfoCodec {
+
+    private static final int FLAG_INTERFACE = 1;
+    private static final int FLAG_ENUM = 1 << 1;
+    private static final int FLAG_ABSTRACT = 1 << 2;
+    private static final int FLAG_CONSTRUCTOR = 1 << 3;
+    private static final int FLAG_STATIC = 1 << 4;
+
+    private ClassInfoCodec() {
+    }
+
+    static void write(DataOutputStream out, List<ClassInfo> classes) throws IOException {
+        StringTable table = new StringTable();
+        for (ClassInfo cls : classes) {
+            table.collect(cls);
+        }
+
+        writeVarInt(out, table.strings.size());
+        for (String s : table.strings) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        }
+
+        writeVarInt(out, classes.size());
+        for (ClassInfo cls : classes) {
+            writeString(out, table, cls.getName());
+            writeString(out, table, cls.getQualifiedName());
+            writeString(out, table, cls.getPackageName());
+            writeString(out, table, cls.getFilePath());
+            writeVarInt(out, cls.getLineNumber());
+            out.writeByte((cls.isInterface() ? FLAG_INTERFACE : 0)
+                    | (cls.isEnum() ? FLAG_ENUM : 0)
+                    | (cls.isAbstract() ? FLAG_ABSTRACT : 0));
+            writeString(out, table, cls.getSuperClass());
+            writeStrings(out, table, cls.getInterfaces());
+            writeStrings(out, table, cls.getFields());
+            writeStrings(out, table, cls.getAnnotations());
+            writeStrings(out, table, cls.getImports());
+
+            writeVarInt(out, cls.getMethods().size());
+            for (MethodInfo method : cls.getMethods()) {
+                writeString(out, table, method.getName());
+                writeString(out, table, method.getSignature());
+                writeString(out, table, method.getQualifiedName());
+                writeString(out, table, method.getClassName());
+                writeString(out, table, method.getReturnType());
+                writeString(out, table, method.getAccessModifier());
+                writeVarInt(out, method.getLineNumber());
+                out.writeByte((method.isConstructor() ? FLAG_CONSTRUCTOR : 0)
+                        | (method.isStatic() ? FLAG_STATIC : 0)
+                        | (method.isAbstract() ? FLAG_ABSTRACT : 0));
+                writeStrings(out, table, method.getParameterTypes());
+                writeStrings(out, table, method.getMethodCalls());
+                writeStrings(out, table, method.getAnnotations());
+            }
+        }
+    }
+
+    static List<ClassInfo> read(DataInputStream in) throws IOException {
+        int stringCount = readVarInt(in);
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            byte[] bytes = new byte[readVarInt(in)];
+            in.readFully(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int classCount = readVarInt(in);
+        List<ClassInfo> classes = new ArrayList<>(classCount);
+        for (int c = 0; c < classCount; c++) {
+            ClassInfo.Builder builder = ClassInfo.builder()
+                    .name(readString(in, strings))
+                    .qualifiedName(readString(in, strings))
+                    .packageName(readString(in, strings))
+                    .filePath(readString(in, strings))
+                    .lineNumber(readVarInt(in));
+            int flags = in.readUnsignedByte();
+            builder.isInterface((flags & FLAG_INTERFACE) != 0)
+                    .isEnum((flags & FLAG_ENUM) != 0)
+                    .isAbstract((flags & FLAG_ABSTRACT) != 0)
+                    .superClass(readString(in, strings))
+                    .interfaces(readStrings(in, strings))
+                    .fields(readStrings(in, strings))
+                    .annotations(readStrings(in, strings))
+                    .imports(readStrings(in, strings));
+
+            int methodCount = readVarInt(in);
+            for (int m = 0; m < methodCount; m++) {
+                MethodInfo.Builder method = MethodInfo.builder()
+                        .name(readString(in, strings))
+                        .signature(readString(in, strings))
+                        .qualifiedName(readString(in, strings))
+                        .className(readString(in, strings))
+                        .returnType(readString(in, strings))
+                        .accessModifier(readString(in, strings))
+                        .lineNumber(readVarInt(in));
+                int methodFlags = in.readUnsignedByte();
+                method.isConstructor((methodFlags & FLAG_CONSTRUCTOR) != 0)
+                        .isStatic((methodFlags & FLAG_STATIC) != 0)
+                        .isAbstract((methodFlags & FLAG_ABSTRACT) != 0)
+                        .parameterTypes(readStrings(in, strings))
+                        .methodCalls(readStrings(in, strings))
+                        .annotations(readStrings(in, strings));
+                builder.addMethod(method.build());
+            }
+            classes.add(builder.build());
+        }
+        return classes;
+    }
+
+    private static void writeString(DataOutputStream out, StringTable table, String s) throws IOException {
+        // 0 encodes null, table entries are shifted by one
+        writeVarInt(out, s == null ? 0 : table.indexOf(s) + 1);
+    }
+
+    private static String readString(DataInputStream in, String[] strings) throws IOException {
+        int index = readVarInt(in);
+        if (index == 0)
+            return null;
+        if (index > strings.length)
+            throw new IOException("String index out of range: " + index);
+        return strings[index - 1];
+    }
+
+    private static void writeStrings(DataOutputStream out, StringTable table, List<String> list) throws IOException {
+        writeVarInt(out, list.size());
+        for (String s : list) {
+            writeString(out, table, s);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream in, String[] strings) throws IOException {
+        int size = readVarInt(in);
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(readString(in, strings));
+        }
+        return list;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Insertion-ordered set of the distinct strings in a record.
+     */
+    private static class StringTable {
+        final List<String> strings = new ArrayList<>();
+        final Map<String, Integer> indexes = new HashMap<>();
+
+        int indexOf(String s) {
+            return indexes.get(s);
+        }
+
+        void add(String s) {
+            if (s != null && !indexes.containsKey(s)) {
+                indexes.put(s, strings.size());
+                strings.add(s);
+            }
+        }
+
+        void collect(ClassInfo cls) {
+            add(cls.getName());
+            add(cls.getQualifiedName());
+            add(cls.getPackageName());
+            add(cls.getFilePath());
+            add(cls.getSuperClass());
+            cls.getInterfaces().forEach(this::add);
+            cls.getFields().forEach(this::add);
+            cls.getAnnotations().forEach(this::add);
+            cls.getImports().forEach(this::add);
+            for (MethodInfo method : cls.getMethods()) {
+                add(method.getName());
+                add(method.getSignature());
+                add(method.getQualifiedName());
+                add(method.getClassName());
+                add(method.getReturnType());
+                add(method.getAccessModifier());
+                method.getParameterTypes().forEach(this::add);
+                method.getMethodCalls().forEach(this::add);
+                method.getAnnotations().forEach(this::add);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.codemap.cache;
+
+import com.codemap.model.ClassInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache that stores parse results on disk so they survive between
+ * CLI invocations.
+ * Each source file gets one entry file in the cache directory, named after a
+ * hash of its absolute path and holding the file's content hash plus its
+ * {@link ClassInfo} list in the compact {@link ClassInfoCodec} format. Entries
+ * are loaded lazily and kept in memory once read.
+ */
+public class DiskBackedCache implements AnalysisCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DiskBackedCache.class);
+
+    private static final int MAGIC = 0x434D4150; // "CMAP"
+    private static final int FORMAT_VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".bin";
+
+    private final Path cacheDir;
+    private final Map<String, CacheEntry> memory = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong diskWrites = new AtomicLong();
+
+    /**
+     * @param cacheDir directory holding the cache entries; created on first write
+     */
+    public DiskBackedCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Default cache location for a project: {@code <projectRoot>/.codemap/cache}.
+     */
+    public static Path defaultDirectory(Path projectRoot) {
+        return projectRoot.resolve(".codemap").resolve("cache");
+    }
+
+    @Override
+    public boolean isValid(Path sourceFile) {
+        CacheEntry entry = lookup(key(sourceFile));
+        if (entry == null)
+            return false;
+
+        String currentHash = FileHashes.contentHash(sourceFile);
+        return currentHash != null && currentHash.equals(entry.fileHash);
+    }
+
+    @Override
+    public List<ClassInfo> get(Path sourceFile) {
+        String key = key(sourceFile);
+        CacheEntry entry = lookup(key);
+
+        if (entry != null) {
+            String currentHash = FileHashes.contentHash(sourceFile);
+            if (entry.fileHash.equals(currentHash)) {
+                hits.incrementAndGet();
+                log.debug("Cache hit for {}", sourceFile.getFileName());
+                return entry.classes;
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    @Override
+    public void put(Path sourceFile, List<ClassInfo> classes) {
+        String key = key(sourceFile);
+        String hash = FileHashes.contentHash(sourceFile);
+        if (hash == null)
+            return;
+
+        CacheEntry entry = new CacheEntry(hash, classes);
+        memory.put(key, entry);
+        try {
+            writeEntry(key, entry);
+            diskWrites.incrementAndGet();
+            log.debug("Cached {} classes from {}", classes.size(), sourceFile.getFileName());
+        } catch (IOException e) {
+            log.warn("Failed to write cache entry for {}: {}", sourceFile, e.getMessage());
+        }
+    }
+
+    @Override
+    public void invalidate(Path sourceFile) {
+        String key = key(sourceFile);
+        memory.remove(key);
+        try {
+            Files.deleteIfExists(entryFile(key));
+        } catch (IOException e) {
+            log.warn("Failed to delete cache entry for {}: {}", sourceFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Entries are named by path hash, so only entry files whose name matches
+     * no current source file are opened to read the path they belong to.
+     */
+    @Override
+    public int retainOnly(Path sourceRoot, Collection<Path> sourceFiles) {
+        Path root = Paths.get(key(sourceRoot));
+        Set<String> present = new HashSet<>();
+        Set<String> presentEntries = new HashSet<>();
+        for (Path file : sourceFiles) {
+            String key = key(file);
+            present.add(key);
+            presentEntries.add(entryFile(key).getFileName().toString());
+        }
+        memory.keySet().removeIf(key -> !present.contains(key) && Paths.get(key).startsWith(root));
+
+        if (!Files.isDirectory(cacheDir))
+            return 0;
+        int removed = 0;
+        try (Stream<Path> entries = Files.list(cacheDir)) {
+            for (Path file : (Iterable<Path>) entries::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(ENTRY_SUFFIX) || presentEntries.contains(name))
+                    continue;
+                String key = readKey(file);
+                if (key == null || !Paths.get(key).startsWith(root))
+                    continue;
+                try {
+                    Files.deleteIfExists(file);
+                    removed++;
+                } catch (IOException e) {
+                    log.warn("Failed to delete cache entry {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to list cache directory {}: {}", cacheDir, e.getMessage());
+        }
+        if (removed > 0)
+            log.info("Dropped {} cache entries for removed source files", removed);
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        memory.clear();
+        hits.set(0);
+        misses.set(0);
+        diskWrites.set(0);
+        if (Files.isDirectory(cacheDir)) {
+            try (Stream<Path> entries = Files.list(cacheDir)) {
+                entries.filter(p -> p.getFileName().toString().endsWith(ENTRY_SUFFIX))
+                        .forEach(p -> {
+                            try {
+                                Files.deleteIfExists(p);
+                            } catch (IOException e) {
+                                log.warn("Failed to delete cache entry {}: {}", p, e.getMessage());
+                            }
+                        });
+            } catch (IOException e) {
+                log.warn("Failed to list cache directory {}: {}", cacheDir, e.getMessage());
+            }
+        }
+        log.info("Cache cleared");
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", memory.size());
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("hitRate", (h + m) > 0 ? (double) h / (h + m) : 0.0);
+        stats.put("diskWrites", diskWrites.get());
+        stats.put("directory", cacheDir.toString());
+        return stats;
+    }
+
+    private CacheEntry lookup(String key) {
+        CacheEntry entry = memory.get(key);
+        if (entry == null) {
+            entry = readEntry(key);
+            if (entry != null) {
+                memory.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    private CacheEntry readEntry(String key) {
+        Path file = entryFile(key);
+        if (!Files.isRegularFile(file))
+            return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != FORMAT_VERSION)
+                return null;
+            if (!key.equals(in.readUTF()))
+                return null; // path-hash collision
+            String fileHash = in.readUTF();
+            return new CacheEntry(fileHash, Collections.unmodifiableList(ClassInfoCodec.read(in)));
+        } catch (IOException e) {
+            log.debug("Discarding unreadable cache entry {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The source path an entry file was written for, or null if the file is
+     * not a readable entry of this format.
+     */
+    private static String readKey(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 512))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != FORMAT_VERSION)
+                return null;
+            return in.readUTF();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void writeEntry(String key, CacheEntry entry) throws IOException {
+        Files.createDirectories(cacheDir);
+        Path target = entryFile(key);
+        Path temp = Files.createTempFile(cacheDir, "entry", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeByte(FORMAT_VERSION);
+                out.writeUTF(key);
+                out.writeUTF(entry.fileHash);
+                ClassInfoCodec.write(out, entry.classes);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path entryFile(String key) {
+        return cacheDir.resolve(FileHashes.md5Hex(key.getBytes(StandardCharsets.UTF_8)) + ENTRY_SUFFIX);
+    }
+
+    private static String key(Path sourceFile) {
+        return sourceFile.toAbsolutePath().normalize().toString();
+    }
+
+    private static class CacheEntry {
+        final String fileHash;
+        final List<ClassInfo> classes;
+
+        CacheEntry(String fileHash, List<ClassInfo> classes) {
+            this.fileHash = fileHash;
+            this.classes = classes;
+        }
+    }
+}
@@ -4,10 +4,7 @@ import com.codemap.model.ClassInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
 import java.nio.file.*;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -66,6 +63,18 @@ public class FileBasedCache implements AnalysisCache {
         cache.remove(key);
     }
 
+    @Override
+    public int retainOnly(Path sourceRoot, Collection<Path> sourceFiles) {
+        Path root = sourceRoot.toAbsolutePath();
+        Set<String> present = new HashSet<>();
+        for (Path file : sourceFiles) {
+            present.add(file.toAbsolutePath().toString());
+        }
+        int before = cache.size();
+        cache.keySet().removeIf(key -> !present.contains(key) && Paths.get(key).startsWith(root));
+        return before - cache.size();
+    }
+
     @Override
     public void clear() {
         cache.clear();
@@ -85,19 +94,7 @@ public class FileBasedCache implements AnalysisCache {
     }
 
     private String computeHash(Path file) {
-        try {
-            byte[] bytes = Files.readAllBytes(file);
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] digest = md.digest(bytes);
-            StringBuilder sb = new StringBuilder();
-            for (byte b : digest) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (IOException | NoSuchAlgorithmException e) {
-            log.warn("Failed to compute hash for {}: {}", file, e.getMessage());
-            return null;
-        }
+        return FileHashes.contentHash(file);
     }
 
     private static class CacheEntry {
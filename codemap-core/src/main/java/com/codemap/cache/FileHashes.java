@@ -0,0 +1,52 @@
+package com.codemap.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content hashing shared by the cache implementations.
+ */
+final class FileHashes {
+
+    private static final Logger log = LoggerFactory.getLogger(FileHashes.class);
+
+    private FileHashes() {
+    }
+
+    /**
+     * Compute the MD5 hex digest of a file's content.
+     *
+     * @return the digest, or null if the file cannot be read
+     */
+    static String contentHash(Path file) {
+        try {
+            return md5Hex(Files.readAllBytes(file));
+        } catch (IOException e) {
+            log.warn("Failed to compute hash for {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Compute the MD5 hex digest of a byte array.
+     */
+    static String md5Hex(byte[] bytes) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            byte[] digest = md.digest(bytes);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
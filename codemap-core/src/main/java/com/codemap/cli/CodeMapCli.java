@@ -1,11 +1,29 @@
 package com.codemap.cli;
 
 import com.codemap.CodeMapEngine;
+import com.codemap.cache.AnalysisCache;
+import com.codemap.cache.DiskBackedCache;
+import com.codemap.cache.FileBasedCache;
+import com.codemap.graph.GraphBuilderImpl;
 import com.codemap.model.AnalysisResult;
+import com.codemap.model.EdgeType;
+import com.codemap.parser.JavaParserImpl;
+import com.codemap.serialization.OutputFormat;
+import com.codemap.server.CodeMapServer;
 import picocli.CommandLine;
 import picocli.CommandLine.*;
 
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 /**
@@ -15,6 +33,16 @@ import java.util.concurrent.Callable;
  * Usage:
  * java -jar codemap-core.jar --project /path/to/src --command callgraph
  * --target "com.example.Main.main(String[])" --depth 3
+ *
+ * java -jar codemap-core.jar --project /path/to/src --command path
+ * --target UserController --to UserRepository --paths 3 --edge-types CALLS
+ *
+ * java -jar codemap-core.jar --project /path/to/src --command impact-batch
+ * --git-range main...HEAD
+ *
+ * With {@code --command serve} the process stays alive and answers
+ * line-delimited JSON requests (see {@link CodeMapServer}); add
+ * {@code --watch} to keep its graph in step with the files on disk.
  */
 @Command(name = "codemap", mixinStandardHelpOptions = true, version = "CodeMap 1.0.0", description = "Analyze Java projects and build code interaction graphs.")
 public class CodeMapCli implements Callable<Integer> {
@@ -22,8 +50,11 @@ public class CodeMapCli implements Callable<Integer> {
     @Option(names = { "-p", "--project" }, required = true, description = "Path to Java source root")
     private Path projectPath;
 
+    @Option(names = { "--extra-root" }, paramLabel = "<dir>", description = "Additional source root analyzed with the project, e.g. generated sources (repeatable)")
+    private List<Path> extraRoots = new ArrayList<>();
+
     @Option(names = { "-c",
-            "--command" }, required = true, description = "Analysis command: callgraph, incoming-calls, dependencies, circular-deps, impact")
+            "--command" }, required = true, description = "Analysis command: callgraph, incoming-calls, dependencies, circular-deps, impact, impact-batch, path, fullgraph, serve")
     private String command;
 
     @Option(names = { "-t", "--target" }, description = "Target method signature or class name")
@@ -32,69 +63,141 @@ public class CodeMapCli implements Callable<Integer> {
     @Option(names = { "-d", "--depth" }, defaultValue = "5", description = "Max traversal depth (default: 5)")
     private int depth;
 
+    @Option(names = { "--to" }, description = "For 'path': method signature or class name to reach from the target")
+    private String to;
+
+    @Option(names = { "--paths" }, defaultValue = "1", description = "For 'path': number of shortest paths to list (default: 1)")
+    private int pathLimit;
+
+    @Option(names = { "--edge-types" }, split = ",", paramLabel = "<type>", description = "For 'path': edge types to follow, e.g. CALLS,DEPENDENCY (default: all)")
+    private List<EdgeType> edgeTypes = new ArrayList<>();
+
+    @Option(names = { "--files" }, split = ",", paramLabel = "<file>", description = "For 'impact-batch': changed source files (repeatable or comma-separated)")
+    private List<Path> files = new ArrayList<>();
+
+    @Option(names = { "--git-range" }, paramLabel = "<range>", description = "For 'impact-batch': git revision range whose changes to analyze, e.g. main...HEAD (read from the local repository)")
+    private String gitRange;
+
+    @Option(names = { "--reachability-index" }, description = "Answer impact queries from a precomputed reachability index instead of traversing; pays off for many queries, e.g. in 'serve'")
+    private boolean reachabilityIndex;
+
+    @Option(names = { "--threads" }, defaultValue = "0", description = "Parser worker threads (default: 0 = one per CPU core)")
+    private int threads;
+
+    @Option(names = { "--cache-dir" }, description = "Directory for the persistent parse cache (default: <project>/.codemap/cache)")
+    private Path cacheDir;
+
+    @Option(names = { "--no-cache" }, description = "Keep parse results in memory only; do not read or write the on-disk cache")
+    private boolean noCache;
+
+    @Option(names = { "--format" }, defaultValue = "pretty", description = "Output format: pretty, plain or compact (default: pretty)")
+    private OutputFormat format;
+
+    @Option(names = { "--profile" }, description = "Add per-phase wall time, CPU time, allocation and counts to the output as a 'metrics' block")
+    private boolean profile;
+
+    @Option(names = { "--jfr" }, paramLabel = "<file>", description = "Record a Flight Recorder file (JDK default settings plus CodeMap parse, phase, query and rule events)")
+    private Path jfrFile;
+
+    @Option(names = { "--socket" }, description = "For 'serve': listen on this Unix domain socket instead of stdin/stdout")
+    private Path socketPath;
+
+    @Option(names = { "--watch" }, description = "For 'serve': watch the source roots, patch the graph as files change and send 'graphChanged' events")
+    private boolean watch;
+
+    @Option(names = { "--watch-debounce" }, defaultValue = "200", paramLabel = "<ms>", description = "For '--watch': quiet time in milliseconds before a batch of changes is applied (default: 200)")
+    private long watchDebounceMillis;
+
     @Override
     public Integer call() {
+        Recording recording = null;
         try {
-            CodeMapEngine engine = new CodeMapEngine();
-            engine.analyze(projectPath);
+            recording = startRecording();
+            CodeMapEngine engine = new CodeMapEngine(
+                    new JavaParserImpl(threads), new GraphBuilderImpl(), createCache());
+            engine.setProfiling(profile);
+            engine.setReachabilityIndexEnabled(reachabilityIndex);
+            // A watching server patches the graph, so build it in patchable form up front
+            engine.setIncremental(watch && "serve".equalsIgnoreCase(command));
+            engine.analyze(projectPath, extraRoots);
+
+            if ("serve".equalsIgnoreCase(command)) {
+                return serve(engine);
+            }
 
             AnalysisResult result;
-            switch (command.toLowerCase()) {
-                case "callgraph":
-                    requireTarget();
-                    result = engine.getCallGraph(target, depth);
-                    break;
-                case "incoming-calls":
-                    requireTarget();
-                    result = engine.getIncomingCalls(target);
-                    break;
-                case "dependencies":
-                    requireTarget();
-                    result = engine.getClassDependencies(target);
-                    break;
-                case "circular-deps":
-                    result = engine.detectCircularDependencies();
-                    break;
-                case "impact":
-                    requireTarget();
-                    result = engine.getImpactAnalysis(target);
-                    break;
-                case "fullgraph":
-                    result = AnalysisResult.builder()
-                            .command("fullgraph")
-                            .target("all")
-                            .graph(engine.getFullGraph())
-                            .timestamp(java.time.Instant.now())
-                            .analysisTimeMs(System.currentTimeMillis() - System.currentTimeMillis())
-                            .totalClassesParsed(0)
-                            .totalMethodsParsed(0)
-                            .build();
-                    break;
-                default:
-                    System.err.println("Unknown command: " + command);
-                    System.err.println("Available: callgraph, incoming-calls, dependencies, circular-deps, impact");
-                    return 1;
+            if ("impact-batch".equalsIgnoreCase(command)) {
+                result = engine.runImpactBatch(files, gitRange);
+            } else {
+                result = engine.runCommand(command, target, depth,
+                        new CodeMapEngine.PathOptions(to, pathLimit, edgeTypes.isEmpty() ? null : EnumSet.copyOf(edgeTypes)));
             }
 
-            // Output JSON to stdout (captured by IDE plugins)
-            System.out.println(engine.toJson(result));
+            // Stream JSON to stdout (captured by IDE plugins)
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+            engine.writeJson(result, out, format);
+            out.write(System.lineSeparator());
+            out.flush();
             return 0;
 
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
             e.printStackTrace(System.err);
             return 1;
+        } finally {
+            if (recording != null) {
+                recording.stop();
+                recording.close();
+            }
+        }
+    }
+
+    /**
+     * Start a recording to {@code --jfr}, if given. It is also dumped on exit
+     * so a server stopped by a signal still leaves a file.
+     */
+    private Recording startRecording() throws IOException, ParseException {
+        if (jfrFile == null) {
+            return null;
+        }
+        Recording recording = new Recording(Configuration.getConfiguration("default"));
+        recording.setName("codemap");
+        recording.setDestination(jfrFile);
+        recording.setDumpOnExit(true);
+        recording.start();
+        return recording;
+    }
+
+    private AnalysisCache createCache() {
+        if (noCache) {
+            return new FileBasedCache();
         }
+        return new DiskBackedCache(diskCacheDirectory());
+    }
+
+    private Path diskCacheDirectory() {
+        return cacheDir != null ? cacheDir : DiskBackedCache.defaultDirectory(projectPath);
     }
 
-    private void requireTarget() {
-        if (target == null || target.isEmpty()) {
-            throw new IllegalArgumentException("--target is required for command: " + command);
+    private int serve(CodeMapEngine engine) throws IOException {
+        CodeMapServer server = new CodeMapServer(engine, projectPath, extraRoots);
+        if (watch) {
+            // The cache is written as changes are applied; watching it would feed back into the watcher
+            server.watch(Duration.ofMillis(watchDebounceMillis), noCache ? List.of() : List.of(diskCacheDirectory()));
+        }
+        if (socketPath != null) {
+            server.serveSocket(socketPath);
+        } else {
+            server.serve(new InputStreamReader(System.in, StandardCharsets.UTF_8),
+                    new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
         }
+        return 0;
     }
 
     public static void main(String[] args) {
-        int exitCode = new CommandLine(new CodeMapCli()).execute(args);
+        int exitCode = new CommandLine(new CodeMapCli())
+                .setCaseInsensitiveEnumValuesAllowed(true)
+                .execute(args);
         System.exit(exitCode);
     }
 }
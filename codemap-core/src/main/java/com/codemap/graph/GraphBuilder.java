@@ -1,5 +1,6 @@
 package com.codemap.graph;
 
+import com.codemap.metrics.MetricsRecorder;
 import com.codemap.model.ClassInfo;
 import com.codemap.model.CodeGraph;
 
@@ -17,4 +18,17 @@ public interface GraphBuilder {
      * @return the constructed code graph
      */
     CodeGraph build(List<ClassInfo> classes);
+
+    /**
+     * Build a code graph, recording the build phases. Implementations that
+     * build in several passes report each one; the default records a single
+     * {@code build} phase.
+     */
+    default CodeGraph build(List<ClassInfo> classes, MetricsRecorder recorder) {
+        try (MetricsRecorder.Phase phase = recorder.start("build")) {
+            CodeGraph graph = build(classes);
+            phase.count("nodes", graph.nodeCount()).count("edges", graph.edgeCount());
+            return graph;
+        }
+    }
 }
@@ -1,5 +1,6 @@
 package com.codemap.graph;
 
+import com.codemap.metrics.MetricsRecorder;
 import com.codemap.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,173 +17,195 @@ public class GraphBuilderImpl implements GraphBuilder {
 
     @Override
     public CodeGraph build(List<ClassInfo> classes) {
+        return build(classes, new MetricsRecorder());
+    }
+
+    /**
+     * Build the graph, recording pass 1 (nodes and symbol tables), pass 2
+     * (edge resolution) and the adjacency index as separate phases.
+     */
+    @Override
+    public CodeGraph build(List<ClassInfo> classes, MetricsRecorder recorder) {
         List<GraphNode> nodes = new ArrayList<>();
         List<GraphEdge> edges = new ArrayList<>();
+        SymbolTables symbols = new SymbolTables();
+
+        // --- Pass 1: Create class and method nodes ---
+        try (MetricsRecorder.Phase phase = recorder.start("build.pass1")) {
+            for (ClassInfo cls : classes) {
+                addNodes(cls, nodes, edges);
+                symbols.declare(cls);
+            }
+            phase.count("classes", classes.size()).count("nodes", nodes.size()).count("edges", edges.size());
+        }
+
+        // --- Pass 2: Create edges ---
+        try (MetricsRecorder.Phase phase = recorder.start("build.pass2")) {
+            int containsEdges = edges.size();
+            for (ClassInfo cls : classes) {
+                resolveEdges(new ResolutionContext(cls, symbols, null), edges);
+            }
+            phase.count("edges", edges.size() - containsEdges);
+        }
+
+        CodeGraph graph;
+        try (MetricsRecorder.Phase phase = recorder.start("build.index")) {
+            graph = new CodeGraph(nodes, edges);
+            phase.count("nodes", graph.nodeCount()).count("edges", graph.edgeCount());
+        }
+        log.info("Built graph with {} nodes and {} edges", nodes.size(), edges.size());
+        return graph;
+    }
 
-        // Index for qualified name -> node id lookup
-        Map<String, String> classIdMap = new HashMap<>();
-        Map<String, String> methodIdMap = new HashMap<>();
-
-        // --- Pass 1: Create class nodes ---
-        for (ClassInfo cls : classes) {
-            String classId = "class:" + cls.getQualifiedName();
-            NodeType nodeType = cls.isInterface() ? NodeType.INTERFACE
-                    : cls.isEnum() ? NodeType.ENUM : NodeType.CLASS;
-
-            GraphNode classNode = GraphNode.builder()
-                    .id(classId)
-                    .name(cls.getName())
-                    .qualifiedName(cls.getQualifiedName())
-                    .type(nodeType)
+    /**
+     * Pass 1 for one class: its node, its method nodes and the CONTAINS edges
+     * between them. Depends on nothing but the class itself.
+     */
+    static void addNodes(ClassInfo cls, List<GraphNode> nodes, List<GraphEdge> edges) {
+        String classId = "class:" + cls.getQualifiedName();
+        NodeType nodeType = cls.isInterface() ? NodeType.INTERFACE
+                : cls.isEnum() ? NodeType.ENUM : NodeType.CLASS;
+
+        GraphNode classNode = GraphNode.builder()
+                .id(classId)
+                .name(cls.getName())
+                .qualifiedName(cls.getQualifiedName())
+                .type(nodeType)
+                .filePath(cls.getFilePath())
+                .lineNumber(cls.getLineNumber())
+                .metadata("package", cls.getPackageName())
+                .metadata("isAbstract", String.valueOf(cls.isAbstract()))
+                .build();
+
+        nodes.add(classNode);
+
+        // Create method nodes
+        for (MethodInfo method : cls.getMethods()) {
+            String methodId = "method:" + cls.getQualifiedName() + "." + method.getSignature();
+            NodeType methodType = method.isConstructor() ? NodeType.CONSTRUCTOR : NodeType.METHOD;
+
+            GraphNode methodNode = GraphNode.builder()
+                    .id(methodId)
+                    .name(method.getName())
+                    .qualifiedName(cls.getQualifiedName() + "." + method.getSignature())
+                    .type(methodType)
                     .filePath(cls.getFilePath())
-                    .lineNumber(cls.getLineNumber())
-                    .metadata("package", cls.getPackageName())
-                    .metadata("isAbstract", String.valueOf(cls.isAbstract()))
+                    .lineNumber(method.getLineNumber())
+                    .metadata("returnType", method.getReturnType() != null ? method.getReturnType() : "void")
+                    .metadata("access", method.getAccessModifier())
+                    .metadata("isStatic", String.valueOf(method.isStatic()))
                     .build();
 
-            nodes.add(classNode);
-            classIdMap.put(cls.getQualifiedName(), classId);
-            classIdMap.put(cls.getName(), classId); // short-name fallback
-
-            // Create method nodes
-            for (MethodInfo method : cls.getMethods()) {
-                String methodId = "method:" + cls.getQualifiedName() + "." + method.getSignature();
-                NodeType methodType = method.isConstructor() ? NodeType.CONSTRUCTOR : NodeType.METHOD;
-
-                GraphNode methodNode = GraphNode.builder()
-                        .id(methodId)
-                        .name(method.getName())
-                        .qualifiedName(cls.getQualifiedName() + "." + method.getSignature())
-                        .type(methodType)
-                        .filePath(cls.getFilePath())
-                        .lineNumber(method.getLineNumber())
-                        .metadata("returnType", method.getReturnType() != null ? method.getReturnType() : "void")
-                        .metadata("access", method.getAccessModifier())
-                        .metadata("isStatic", String.valueOf(method.isStatic()))
-                        .build();
-
-                nodes.add(methodNode);
-                methodIdMap.put(cls.getQualifiedName() + "." + method.getSignature(), methodId);
-                methodIdMap.put(cls.getQualifiedName() + "." + method.getName(), methodId);
-                methodIdMap.put(method.getName(), methodId); // short-name fallback
-
-                // CONTAINS edge: class -> method
+            nodes.add(methodNode);
+
+            // CONTAINS edge: class -> method
+            edges.add(GraphEdge.builder()
+                    .sourceId(classId)
+                    .targetId(methodId)
+                    .type(EdgeType.CONTAINS)
+                    .build());
+        }
+    }
+
+    /**
+     * Pass 2 for one class: its EXTENDS, IMPLEMENTS, CALLS and DEPENDENCY
+     * edges, resolved against the complete symbol tables. The result depends
+     * only on the class and on the table entries it looks up, which the
+     * context can record.
+     */
+    static void resolveEdges(ResolutionContext context, List<GraphEdge> edges) {
+        ClassInfo cls = context.cls;
+        String classId = context.classId(cls.getQualifiedName());
+
+        // EXTENDS edges
+        if (cls.getSuperClass() != null && !cls.getSuperClass().isEmpty()) {
+            String superClassId = resolveClassId(cls.getSuperClass(), context);
+            if (superClassId != null) {
                 edges.add(GraphEdge.builder()
                         .sourceId(classId)
-                        .targetId(methodId)
-                        .type(EdgeType.CONTAINS)
+                        .targetId(superClassId)
+                        .type(EdgeType.EXTENDS)
                         .build());
             }
         }
 
-        // --- Pass 2: Create edges ---
-        for (ClassInfo cls : classes) {
-            String classId = classIdMap.get(cls.getQualifiedName());
-
-            // EXTENDS edges
-            if (cls.getSuperClass() != null && !cls.getSuperClass().isEmpty()) {
-                String superClassId = resolveClassId(cls.getSuperClass(), cls, classIdMap);
-                if (superClassId != null) {
-                    edges.add(GraphEdge.builder()
-                            .sourceId(classId)
-                            .targetId(superClassId)
-                            .type(EdgeType.EXTENDS)
-                            .build());
-                }
-            }
-
-            // IMPLEMENTS edges
-            for (String iface : cls.getInterfaces()) {
-                String ifaceId = resolveClassId(iface, cls, classIdMap);
-                if (ifaceId != null) {
-                    edges.add(GraphEdge.builder()
-                            .sourceId(classId)
-                            .targetId(ifaceId)
-                            .type(EdgeType.IMPLEMENTS)
-                            .build());
-                }
+        // IMPLEMENTS edges
+        for (String iface : cls.getInterfaces()) {
+            String ifaceId = resolveClassId(iface, context);
+            if (ifaceId != null) {
+                edges.add(GraphEdge.builder()
+                        .sourceId(classId)
+                        .targetId(ifaceId)
+                        .type(EdgeType.IMPLEMENTS)
+                        .build());
             }
+        }
 
-            // CALLS edges (method -> method)
-            for (MethodInfo method : cls.getMethods()) {
-                String methodId = methodIdMap.get(cls.getQualifiedName() + "." + method.getSignature());
-                if (methodId == null)
-                    continue;
-
-                for (String call : method.getMethodCalls()) {
-                    String targetMethodId = resolveMethodId(call, cls, methodIdMap, classIdMap);
-                    if (targetMethodId != null && !targetMethodId.equals(methodId)) {
-                        edges.add(GraphEdge.builder()
-                                .sourceId(methodId)
-                                .targetId(targetMethodId)
-                                .type(EdgeType.CALLS)
-                                .build());
-                    }
-                }
-            }
+        // CALLS edges (method -> method)
+        for (MethodInfo method : cls.getMethods()) {
+            String methodId = context.methodId(cls.getQualifiedName() + "." + method.getSignature());
+            if (methodId == null)
+                continue;
 
-            // DEPENDENCY edges (field types, parameter types)
-            Set<String> depTargets = new HashSet<>();
-            for (String field : cls.getFields()) {
-                String typeName = field.split("\\s+")[0];
-                String depId = resolveClassId(typeName, cls, classIdMap);
-                if (depId != null && !depId.equals(classId) && depTargets.add(depId)) {
+            for (String call : method.getMethodCalls()) {
+                String targetMethodId = resolveMethodId(call, context);
+                if (targetMethodId != null && !targetMethodId.equals(methodId)) {
                     edges.add(GraphEdge.builder()
-                            .sourceId(classId)
-                            .targetId(depId)
-                            .type(EdgeType.DEPENDENCY)
-                            .metadata("via", "field")
+                            .sourceId(methodId)
+                            .targetId(targetMethodId)
+                            .type(EdgeType.CALLS)
                             .build());
                 }
             }
+        }
 
-            // DEPENDENCY edges from imports (when imported class exists in codebase)
-            for (String imp : cls.getImports()) {
-                if (classIdMap.containsKey(imp)) {
-                    String depId = classIdMap.get(imp);
-                    if (!depId.equals(classId) && depTargets.add(depId)) {
-                        edges.add(GraphEdge.builder()
-                                .sourceId(classId)
-                                .targetId(depId)
-                                .type(EdgeType.DEPENDENCY)
-                                .metadata("via", "import")
-                                .build());
-                    }
-                }
+        // DEPENDENCY edges (field types, parameter types)
+        Set<String> depTargets = new HashSet<>();
+        for (String field : cls.getFields()) {
+            String typeName = field.split("\\s+")[0];
+            String depId = resolveClassId(typeName, context);
+            if (depId != null && !depId.equals(classId) && depTargets.add(depId)) {
+                edges.add(GraphEdge.builder()
+                        .sourceId(classId)
+                        .targetId(depId)
+                        .type(EdgeType.DEPENDENCY)
+                        .metadata("via", "field")
+                        .build());
             }
         }
 
-        log.info("Built graph with {} nodes and {} edges", nodes.size(), edges.size());
-        return new CodeGraph(nodes, edges);
+        // DEPENDENCY edges from imports (when imported class exists in codebase)
+        for (String imp : cls.getImports()) {
+            String depId = context.classId(imp);
+            if (depId != null && !depId.equals(classId) && depTargets.add(depId)) {
+                edges.add(GraphEdge.builder()
+                        .sourceId(classId)
+                        .targetId(depId)
+                        .type(EdgeType.DEPENDENCY)
+                        .metadata("via", "import")
+                        .build());
+            }
+        }
     }
 
     /**
      * Resolve a class name to its node ID, trying qualified names and imports.
      */
-    private String resolveClassId(String name, ClassInfo context, Map<String, String> classIdMap) {
+    private static String resolveClassId(String name, ResolutionContext context) {
         // Try exact qualified name
-        if (classIdMap.containsKey(name))
-            return classIdMap.get(name);
+        String direct = context.classId(name);
+        if (direct != null)
+            return direct;
 
         // Try with same package
-        String inPackage = context.getPackageName() + "." + name;
-        if (classIdMap.containsKey(inPackage))
-            return classIdMap.get(inPackage);
+        String inPackage = context.classId(context.cls.getPackageName() + "." + name);
+        if (inPackage != null)
+            return inPackage;
 
         // Try imports
-        for (String imp : context.getImports()) {
-            if (imp.endsWith("." + name)) {
-                if (classIdMap.containsKey(imp))
-                    return classIdMap.get(imp);
-            }
-        }
-
-        // Try class: prefix fallback
-        String prefixed = "class:" + name;
-        for (String key : classIdMap.values()) {
-            if (key.equals(prefixed))
-                return key;
-        }
+        String imported = context.importsBySimpleName().get(name);
+        if (imported != null)
+            return context.classId(imported);
 
         return null;
     }
@@ -190,12 +213,13 @@ public class GraphBuilderImpl implements GraphBuilder {
     /**
      * Resolve a method call string to a method node ID.
      */
-    private String resolveMethodId(String call, ClassInfo context,
-            Map<String, String> methodIdMap,
-            Map<String, String> classIdMap) {
+    private static String resolveMethodId(String call, ResolutionContext context) {
+        ClassInfo cls = context.cls;
+
         // Direct match
-        if (methodIdMap.containsKey(call))
-            return methodIdMap.get(call);
+        String direct = context.methodId(call);
+        if (direct != null)
+            return direct;
 
         // If call has scope (e.g., "obj.method"), try to resolve
         if (call.contains(".")) {
@@ -204,43 +228,263 @@ public class GraphBuilderImpl implements GraphBuilder {
             String methodName = parts[1];
 
             // Try fully qualified
-            String fqn = context.getPackageName() + "." + scope + "." + methodName;
-            if (methodIdMap.containsKey(fqn))
-                return methodIdMap.get(fqn);
+            String fqn = context.methodId(cls.getPackageName() + "." + scope + "." + methodName);
+            if (fqn != null)
+                return fqn;
 
             // Try scope as class
-            String classId = resolveClassId(scope, context, classIdMap);
+            String classId = resolveClassId(scope, context);
             if (classId != null) {
                 String className = classId.replace("class:", "");
-                String fullMethod = className + "." + methodName;
-                if (methodIdMap.containsKey(fullMethod))
-                    return methodIdMap.get(fullMethod);
+                String fullMethod = context.methodId(className + "." + methodName);
+                if (fullMethod != null)
+                    return fullMethod;
             }
 
-            // Try scope as a local variable — search all imported classes for the method
-            for (String imp : context.getImports()) {
-                if (classIdMap.containsKey(imp)) {
-                    String fullMethod = imp + "." + methodName;
-                    if (methodIdMap.containsKey(fullMethod))
-                        return methodIdMap.get(fullMethod);
-                }
+            // Try scope as a local variable — look the method up in the imported classes
+            String imported = context.importedMethod(methodName);
+            if (imported != null)
+                return imported;
+
+            // Try classes in the same package, then in its subpackages
+            String samePackage = context.groupedMethod(Table.PACKAGE_METHODS, cls.getPackageName(), methodName);
+            if (samePackage != null)
+                return samePackage;
+            return context.groupedMethod(Table.SUBPACKAGE_METHODS, cls.getPackageName(), methodName);
+        } else {
+            // Unqualified — assume same class
+            return context.methodId(cls.getQualifiedName() + "." + call);
+        }
+    }
+
+    /**
+     * A short name for a symbol table entry: the last two segments of a class
+     * or method key, without any parameter list, or the last segment of the
+     * group followed by the key. A declared and a looked-up entry that are
+     * equal have the same token, so incremental builds can index declarations
+     * and lookups by token without keeping every key.
+     */
+    static String token(String group, String key) {
+        if (group != null)
+            return group.substring(group.lastIndexOf('.') + 1) + '#' + key;
+        int end = key.indexOf('(');
+        if (end < 0)
+            end = key.length();
+        int dot = key.lastIndexOf('.', end - 1);
+        return dot < 0 ? key.substring(0, end) : key.substring(key.lastIndexOf('.', dot - 1) + 1, end);
+    }
+
+    /**
+     * The symbol tables built in pass 1. Tables keyed by a group (a class or
+     * package name) are nested maps.
+     */
+    enum Table {
+        /** Qualified and short class name -> class node ID */
+        CLASS_IDS(false),
+        /** "Class.signature", "Class.name" and short method name -> method node ID */
+        METHOD_IDS(false),
+        /** Qualified class name -> method name -> method node ID */
+        CLASS_METHODS(false),
+        /** Package -> method name -> first method node ID declared in that package */
+        PACKAGE_METHODS(true),
+        /** Package -> method name -> first method node ID declared in a subpackage */
+        SUBPACKAGE_METHODS(true);
+
+        /** Whether the first declaration of a key wins rather than the last */
+        final boolean firstWins;
+
+        Table(boolean firstWins) {
+            this.firstWins = firstWins;
+        }
+    }
+
+    /**
+     * Receives the symbol table entries declared by a class.
+     */
+    interface Declarations {
+        void declare(Table table, String group, String key, String value);
+    }
+
+    /**
+     * Receives the symbol table entries a class's resolution looks up, hit or
+     * miss.
+     */
+    interface Lookups {
+        void lookup(Table table, String group, String key);
+    }
+
+    /**
+     * Enumerate the entries a class contributes to the symbol tables, in the
+     * order a build applies them.
+     */
+    static void declarations(ClassInfo cls, Declarations out) {
+        String qualifiedName = cls.getQualifiedName();
+        String classId = "class:" + qualifiedName;
+        out.declare(Table.CLASS_IDS, null, qualifiedName, classId);
+        out.declare(Table.CLASS_IDS, null, cls.getName(), classId); // short-name fallback
+
+        String pkg = cls.getPackageName() != null ? cls.getPackageName() : "";
+        for (MethodInfo method : cls.getMethods()) {
+            String methodId = "method:" + qualifiedName + "." + method.getSignature();
+            out.declare(Table.METHOD_IDS, null, qualifiedName + "." + method.getSignature(), methodId);
+            out.declare(Table.METHOD_IDS, null, qualifiedName + "." + method.getName(), methodId);
+            out.declare(Table.METHOD_IDS, null, method.getName(), methodId); // short-name fallback
+            out.declare(Table.CLASS_METHODS, qualifiedName, method.getName(), methodId);
+
+            out.declare(Table.PACKAGE_METHODS, pkg, method.getName(), methodId);
+            for (int dot = pkg.lastIndexOf('.'); dot > 0; dot = pkg.lastIndexOf('.', dot - 1)) {
+                out.declare(Table.SUBPACKAGE_METHODS, pkg.substring(0, dot), method.getName(), methodId);
+            }
+        }
+    }
+
+    /**
+     * Lookup tables built in pass 1 so that every resolution in pass 2 costs a
+     * few hash probes, independent of the number of classes.
+     */
+    static final class SymbolTables {
+        final Map<String, String> classIdMap = new HashMap<>();
+        final Map<String, String> methodIdMap = new HashMap<>();
+        final Map<String, Map<String, String>> classMethods = new HashMap<>();
+        final Map<String, Map<String, String>> packageMethods = new HashMap<>();
+        final Map<String, Map<String, String>> subpackageMethods = new HashMap<>();
+
+        /**
+         * Apply a class's declarations, after those of all earlier classes.
+         */
+        void declare(ClassInfo cls) {
+            declarations(cls, (table, group, key, value) -> {
+                Map<String, String> map = map(table, group, true);
+                if (table.firstWins)
+                    map.putIfAbsent(key, value);
+                else
+                    map.put(key, value);
+            });
+        }
+
+        String get(Table table, String group, String key) {
+            Map<String, String> map = map(table, group, false);
+            return map != null ? map.get(key) : null;
+        }
+
+        /**
+         * Set or (with a null value) remove one entry.
+         */
+        void set(Table table, String group, String key, String value) {
+            if (value != null) {
+                map(table, group, true).put(key, value);
+                return;
             }
+            Map<String, String> map = map(table, group, false);
+            if (map != null) {
+                map.remove(key);
+                if (map.isEmpty() && group != null)
+                    groups(table).remove(group);
+            }
+        }
+
+        private Map<String, String> map(Table table, String group, boolean create) {
+            switch (table) {
+                case CLASS_IDS:
+                    return classIdMap;
+                case METHOD_IDS:
+                    return methodIdMap;
+                default:
+                    Map<String, Map<String, String>> groups = groups(table);
+                    return create ? groups.computeIfAbsent(group, k -> new HashMap<>()) : groups.get(group);
+            }
+        }
+
+        private Map<String, Map<String, String>> groups(Table table) {
+            switch (table) {
+                case CLASS_METHODS:
+                    return classMethods;
+                case PACKAGE_METHODS:
+                    return packageMethods;
+                case SUBPACKAGE_METHODS:
+                    return subpackageMethods;
+                default:
+                    throw new IllegalArgumentException("Not a grouped table: " + table);
+            }
+        }
+    }
+
+    /**
+     * Per-class view used while resolving the references of one class; its
+     * import tables are built on first use. All symbol lookups go through the
+     * context so that, when a reference set is given, the token of every key
+     * looked up is recorded there.
+     */
+    static final class ResolutionContext {
+        final ClassInfo cls;
+        final SymbolTables symbols;
+        private final Lookups lookups;
+        private Map<String, String> importsBySimpleName;
+        private List<String> knownImports;
+        private Map<String, String> importedMethods;
+
+        ResolutionContext(ClassInfo cls, SymbolTables symbols, Lookups lookups) {
+            this.cls = cls;
+            this.symbols = symbols;
+            this.lookups = lookups;
+        }
+
+        private void lookup(Table table, String group, String key) {
+            if (lookups != null)
+                lookups.lookup(table, group, key);
+        }
 
-            // Try all classes in the same package
-            for (Map.Entry<String, String> entry : classIdMap.entrySet()) {
-                if (entry.getKey().startsWith(context.getPackageName() + ".")) {
-                    String fullMethod = entry.getKey() + "." + methodName;
-                    if (methodIdMap.containsKey(fullMethod))
-                        return methodIdMap.get(fullMethod);
+        String classId(String name) {
+            lookup(Table.CLASS_IDS, null, name);
+            return symbols.classIdMap.get(name);
+        }
+
+        String methodId(String key) {
+            lookup(Table.METHOD_IDS, null, key);
+            return symbols.methodIdMap.get(key);
+        }
+
+        String groupedMethod(Table table, String group, String methodName) {
+            lookup(table, group, methodName);
+            return symbols.get(table, group, methodName);
+        }
+
+        /**
+         * Simple name -> first import ending in that name that is a known class.
+         */
+        Map<String, String> importsBySimpleName() {
+            if (importsBySimpleName == null) {
+                importsBySimpleName = new HashMap<>();
+                for (String imp : cls.getImports()) {
+                    if (classId(imp) != null) {
+                        importsBySimpleName.putIfAbsent(imp.substring(imp.lastIndexOf('.') + 1), imp);
+                    }
                 }
             }
-        } else {
-            // Unqualified — assume same class
-            String sameClass = context.getQualifiedName() + "." + call;
-            if (methodIdMap.containsKey(sameClass))
-                return methodIdMap.get(sameClass);
+            return importsBySimpleName;
         }
 
-        return null;
+        /**
+         * Method node ID from the first imported class declaring the method.
+         */
+        String importedMethod(String methodName) {
+            if (importedMethods == null) {
+                knownImports = new ArrayList<>();
+                importedMethods = new HashMap<>();
+                for (String imp : cls.getImports()) {
+                    if (classId(imp) != null) {
+                        knownImports.add(imp);
+                        symbols.classMethods.getOrDefault(imp, Collections.emptyMap())
+                                .forEach(importedMethods::putIfAbsent);
+                    }
+                }
+            }
+            if (lookups != null) {
+                for (String imp : knownImports) {
+                    lookups.lookup(Table.CLASS_METHODS, imp, methodName);
+                }
+            }
+            return importedMethods.get(methodName);
+        }
     }
 }
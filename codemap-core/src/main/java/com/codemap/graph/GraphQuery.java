@@ -19,6 +19,14 @@ public class GraphQuery {
      * BFS traversal from a start node, following edges of the specified types,
      * limited by depth.
      *
+     * The cost is proportional to the region reached, not to the graph: the
+     * frontier is a growable int queue, visited nodes are marked in an
+     * epoch-stamped array reused by the calling thread, and the result is
+     * built from the edges walked rather than by filtering the whole graph.
+     * It holds the reached nodes in visiting order and every followed-type
+     * edge leaving (or, in reverse, entering) a node within the depth limit,
+     * in the order walked.
+     *
      * @param startNodeId starting node ID
      * @param maxDepth    max traversal depth (-1 for unlimited)
      * @param edgeTypes   edge types to follow (null/empty = all)
@@ -26,43 +34,51 @@ public class GraphQuery {
      * @return subgraph of reachable nodes and edges
      */
     public CodeGraph traverse(String startNodeId, int maxDepth, Set<EdgeType> edgeTypes, boolean forward) {
-        Set<String> visited = new LinkedHashSet<>();
-        Set<String> edgeIds = new LinkedHashSet<>();
-        Queue<String> queue = new LinkedList<>();
-        Map<String, Integer> depth = new HashMap<>();
-
-        queue.add(startNodeId);
-        visited.add(startNodeId);
-        depth.put(startNodeId, 0);
-
-        while (!queue.isEmpty()) {
-            String current = queue.poll();
-            int currentDepth = depth.get(current);
-
-            if (maxDepth >= 0 && currentDepth >= maxDepth)
-                continue;
-
-            List<GraphEdge> edges = forward
-                    ? graph.getOutgoingEdges(current)
-                    : graph.getIncomingEdges(current);
-
-            for (GraphEdge edge : edges) {
-                if (edgeTypes != null && !edgeTypes.isEmpty() && !edgeTypes.contains(edge.getType())) {
+        GraphIndex index = graph.index();
+        int start = index.indexOf(startNodeId);
+        if (start < 0)
+            return new CodeGraph(List.of(), List.of());
+
+        int typeMask = GraphIndex.edgeTypeMask(edgeTypes);
+        Scratch scratch = SCRATCH.get();
+        int epoch = scratch.begin(index.size());
+        int[] stamps = scratch.stamps;
+
+        List<GraphNode> nodes = new ArrayList<>();
+        List<GraphEdge> edges = new ArrayList<>();
+        scratch.push(start);
+        stamps[start] = epoch;
+
+        // Level by level, so depths need no per-node storage
+        int head = 0;
+        for (int depth = 0; head < scratch.size; depth++) {
+            int levelEnd = scratch.size;
+            boolean expand = maxDepth < 0 || depth < maxDepth;
+            for (; head < levelEnd; head++) {
+                int current = scratch.queue[head];
+                GraphNode node = index.nodeAt(current);
+                if (node != null)
+                    nodes.add(node);
+                if (!expand)
                     continue;
-                }
-
-                String neighbor = forward ? edge.getTargetId() : edge.getSourceId();
-                edgeIds.add(edge.getId());
 
-                if (!visited.contains(neighbor)) {
-                    visited.add(neighbor);
-                    depth.put(neighbor, currentDepth + 1);
-                    queue.add(neighbor);
+                int from = forward ? index.outStart(current) : index.inStart(current);
+                int to = forward ? index.outEnd(current) : index.inEnd(current);
+                for (int pos = from; pos < to; pos++) {
+                    int edge = forward ? index.outEdgeAt(pos) : index.inEdgeAt(pos);
+                    if (!index.edgeMatches(edge, typeMask))
+                        continue;
+
+                    edges.add(index.edgeAt(edge));
+                    int neighbor = forward ? index.edgeTarget(edge) : index.edgeSource(edge);
+                    if (stamps[neighbor] != epoch) {
+                        stamps[neighbor] = epoch;
+                        scratch.push(neighbor);
+                    }
                 }
             }
         }
-
-        return graph.subgraph(visited);
+        return new CodeGraph(nodes, edges);
     }
 
     /**
@@ -79,6 +95,83 @@ public class GraphQuery {
         return traverse(startNodeId, maxDepth, edgeTypes, false);
     }
 
+    /**
+     * A shortest path between two nodes, following edges of the given types
+     * in their direction.
+     *
+     * @param edgeTypes edge types to follow (null/empty = all)
+     * @return the path, or null if either node is unknown or the target
+     *         cannot be reached
+     * @see #shortestPaths(String, String, int, Set)
+     */
+    public GraphPath shortestPath(String fromId, String toId, Set<EdgeType> edgeTypes) {
+        List<GraphPath> paths = shortestPaths(fromId, toId, 1, edgeTypes);
+        return paths.isEmpty() ? null : paths.get(0);
+    }
+
+    /**
+     * Up to {@code limit} shortest paths between two nodes, shortest first.
+     *
+     * Unlike a traversal, the work is bounded by the paths themselves: a
+     * bidirectional BFS finds the shortest one, and each further path costs
+     * one such search per node of the path before it. Paths never visit a
+     * node twice, and paths that differ only in parallel edges (e.g. two
+     * calls to the same method) are reported once. A path from a node to
+     * itself has no edges.
+     *
+     * @param limit     maximum number of paths, at least 1
+     * @param edgeTypes edge types to follow (null/empty = all)
+     * @return the paths; empty if either node is unknown or the target cannot
+     *         be reached
+     */
+    public List<GraphPath> shortestPaths(String fromId, String toId, int limit, Set<EdgeType> edgeTypes) {
+        if (limit < 1)
+            throw new IllegalArgumentException("Path limit must be at least 1: " + limit);
+        GraphIndex index = graph.index();
+        int source = index.indexOf(fromId);
+        int target = index.indexOf(toId);
+        if (source < 0 || target < 0)
+            return List.of();
+
+        PathFinder finder = new PathFinder(index, GraphIndex.edgeTypeMask(edgeTypes));
+        List<GraphPath> paths = new ArrayList<>();
+        for (PathFinder.Route route : finder.shortest(source, target, limit)) {
+            List<String> nodeIds = new ArrayList<>(route.nodes.length);
+            for (int node : route.nodes) {
+                nodeIds.add(index.idAt(node));
+            }
+            List<GraphEdge> edges = new ArrayList<>(route.edges.length);
+            for (int edge : route.edges) {
+                edges.add(index.edgeAt(edge));
+            }
+            paths.add(new GraphPath(List.copyOf(nodeIds), List.copyOf(edges)));
+        }
+        return paths;
+    }
+
+    /**
+     * The nodes and edges on the given paths, each once, in path order.
+     * Edge targets outside the graph are kept as dangling edges, as in
+     * traversals.
+     */
+    public CodeGraph pathGraph(List<GraphPath> paths) {
+        Set<String> nodeIds = new LinkedHashSet<>();
+        Set<GraphEdge> edges = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<GraphEdge> orderedEdges = new ArrayList<>();
+        for (GraphPath path : paths) {
+            nodeIds.addAll(path.nodeIds());
+            for (GraphEdge edge : path.edges()) {
+                if (edges.add(edge))
+                    orderedEdges.add(edge);
+            }
+        }
+        List<GraphNode> nodes = new ArrayList<>(nodeIds.size());
+        for (String id : nodeIds) {
+            graph.getNode(id).ifPresent(nodes::add);
+        }
+        return new CodeGraph(nodes, orderedEdges);
+    }
+
     /**
      * Filter graph to include only nodes matching the given package prefix.
      */
@@ -106,4 +199,54 @@ public class GraphQuery {
         }
         return graph.subgraph(matchingIds);
     }
+
+    /**
+     * A path through the graph: the IDs of the nodes it visits, from start to
+     * end, and the edges taken between them ({@code nodeIds.size() - 1} of
+     * them).
+     */
+    public record GraphPath(List<String> nodeIds, List<GraphEdge> edges) {
+
+        public int length() {
+            return edges.size();
+        }
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Per-thread traversal state. A node is visited in the current traversal
+     * when its stamp equals the current epoch, so starting a traversal is O(1)
+     * instead of clearing an array the size of the graph.
+     */
+    private static final class Scratch {
+        int[] stamps = new int[0];
+        int epoch;
+        int[] queue = new int[64];
+        int size;
+
+        /**
+         * Start a traversal over {@code slots} index slots.
+         *
+         * @return the epoch marking this traversal's visited nodes
+         */
+        int begin(int slots) {
+            if (stamps.length < slots) {
+                stamps = new int[Math.max(slots, stamps.length + (stamps.length >> 1))];
+                epoch = 0;
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                epoch = 1;
+            }
+            size = 0;
+            return epoch;
+        }
+
+        void push(int node) {
+            if (size == queue.length)
+                queue = Arrays.copyOf(queue, size * 2);
+            queue[size++] = node;
+        }
+    }
 }
@@ -0,0 +1,551 @@
+package com.codemap.graph;
+
+import com.codemap.graph.GraphBuilderImpl.Declarations;
+import com.codemap.graph.GraphBuilderImpl.Lookups;
+import com.codemap.graph.GraphBuilderImpl.ResolutionContext;
+import com.codemap.graph.GraphBuilderImpl.SymbolTables;
+import com.codemap.graph.GraphBuilderImpl.Table;
+import com.codemap.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Keeps the {@link GraphBuilderImpl} graph of a set of source files up to
+ * date as individual files change, without rebuilding it.
+ *
+ * The builder remembers, per file, the nodes and edges it produced and the
+ * symbol table entries its resolution looked up. When a file changes, its old
+ * nodes and edges are replaced, the table entries it declares are recomputed,
+ * and only files that looked up an entry whose value changed are re-resolved.
+ * Declarations are indexed by simple name and lookups by
+ * {@link GraphBuilderImpl#token}, with the exact entries kept per file only
+ * as hashes, so the bookkeeping stays small next to the graph. The patched
+ * graph equals a full build of all files in path order, except for the order
+ * of nodes and edges (and so which of several nodes with the same ID
+ * {@link CodeGraph#getNode} returns).
+ *
+ * Instances are not thread-safe.
+ */
+public class IncrementalGraphBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalGraphBuilder.class);
+
+    /** Build order: files by path, then classes in file order */
+    private static final Comparator<Origin> ORDER = Comparator.<Origin, Path>comparing(o -> o.file.path)
+            .thenComparingInt(o -> o.index);
+
+    private final SortedMap<Path, FileState> files = new TreeMap<>();
+    private final SymbolTables symbols = new SymbolTables();
+    /** Simple name -> classes declaring a symbol table key with that name, in build order */
+    private final Map<String, List<Origin>> declarations = new HashMap<>();
+    /** Token -> files whose resolution looked up an entry with that token */
+    private final Map<String, References> references = new HashMap<>();
+    private CodeGraph graph;
+
+    /**
+     * Build the initial graph.
+     *
+     * @param sources parsed classes per source file
+     */
+    public IncrementalGraphBuilder(Map<Path, List<ClassInfo>> sources) {
+        new TreeMap<>(sources).forEach((path, classes) -> {
+            if (!classes.isEmpty())
+                files.put(path, new FileState(path, classes));
+        });
+
+        List<GraphNode> nodes = new ArrayList<>();
+        List<GraphEdge> edges = new ArrayList<>();
+        for (FileState file : files.values()) {
+            for (Origin origin : file.origins) {
+                GraphBuilderImpl.addNodes(origin.cls, file.nodes, file.containsEdges);
+                symbols.declare(origin.cls);
+                addDeclarations(origin);
+            }
+            nodes.addAll(file.nodes);
+            edges.addAll(file.containsEdges);
+        }
+        for (FileState file : files.values()) {
+            file.resolvedEdges = resolve(file);
+            addReferences(file);
+            edges.addAll(file.resolvedEdges);
+        }
+        graph = new CodeGraph(nodes, edges);
+        log.info("Built incremental graph with {} nodes and {} edges", graph.nodeCount(), graph.edgeCount());
+    }
+
+    public CodeGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Replace the classes of one file, which may be new.
+     *
+     * @param path    the file, as given to the constructor
+     * @param classes its newly parsed classes; empty if the file was deleted
+     * @return the changes, including the new graph
+     */
+    public GraphDelta update(Path path, List<ClassInfo> classes) {
+        return update(Map.of(path, classes));
+    }
+
+    /**
+     * Replace the classes of several files at once, as one patch of the
+     * graph. Files affected by more than one of the changes are re-resolved
+     * only once.
+     *
+     * @param changes newly parsed classes per file, as for
+     *                {@link #update(Path, List)}
+     * @return the changes, including the new graph
+     */
+    public GraphDelta update(Map<Path, List<ClassInfo>> changes) {
+        long start = System.nanoTime();
+        // Symbol table keys some file's net contribution to changed
+        Set<SymbolKey> changedKeys = new HashSet<>();
+        List<FileState> oldFiles = new ArrayList<>();
+        List<FileState> freshFiles = new ArrayList<>();
+        Set<FileState> fresh = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<Path, List<ClassInfo>> change : changes.entrySet()) {
+            Path path = change.getKey();
+            FileState old = files.remove(path);
+            FileState state = change.getValue().isEmpty() ? null : new FileState(path, change.getValue());
+            if (old == null && state == null)
+                continue;
+
+            Map<SymbolKey, String[]> contributions = new HashMap<>();
+            if (old != null) {
+                old.origins.forEach(this::removeDeclarations);
+                collectContributions(old, contributions, 0);
+                removeReferences(old);
+            }
+            if (state != null) {
+                files.put(path, state);
+                state.origins.forEach(this::addDeclarations);
+                collectContributions(state, contributions, 1);
+                fresh.add(state);
+            }
+            contributions.forEach((key, values) -> {
+                if (!Objects.equals(values[0], values[1]))
+                    changedKeys.add(key);
+            });
+            oldFiles.add(old);
+            freshFiles.add(state);
+        }
+        if (oldFiles.isEmpty())
+            return GraphDelta.apply(graph, List.of(), List.of(), List.of(), List.of());
+
+        Set<String> changedTokens = new HashSet<>();
+        Set<Integer> changedHashes = new HashSet<>();
+        for (SymbolKey key : changedKeys) {
+            String winner = winner(key);
+            if (!Objects.equals(winner, symbols.get(key.table, key.group, key.key))) {
+                symbols.set(key.table, key.group, key.key, winner);
+                changedTokens.add(GraphBuilderImpl.token(key.group, key.key));
+                changedHashes.add(hash(key.table, key.group, key.key));
+            }
+        }
+
+        // Files that looked up a changed entry (or one with the same hash)
+        int[] changed = sortedArray(changedHashes);
+        Set<FileState> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String token : changedTokens) {
+            References refs = references.get(token);
+            if (refs == null)
+                continue;
+            for (FileState file : refs.files) {
+                if (!fresh.contains(file) && intersects(file.lookups, changed))
+                    affected.add(file);
+            }
+        }
+
+        List<GraphNode> removedNodes = new ArrayList<>();
+        List<GraphEdge> removedEdges = new ArrayList<>();
+        List<GraphNode> addedNodes = new ArrayList<>();
+        List<GraphEdge> addedEdges = new ArrayList<>();
+
+        for (int i = 0; i < oldFiles.size(); i++) {
+            FileState old = oldFiles.get(i);
+            FileState state = freshFiles.get(i);
+            List<GraphNode> oldNodes = old != null ? old.nodes : List.of();
+            List<GraphEdge> oldContains = old != null ? old.containsEdges : List.of();
+            List<GraphEdge> oldResolved = old != null ? old.resolvedEdges : List.of();
+            if (state != null) {
+                for (Origin origin : state.origins) {
+                    GraphBuilderImpl.addNodes(origin.cls, state.nodes, state.containsEdges);
+                }
+                state.nodes = reuse(oldNodes, state.nodes, GraphNode::getId, GraphNode::contentEquals,
+                        removedNodes, addedNodes);
+                state.containsEdges = reuse(oldContains, state.containsEdges, GraphEdge::getId,
+                        GraphEdge::contentEquals, removedEdges, addedEdges);
+                state.resolvedEdges = reuse(oldResolved, resolve(state), GraphEdge::getId,
+                        GraphEdge::contentEquals, removedEdges, addedEdges);
+                addReferences(state);
+            } else {
+                removedNodes.addAll(oldNodes);
+                removedEdges.addAll(oldContains);
+                removedEdges.addAll(oldResolved);
+            }
+        }
+
+        for (FileState file : affected) {
+            removeReferences(file);
+            file.resolvedEdges = reuse(file.resolvedEdges, resolve(file), GraphEdge::getId,
+                    GraphEdge::contentEquals, removedEdges, addedEdges);
+            addReferences(file);
+        }
+
+        GraphDelta delta = GraphDelta.apply(graph, removedNodes, removedEdges, addedNodes, addedEdges);
+        graph = delta.getGraph();
+        log.debug("Updated {} files in {}ms: {} symbol tokens changed, {} other files re-resolved, {}",
+                oldFiles.size(), (System.nanoTime() - start) / 1_000_000, changedTokens.size(), affected.size(),
+                delta);
+        return delta;
+    }
+
+    /**
+     * Remove a file; equivalent to updating it with no classes.
+     */
+    public GraphDelta remove(Path path) {
+        return update(path, List.of());
+    }
+
+    // --- Symbol tables ---
+
+    /**
+     * Record a file's net contribution to each key: the last value it
+     * declares for last-wins tables, the first for first-wins tables.
+     */
+    private static void collectContributions(FileState file, Map<SymbolKey, String[]> contributions, int slot) {
+        Declarations collector = (table, group, key, value) -> {
+            String[] values = contributions.computeIfAbsent(new SymbolKey(table, group, key), k -> new String[2]);
+            if (!table.firstWins || values[slot] == null)
+                values[slot] = value;
+        };
+        for (Origin origin : file.origins) {
+            GraphBuilderImpl.declarations(origin.cls, collector);
+        }
+    }
+
+    /**
+     * The value a full build would leave in a table entry: the last (or first)
+     * declaration among all classes, in build order.
+     */
+    private String winner(SymbolKey key) {
+        List<Origin> candidates = declarations.getOrDefault(candidateName(key), List.of());
+        if (key.table.firstWins) {
+            for (Origin origin : candidates) {
+                String value = declaredValue(origin.cls, key);
+                if (value != null)
+                    return value;
+            }
+        } else {
+            for (int i = candidates.size() - 1; i >= 0; i--) {
+                String value = declaredValue(candidates.get(i).cls, key);
+                if (value != null)
+                    return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The name under which the classes that may declare a key are indexed:
+     * the class's own name for keys scoped to a class, else the key's name.
+     */
+    private static String candidateName(SymbolKey key) {
+        String scope = null;
+        if (key.table == Table.CLASS_METHODS) {
+            scope = key.group;
+        } else if (key.table == Table.METHOD_IDS) {
+            int end = key.key.indexOf('(');
+            int dot = key.key.lastIndexOf('.', (end < 0 ? key.key.length() : end) - 1);
+            if (dot > 0)
+                scope = key.key.substring(0, dot);
+        }
+        return simpleName(scope != null ? scope : key.key);
+    }
+
+    /**
+     * The net value one class declares for a key, or null.
+     */
+    private static String declaredValue(ClassInfo cls, SymbolKey key) {
+        // Cheap rejections before enumerating the class's declarations
+        String pkg = cls.getPackageName() != null ? cls.getPackageName() : "";
+        if (key.table == Table.CLASS_METHODS && !key.group.equals(cls.getQualifiedName()))
+            return null;
+        if (key.table == Table.PACKAGE_METHODS && !key.group.equals(pkg))
+            return null;
+        if (key.table == Table.SUBPACKAGE_METHODS && !isMemberKey(pkg, key.group))
+            return null;
+        // Dotted class and method keys are the class's names or start with them
+        if ((key.table == Table.CLASS_IDS || key.table == Table.METHOD_IDS) && key.key.indexOf('.') >= 0
+                && !key.key.equals(cls.getQualifiedName()) && !key.key.equals(cls.getName())
+                && !isMemberKey(key.key, cls.getQualifiedName()))
+            return null;
+
+        String[] value = new String[1];
+        GraphBuilderImpl.declarations(cls, (table, group, k, v) -> {
+            if (table == key.table && Objects.equals(group, key.group) && k.equals(key.key)
+                    && (!table.firstWins || value[0] == null))
+                value[0] = v;
+        });
+        return value[0];
+    }
+
+    /** Whether {@code key} starts with {@code prefix} and a dot. */
+    private static boolean isMemberKey(String key, String prefix) {
+        return key.length() > prefix.length() && key.charAt(prefix.length()) == '.' && key.startsWith(prefix);
+    }
+
+    private void addDeclarations(Origin origin) {
+        for (String name : declaredNames(origin.cls)) {
+            List<Origin> list = declarations.computeIfAbsent(name, k -> new ArrayList<>(1));
+            if (list.isEmpty() || ORDER.compare(list.get(list.size() - 1), origin) < 0) {
+                list.add(origin);
+            } else {
+                int at = Collections.binarySearch(list, origin, ORDER);
+                list.add(at < 0 ? -at - 1 : at, origin);
+            }
+        }
+    }
+
+    private void removeDeclarations(Origin origin) {
+        for (String name : declaredNames(origin.cls)) {
+            List<Origin> list = declarations.get(name);
+            if (list == null)
+                continue;
+            int at = Collections.binarySearch(list, origin, ORDER);
+            if (at >= 0 && list.get(at) == origin)
+                list.remove(at);
+            else
+                list.removeIf(o -> o == origin);
+            if (list.isEmpty())
+                declarations.remove(name);
+        }
+    }
+
+    private static Set<String> declaredNames(ClassInfo cls) {
+        Set<String> names = new HashSet<>();
+        GraphBuilderImpl.declarations(cls, (table, group, key, value) -> names.add(simpleName(key)));
+        return names;
+    }
+
+    /**
+     * The class or method name a key ends with: its last segment, without
+     * any parameter list.
+     */
+    private static String simpleName(String key) {
+        int end = key.indexOf('(');
+        if (end < 0)
+            end = key.length();
+        return key.substring(key.lastIndexOf('.', end - 1) + 1, end);
+    }
+
+    // --- Resolution ---
+
+    /**
+     * Resolve a file's edges against the current symbol tables, recording the
+     * entries it looks up.
+     */
+    private List<GraphEdge> resolve(FileState file) {
+        Set<String> tokens = new HashSet<>();
+        Set<Integer> hashes = new HashSet<>();
+        Lookups lookups = (table, group, key) -> {
+            tokens.add(GraphBuilderImpl.token(group, key));
+            hashes.add(hash(table, group, key));
+        };
+        List<GraphEdge> edges = new ArrayList<>();
+        for (Origin origin : file.origins) {
+            GraphBuilderImpl.resolveEdges(new ResolutionContext(origin.cls, symbols, lookups), edges);
+        }
+        file.tokens = tokens;
+        file.lookups = sortedArray(hashes);
+        return edges;
+    }
+
+    private static int hash(Table table, String group, String key) {
+        return (31 * table.ordinal() + Objects.hashCode(group)) * 31 + key.hashCode();
+    }
+
+    private static int[] sortedArray(Set<Integer> values) {
+        int[] array = new int[values.size()];
+        int i = 0;
+        for (int value : values) {
+            array[i++] = value;
+        }
+        Arrays.sort(array);
+        return array;
+    }
+
+    /** Whether two sorted arrays share a value. */
+    private static boolean intersects(int[] a, int[] b) {
+        if (b.length < 16) {
+            for (int value : b) {
+                if (Arrays.binarySearch(a, value) >= 0)
+                    return true;
+            }
+            return false;
+        }
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j])
+                return true;
+            if (a[i] < b[j])
+                i++;
+            else
+                j++;
+        }
+        return false;
+    }
+
+    /**
+     * Index the tokens recorded by the file's last resolution.
+     */
+    private void addReferences(FileState file) {
+        References[] refs = new References[file.tokens.size()];
+        int i = 0;
+        for (String token : file.tokens) {
+            References r = references.computeIfAbsent(token, References::new);
+            r.files.add(file);
+            refs[i++] = r;
+        }
+        file.tokens = null;
+        file.references = refs;
+    }
+
+    private void removeReferences(FileState file) {
+        for (References r : file.references) {
+            for (int i = r.files.size() - 1; i >= 0; i--) {
+                if (r.files.get(i) == file) {
+                    r.files.remove(i);
+                    break;
+                }
+            }
+            if (r.files.isEmpty())
+                references.remove(r.token);
+        }
+        file.references = new References[0];
+    }
+
+    /**
+     * Keep the old instance of every fresh item whose content is unchanged,
+     * so unchanged nodes and edges are neither removed nor re-added.
+     *
+     * @return the fresh items, with unchanged ones replaced by old instances
+     */
+    private static <T> List<T> reuse(List<T> old, List<T> fresh, Function<T, String> id,
+            BiPredicate<T, T> sameContent, List<T> removed, List<T> added) {
+        Map<String, List<T>> oldById = new HashMap<>();
+        for (T item : old) {
+            oldById.computeIfAbsent(id.apply(item), k -> new ArrayList<>(1)).add(item);
+        }
+        List<T> result = new ArrayList<>(fresh.size());
+        for (T item : fresh) {
+            List<T> candidates = oldById.get(id.apply(item));
+            T match = null;
+            if (candidates != null) {
+                for (Iterator<T> it = candidates.iterator(); it.hasNext(); ) {
+                    T candidate = it.next();
+                    if (sameContent.test(candidate, item)) {
+                        match = candidate;
+                        it.remove();
+                        break;
+                    }
+                }
+            }
+            if (match != null) {
+                result.add(match);
+            } else {
+                result.add(item);
+                added.add(item);
+            }
+        }
+        oldById.values().forEach(removed::addAll);
+        return result;
+    }
+
+    /**
+     * What the builder remembers about one source file.
+     */
+    private static final class FileState {
+        final Path path;
+        final List<Origin> origins;
+        List<GraphNode> nodes = new ArrayList<>();
+        List<GraphEdge> containsEdges = new ArrayList<>();
+        List<GraphEdge> resolvedEdges = List.of();
+        /** Tokens of the entries looked up by the last resolution, until indexed */
+        Set<String> tokens;
+        /** Index entries of the tokens looked up by the last resolution */
+        References[] references = new References[0];
+        /** Sorted hashes of the entries looked up by the last resolution */
+        int[] lookups = new int[0];
+
+        FileState(Path path, List<ClassInfo> classes) {
+            this.path = path;
+            this.origins = new ArrayList<>(classes.size());
+            for (int i = 0; i < classes.size(); i++) {
+                origins.add(new Origin(this, i, classes.get(i)));
+            }
+        }
+    }
+
+    /**
+     * The files whose last resolution looked up an entry with one token.
+     */
+    private static final class References {
+        final String token;
+        final List<FileState> files = new ArrayList<>(1);
+
+        References(String token) {
+            this.token = token;
+        }
+    }
+
+    /**
+     * A class and its position in build order.
+     */
+    private static final class Origin {
+        final FileState file;
+        final int index;
+        final ClassInfo cls;
+
+        Origin(FileState file, int index, ClassInfo cls) {
+            this.file = file;
+            this.index = index;
+            this.cls = cls;
+        }
+    }
+
+    /**
+     * One entry of one symbol table.
+     */
+    private static final class SymbolKey {
+        final Table table;
+        final String group;
+        final String key;
+
+        SymbolKey(Table table, String group, String key) {
+            this.table = table;
+            this.group = group;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof SymbolKey))
+                return false;
+            SymbolKey that = (SymbolKey) o;
+            return table == that.table && Objects.equals(group, that.group) && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(table, group, key);
+        }
+    }
+}
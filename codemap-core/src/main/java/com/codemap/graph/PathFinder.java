@@ -0,0 +1,272 @@
+package com.codemap.graph;
+
+import com.codemap.model.GraphIndex;
+
+import java.util.*;
+
+/**
+ * Shortest paths between two index slots over edges of selected types.
+ *
+ * A single shortest path is found by bidirectional BFS: the smaller frontier
+ * is expanded one level at a time, forwards from the source or backwards
+ * from the target, until the two searches meet. Both searches stay close to
+ * their endpoints, so the work is roughly the square root of what a one-sided
+ * BFS reaching the same distance would do.
+ *
+ * Further paths are enumerated with Yen's algorithm: each path found is
+ * varied at every node by blocking the part before it and the next hops
+ * already taken from it, and the shortest variants become candidates. Paths
+ * are simple (no node twice) and two paths that only differ in parallel
+ * edges count as one.
+ */
+final class PathFinder {
+
+    /**
+     * Orders candidates by length, then by the slots they visit, so equal
+     * routes collapse and ties are broken the same way every time.
+     */
+    private static final Comparator<Route> ORDER = Comparator
+            .comparingInt((Route r) -> r.edges.length)
+            .thenComparing((a, b) -> Arrays.compare(a.nodes, b.nodes));
+
+    private final GraphIndex index;
+    private final int typeMask;
+    private final Scratch scratch;
+
+    PathFinder(GraphIndex index, int typeMask) {
+        this.index = index;
+        this.typeMask = typeMask;
+        this.scratch = SCRATCH.get();
+        scratch.ensure(index.size());
+    }
+
+    /**
+     * Up to {@code limit} shortest simple paths, shortest first.
+     */
+    List<Route> shortest(int source, int target, int limit) {
+        List<Route> found = new ArrayList<>();
+        Route first = search(source, target, null, 0);
+        if (first == null)
+            return found;
+        found.add(first);
+
+        TreeSet<Route> candidates = new TreeSet<>(ORDER);
+        int[] banned = new int[4];
+        while (found.size() < limit) {
+            Route last = found.get(found.size() - 1);
+            for (int spur = 0; spur < last.edges.length; spur++) {
+                // Next hops already taken by found paths with the same root
+                int bannedCount = 0;
+                for (Route route : found) {
+                    if (route.edges.length > spur
+                            && Arrays.equals(route.nodes, 0, spur + 1, last.nodes, 0, spur + 1)) {
+                        if (bannedCount == banned.length)
+                            banned = Arrays.copyOf(banned, bannedCount * 2);
+                        banned[bannedCount++] = route.nodes[spur + 1];
+                    }
+                }
+                // The root itself may not be revisited
+                int blockEpoch = scratch.beginBlock();
+                for (int i = 0; i < spur; i++) {
+                    scratch.blocked[last.nodes[i]] = blockEpoch;
+                }
+
+                Route tail = search(last.nodes[spur], target, banned, bannedCount);
+                if (tail != null)
+                    candidates.add(last.join(spur, tail));
+            }
+            Route next = candidates.pollFirst();
+            if (next == null)
+                break;
+            found.add(next);
+        }
+        return found;
+    }
+
+    /**
+     * Bidirectional BFS avoiding blocked slots and, from the source, the
+     * first {@code bannedCount} slots of {@code banned}.
+     *
+     * @return a shortest path, or null if the target is unreachable
+     */
+    private Route search(int source, int target, int[] banned, int bannedCount) {
+        if (source == target)
+            return new Route(new int[] { source }, new int[0]);
+
+        Scratch s = scratch;
+        int epoch = s.beginSearch();
+        int blockEpoch = banned == null ? -1 : s.blockEpoch;
+        s.forward[source] = epoch;
+        s.forwardParent[source] = -1;
+        s.forwardQueue[0] = source;
+        s.backward[target] = epoch;
+        s.backwardParent[target] = -1;
+        s.backwardQueue[0] = target;
+        int forwardHead = 0, forwardSize = 1;
+        int backwardHead = 0, backwardSize = 1;
+
+        while (forwardHead < forwardSize && backwardHead < backwardSize) {
+            boolean forward = forwardSize - forwardHead <= backwardSize - backwardHead;
+            int[] queue = forward ? s.forwardQueue : s.backwardQueue;
+            int[] mine = forward ? s.forward : s.backward;
+            int[] parent = forward ? s.forwardParent : s.backwardParent;
+            int[] other = forward ? s.backward : s.forward;
+            int head = forward ? forwardHead : backwardHead;
+            int size = forward ? forwardSize : backwardSize;
+
+            // Expand one whole level; the first node both searches reach lies
+            // on a shortest path, since no shorter one could have been missed
+            for (int levelEnd = size; head < levelEnd; head++) {
+                int current = queue[head];
+                int from = forward ? index.outStart(current) : index.inStart(current);
+                int to = forward ? index.outEnd(current) : index.inEnd(current);
+                for (int pos = from; pos < to; pos++) {
+                    int edge = forward ? index.outEdgeAt(pos) : index.inEdgeAt(pos);
+                    if (!index.edgeMatches(edge, typeMask))
+                        continue;
+                    int neighbor = forward ? index.edgeTarget(edge) : index.edgeSource(edge);
+                    if (mine[neighbor] == epoch || s.blocked[neighbor] == blockEpoch)
+                        continue;
+                    if (bannedCount > 0 && (forward ? current : neighbor) == source
+                            && contains(banned, bannedCount, forward ? neighbor : current))
+                        continue;
+
+                    mine[neighbor] = epoch;
+                    parent[neighbor] = edge;
+                    if (other[neighbor] == epoch)
+                        return route(neighbor);
+                    if (size == queue.length) {
+                        queue = Arrays.copyOf(queue, size * 2);
+                        if (forward)
+                            s.forwardQueue = queue;
+                        else
+                            s.backwardQueue = queue;
+                    }
+                    queue[size++] = neighbor;
+                }
+            }
+            if (forward) {
+                forwardHead = head;
+                forwardSize = size;
+            } else {
+                backwardHead = head;
+                backwardSize = size;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The path through {@code meet}, from the parent edges of both searches.
+     */
+    private Route route(int meet) {
+        Scratch s = scratch;
+        int before = 0;
+        for (int v = meet; s.forwardParent[v] >= 0; v = index.edgeSource(s.forwardParent[v])) {
+            before++;
+        }
+        int after = 0;
+        for (int v = meet; s.backwardParent[v] >= 0; v = index.edgeTarget(s.backwardParent[v])) {
+            after++;
+        }
+
+        int[] nodes = new int[before + after + 1];
+        int[] edges = new int[before + after];
+        nodes[before] = meet;
+        for (int i = before, v = meet; i > 0; i--) {
+            int edge = s.forwardParent[v];
+            edges[i - 1] = edge;
+            v = index.edgeSource(edge);
+            nodes[i - 1] = v;
+        }
+        for (int i = before, v = meet; i < edges.length; i++) {
+            int edge = s.backwardParent[v];
+            edges[i] = edge;
+            v = index.edgeTarget(edge);
+            nodes[i + 1] = v;
+        }
+        return new Route(nodes, edges);
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * A path as the slots it visits and the edges it takes between them.
+     */
+    static final class Route {
+        final int[] nodes;
+        final int[] edges;
+
+        Route(int[] nodes, int[] edges) {
+            this.nodes = nodes;
+            this.edges = edges;
+        }
+
+        /**
+         * This route up to node {@code spur}, continued by {@code tail},
+         * which starts there.
+         */
+        Route join(int spur, Route tail) {
+            int[] joinedNodes = Arrays.copyOf(nodes, spur + tail.nodes.length);
+            System.arraycopy(tail.nodes, 0, joinedNodes, spur, tail.nodes.length);
+            int[] joinedEdges = Arrays.copyOf(edges, spur + tail.edges.length);
+            System.arraycopy(tail.edges, 0, joinedEdges, spur, tail.edges.length);
+            return new Route(joinedNodes, joinedEdges);
+        }
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Per-thread search state. As in {@link GraphQuery}'s traversals, a slot
+     * is marked when its stamp equals the current epoch, so a search starts
+     * in O(1); parent edges are only meaningful for marked slots.
+     */
+    private static final class Scratch {
+        int[] forward = new int[0];
+        int[] backward = new int[0];
+        int[] forwardParent = new int[0];
+        int[] backwardParent = new int[0];
+        int[] blocked = new int[0];
+        int[] forwardQueue = new int[64];
+        int[] backwardQueue = new int[64];
+        int epoch;
+        int blockEpoch;
+
+        void ensure(int slots) {
+            if (forward.length >= slots)
+                return;
+            int length = Math.max(slots, forward.length + (forward.length >> 1));
+            forward = new int[length];
+            backward = new int[length];
+            forwardParent = new int[length];
+            backwardParent = new int[length];
+            blocked = new int[length];
+            epoch = 0;
+            blockEpoch = 0;
+        }
+
+        int beginSearch() {
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(forward, 0);
+                Arrays.fill(backward, 0);
+                epoch = 1;
+            }
+            return epoch;
+        }
+
+        int beginBlock() {
+            if (++blockEpoch == Integer.MAX_VALUE) {
+                Arrays.fill(blocked, 0);
+                blockEpoch = 1;
+            }
+            return blockEpoch;
+        }
+    }
+}
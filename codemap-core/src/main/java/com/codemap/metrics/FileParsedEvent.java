@@ -0,0 +1,27 @@
+package com.codemap.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event for one parsed source file. Duration is the parse
+ * time, so the slowest files stand out in a recording.
+ */
+@Name("com.codemap.FileParsed")
+@Label("File Parsed")
+@Category({ "CodeMap", "Parser" })
+@StackTrace(false)
+public class FileParsedEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+
+    @Label("Classes")
+    public int classCount;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,162 @@
+package com.codemap.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects {@link PhaseMetrics} for the phases of an analysis run.
+ *
+ * A phase is measured on the thread that opens it:
+ * <pre>
+ * try (MetricsRecorder.Phase phase = recorder.start("parse")) {
+ *     ...
+ *     phase.count("files", files.size());
+ * }
+ * </pre>
+ * Work handed to other threads is added with {@link Phase#measure(Callable)}
+ * from the worker. Thread CPU time and allocated bytes come from the
+ * platform {@code ThreadMXBean}. Each closed phase is also emitted as a
+ * {@link PhaseEvent} when Flight Recorder is recording. Recorders are
+ * thread-safe.
+ */
+public class MetricsRecorder {
+
+    private static final ThreadUsage USAGE = new ThreadUsage();
+
+    private final List<PhaseMetrics> phases = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Start measuring a phase on the current thread.
+     */
+    public Phase start(String name) {
+        return new Phase(name);
+    }
+
+    /**
+     * Completed phases in the order they finished.
+     */
+    public List<PhaseMetrics> getPhases() {
+        synchronized (phases) {
+            return List.copyOf(phases);
+        }
+    }
+
+    /**
+     * Add phases measured elsewhere, e.g. by another recorder.
+     */
+    public void addAll(Collection<PhaseMetrics> other) {
+        phases.addAll(other);
+    }
+
+    /**
+     * An open phase. Closing it records its metrics; closing it again has no
+     * effect.
+     */
+    public final class Phase implements AutoCloseable {
+
+        private final String name;
+        private final long startWall;
+        private final long startCpu;
+        private final long startAllocated;
+        private final AtomicLong workerCpu = new AtomicLong();
+        private final AtomicLong workerAllocated = new AtomicLong();
+        private final Map<String, Long> counts = new LinkedHashMap<>();
+        private final PhaseEvent event = new PhaseEvent();
+        private boolean closed;
+
+        private Phase(String name) {
+            this.name = name;
+            event.begin();
+            this.startCpu = USAGE.cpuNanos();
+            this.startAllocated = USAGE.allocatedBytes();
+            this.startWall = System.nanoTime();
+        }
+
+        /**
+         * Record a count for this phase, replacing any earlier value.
+         */
+        public synchronized Phase count(String key, long value) {
+            counts.put(key, value);
+            return this;
+        }
+
+        /**
+         * Run work on the current (worker) thread and add its CPU time and
+         * allocation to this phase.
+         */
+        public <T> T measure(Callable<T> work) throws Exception {
+            long cpu = USAGE.cpuNanos();
+            long allocated = USAGE.allocatedBytes();
+            try {
+                return work.call();
+            } finally {
+                if (cpu >= 0)
+                    workerCpu.addAndGet(USAGE.cpuNanos() - cpu);
+                if (allocated >= 0)
+                    workerAllocated.addAndGet(USAGE.allocatedBytes() - allocated);
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed)
+                return;
+            closed = true;
+            long wall = System.nanoTime() - startWall;
+            long cpu = startCpu >= 0 ? USAGE.cpuNanos() - startCpu + workerCpu.get() : -1;
+            long allocated = startAllocated >= 0
+                    ? USAGE.allocatedBytes() - startAllocated + workerAllocated.get() : -1;
+            phases.add(new PhaseMetrics(name, wall, cpu, allocated, counts));
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = name;
+                event.cpuTime = cpu;
+                event.allocated = allocated;
+                event.counts = counts.toString();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Current-thread CPU and allocation counters, or -1 where unsupported.
+     */
+    private static final class ThreadUsage {
+
+        private final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final com.sun.management.ThreadMXBean allocations;
+        private final boolean cpuSupported;
+
+        ThreadUsage() {
+            boolean cpu = threads.isCurrentThreadCpuTimeSupported();
+            if (cpu && !threads.isThreadCpuTimeEnabled()) {
+                try {
+                    threads.setThreadCpuTimeEnabled(true);
+                } catch (UnsupportedOperationException | SecurityException e) {
+                    cpu = false;
+                }
+            }
+            this.cpuSupported = cpu;
+
+            com.sun.management.ThreadMXBean sun = null;
+            if (threads instanceof com.sun.management.ThreadMXBean candidate
+                    && candidate.isThreadAllocatedMemorySupported()) {
+                if (!candidate.isThreadAllocatedMemoryEnabled())
+                    candidate.setThreadAllocatedMemoryEnabled(true);
+                sun = candidate;
+            }
+            this.allocations = sun;
+        }
+
+        long cpuNanos() {
+            return cpuSupported ? threads.getCurrentThreadCpuTime() : -1;
+        }
+
+        long allocatedBytes() {
+            return allocations != null ? allocations.getCurrentThreadAllocatedBytes() : -1;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.codemap.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event for one {@link MetricsRecorder} phase, such as a
+ * graph-build pass. Duration is the phase's wall time.
+ */
+@Name("com.codemap.Phase")
+@Label("Analysis Phase")
+@Category({ "CodeMap", "Engine" })
+@StackTrace(false)
+public class PhaseEvent extends Event {
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long cpuTime;
+
+    @Label("Allocated")
+    @DataAmount
+    public long allocated;
+
+    @Label("Counts")
+    public String counts;
+}
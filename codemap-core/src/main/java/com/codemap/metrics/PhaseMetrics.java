@@ -0,0 +1,55 @@
+package com.codemap.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measurements of one completed analysis phase: elapsed wall time, CPU time
+ * and heap allocation of the threads that did the work, plus phase-specific
+ * counts such as files, nodes or edges.
+ *
+ * CPU time and allocation are -1 when the JVM cannot measure them.
+ */
+public final class PhaseMetrics {
+
+    private final String name;
+    private final long wallNanos;
+    private final long cpuNanos;
+    private final long allocatedBytes;
+    private final Map<String, Long> counts;
+
+    PhaseMetrics(String name, long wallNanos, long cpuNanos, long allocatedBytes, Map<String, Long> counts) {
+        this.name = name;
+        this.wallNanos = wallNanos;
+        this.cpuNanos = cpuNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.counts = Collections.unmodifiableMap(new LinkedHashMap<>(counts));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public Map<String, Long> getCounts() {
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %.1fms wall, %.1fms cpu, %d bytes %s",
+                name, wallNanos / 1e6, cpuNanos / 1e6, allocatedBytes, counts);
+    }
+}
@@ -0,0 +1,29 @@
+package com.codemap.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event for one engine command run against the analyzed
+ * graph.
+ */
+@Name("com.codemap.Query")
+@Label("Query")
+@Category({ "CodeMap", "Engine" })
+@StackTrace(false)
+public class QueryEvent extends Event {
+
+    @Label("Command")
+    public String command;
+
+    @Label("Target")
+    public String target;
+
+    @Label("Depth")
+    public int depth;
+
+    @Label("Result Nodes")
+    public int nodeCount;
+
+    @Label("Result Edges")
+    public int edgeCount;
+}
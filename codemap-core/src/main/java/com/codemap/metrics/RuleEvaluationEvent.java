@@ -0,0 +1,22 @@
+package com.codemap.metrics;
+
+import jdk.jfr.*;
+
+/**
+ * Flight Recorder event for one architecture rule evaluated against a graph.
+ */
+@Name("com.codemap.RuleEvaluation")
+@Label("Rule Evaluation")
+@Category({ "CodeMap", "Rules" })
+@StackTrace(false)
+public class RuleEvaluationEvent extends Event {
+
+    @Label("Rule")
+    public String rule;
+
+    @Label("Violations")
+    public int violationCount;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
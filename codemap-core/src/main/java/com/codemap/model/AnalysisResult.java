@@ -1,6 +1,12 @@
 package com.codemap.model;
 
+import com.codemap.metrics.PhaseMetrics;
+
 import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Wrapper for analysis results with metadata.
@@ -14,6 +20,9 @@ public class AnalysisResult {
     private final long analysisTimeMs;
     private final int totalClassesParsed;
     private final int totalMethodsParsed;
+    private final List<PhaseMetrics> metrics;
+    private final List<List<String>> paths;
+    private final Map<String, List<String>> attribution;
 
     private AnalysisResult(Builder builder) {
         this.graph = builder.graph;
@@ -23,6 +32,11 @@ public class AnalysisResult {
         this.analysisTimeMs = builder.analysisTimeMs;
         this.totalClassesParsed = builder.totalClassesParsed;
         this.totalMethodsParsed = builder.totalMethodsParsed;
+        this.metrics = builder.metrics != null ? List.copyOf(builder.metrics) : null;
+        this.paths = builder.paths != null ? List.copyOf(builder.paths) : null;
+        this.attribution = builder.attribution != null
+                ? Collections.unmodifiableMap(new LinkedHashMap<>(builder.attribution))
+                : null;
     }
 
     public CodeGraph getGraph() {
@@ -53,10 +67,51 @@ public class AnalysisResult {
         return totalMethodsParsed;
     }
 
+    /**
+     * Per-phase measurements, or null when the result was produced without
+     * profiling.
+     */
+    public List<PhaseMetrics> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * For path queries, the node IDs along each path found, shortest first;
+     * null for other commands.
+     */
+    public List<List<String>> getPaths() {
+        return paths;
+    }
+
+    /**
+     * For batch impact queries, the nodes each changed node affects, keyed
+     * by changed node in the order found; null for other commands.
+     */
+    public Map<String, List<String>> getAttribution() {
+        return attribution;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
 
+    /**
+     * A builder initialized with this result's values.
+     */
+    public Builder toBuilder() {
+        return new Builder()
+                .graph(graph)
+                .command(command)
+                .target(target)
+                .timestamp(timestamp)
+                .analysisTimeMs(analysisTimeMs)
+                .totalClassesParsed(totalClassesParsed)
+                .totalMethodsParsed(totalMethodsParsed)
+                .metrics(metrics)
+                .paths(paths)
+                .attribution(attribution);
+    }
+
     public static class Builder {
         private CodeGraph graph;
         private String command;
@@ -65,6 +120,9 @@ public class AnalysisResult {
         private long analysisTimeMs;
         private int totalClassesParsed;
         private int totalMethodsParsed;
+        private List<PhaseMetrics> metrics;
+        private List<List<String>> paths;
+        private Map<String, List<String>> attribution;
 
         public Builder graph(CodeGraph graph) {
             this.graph = graph;
@@ -101,6 +159,21 @@ public class AnalysisResult {
             return this;
         }
 
+        public Builder metrics(List<PhaseMetrics> metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public Builder paths(List<List<String>> paths) {
+            this.paths = paths;
+            return this;
+        }
+
+        public Builder attribution(Map<String, List<String>> attribution) {
+            this.attribution = attribution;
+            return this;
+        }
+
         public AnalysisResult build() {
             java.util.Objects.requireNonNull(graph, "Graph is required");
             return new AnalysisResult(this);
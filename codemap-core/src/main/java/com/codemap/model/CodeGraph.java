@@ -1,35 +1,152 @@
 package com.codemap.model;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 /**
  * Container for the complete code graph — all nodes and edges.
- * Provides index-based lookups and subgraph extraction.
+ * Provides index-based lookups and subgraph extraction. Adjacency is held in
+ * a compact integer-indexed {@link GraphIndex}, which traversal code can use
+ * directly.
  */
 public class CodeGraph {
 
     private final List<GraphNode> nodes;
     private final List<GraphEdge> edges;
-    private final Map<String, GraphNode> nodeIndex;
-    private final Map<String, List<GraphEdge>> outgoingEdges;
-    private final Map<String, List<GraphEdge>> incomingEdges;
+    private final GraphIndex index;
+    private final Map<NodeType, List<GraphNode>> nodesByType;
+    private final Map<EdgeType, List<GraphEdge>> edgesByType;
+    private volatile SymbolIndex symbolIndex;
 
     public CodeGraph(List<GraphNode> nodes, List<GraphEdge> edges) {
         this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
-        this.edges = Collections.unmodifiableList(new ArrayList<>(edges));
+        this.index = new GraphIndex(this.nodes, edges);
+        this.edges = index.edgeList();
+        // Type-partitioned views are built once; lookups by type are then O(1)
+        this.nodesByType = partition(this.nodes, NodeType.class, GraphNode::getType);
+        this.edgesByType = partition(this.edges, EdgeType.class, GraphEdge::getType);
+    }
+
+    /**
+     * A patched version of {@code base}; see {@link #patch}.
+     */
+    private CodeGraph(CodeGraph base, BitSet removedNodes, BitSet removedEdges,
+            List<GraphNode> addedNodes, List<GraphEdge> addedEdges) {
+        this.nodes = Collections.unmodifiableList(withoutPositions(base.nodes, removedNodes, addedNodes));
+        GraphIndex patched = base.index.patch(base.nodes, removedNodes, removedEdges, addedNodes, addedEdges);
+        // Reclaim the slots of removed IDs once they add up
+        this.index = patched.isSparse() ? new GraphIndex(this.nodes, patched.edgeList()) : patched;
+        this.edges = index.edgeList();
+        this.nodesByType = repartition(base.nodesByType, base.nodes, removedNodes, this.nodes, addedNodes.size(),
+                NodeType.class, GraphNode::getType);
+        this.edgesByType = repartition(base.edgesByType, base.edges, removedEdges, this.edges, addedEdges.size(),
+                EdgeType.class, GraphEdge::getType);
+    }
+
+    private static <T, K extends Enum<K>> Map<K, List<T>> partition(List<T> items, Class<K> keyType,
+            Function<T, K> key) {
+        K[] keys = keyType.getEnumConstants();
+        int[] counts = new int[keys.length];
+        for (T item : items) {
+            counts[key.apply(item).ordinal()]++;
+        }
+        int[][] positions = new int[keys.length][];
+        for (int k = 0; k < keys.length; k++) {
+            positions[k] = new int[counts[k]];
+        }
+        Arrays.fill(counts, 0);
+        for (int p = 0; p < items.size(); p++) {
+            int k = key.apply(items.get(p)).ordinal();
+            positions[k][counts[k]++] = p;
+        }
+        Map<K, List<T>> buckets = new EnumMap<>(keyType);
+        for (K k : keys) {
+            buckets.put(k, new Bucket<>(items, positions[k.ordinal()]));
+        }
+        return buckets;
+    }
+
+    /**
+     * Buckets of a patched list, derived from the base list's buckets: the
+     * surviving positions are shifted down past the removed ones and the
+     * positions of the added items appended.
+     */
+    private static <T, K extends Enum<K>> Map<K, List<T>> repartition(Map<K, List<T>> baseBuckets,
+            List<T> baseItems, BitSet removed, List<T> items, int addedCount, Class<K> keyType,
+            Function<T, K> key) {
+        K[] keys = keyType.getEnumConstants();
+        int[] counts = new int[keys.length];
+        for (int p = removed.nextSetBit(0); p >= 0; p = removed.nextSetBit(p + 1)) {
+            counts[key.apply(baseItems.get(p)).ordinal()]--;
+        }
+        for (int p = items.size() - addedCount; p < items.size(); p++) {
+            counts[key.apply(items.get(p)).ordinal()]++;
+        }
 
-        this.nodeIndex = new HashMap<>();
-        for (GraphNode node : nodes) {
-            nodeIndex.put(node.getId(), node);
+        int[][] positions = new int[keys.length][];
+        for (K k : keys) {
+            int[] base = ((Bucket<T>) baseBuckets.get(k)).positions;
+            int[] patched = new int[base.length + counts[k.ordinal()]];
+            int n = 0;
+            int shift = 0;
+            int nextRemoved = removed.nextSetBit(0);
+            for (int p : base) {
+                while (nextRemoved >= 0 && nextRemoved < p) {
+                    shift++;
+                    nextRemoved = removed.nextSetBit(nextRemoved + 1);
+                }
+                if (p != nextRemoved)
+                    patched[n++] = p - shift;
+            }
+            positions[k.ordinal()] = patched;
+            counts[k.ordinal()] = n;
+        }
+        for (int p = items.size() - addedCount; p < items.size(); p++) {
+            int k = key.apply(items.get(p)).ordinal();
+            positions[k][counts[k]++] = p;
         }
 
-        this.outgoingEdges = new HashMap<>();
-        this.incomingEdges = new HashMap<>();
-        for (GraphEdge edge : edges) {
-            outgoingEdges.computeIfAbsent(edge.getSourceId(), k -> new ArrayList<>()).add(edge);
-            incomingEdges.computeIfAbsent(edge.getTargetId(), k -> new ArrayList<>()).add(edge);
+        Map<K, List<T>> buckets = new EnumMap<>(keyType);
+        for (K k : keys) {
+            buckets.put(k, new Bucket<>(items, positions[k.ordinal()]));
         }
+        return buckets;
+    }
+
+    private static <T> List<T> withoutPositions(List<T> items, BitSet removed, List<T> added) {
+        List<T> result = new ArrayList<>(items.size() - removed.cardinality() + added.size());
+        for (int from = 0; from < items.size(); ) {
+            int to = removed.nextSetBit(from);
+            if (to < 0)
+                to = items.size();
+            result.addAll(items.subList(from, to));
+            from = to + 1;
+        }
+        result.addAll(added);
+        return result;
+    }
+
+    /**
+     * A new version of this graph without the given node and edge instances
+     * and with the added ones appended. Surviving nodes and edges keep their
+     * order, and the new version's index is patched from this one's instead
+     * of being rebuilt, so the cost is dominated by copying arrays rather
+     * than hashing IDs. This graph is not modified; it is returned as is if
+     * there is nothing to change.
+     *
+     * Removing a node does not remove its edges; callers remove them
+     * explicitly.
+     *
+     * @throws IllegalArgumentException if a removed node or edge is not part
+     *                                  of this graph
+     */
+    public CodeGraph patch(Collection<GraphNode> removedNodes, Collection<GraphEdge> removedEdges,
+            List<GraphNode> addedNodes, List<GraphEdge> addedEdges) {
+        if (removedNodes.isEmpty() && removedEdges.isEmpty() && addedNodes.isEmpty() && addedEdges.isEmpty())
+            return this;
+        BitSet nodePositions = index.nodePositions(nodes, removedNodes);
+        BitSet edgePositions = index.edgePositions(removedEdges);
+        return new CodeGraph(this, nodePositions, edgePositions, addedNodes, addedEdges);
     }
 
     public List<GraphNode> getNodes() {
@@ -40,37 +157,116 @@ public class CodeGraph {
         return edges;
     }
 
+    /**
+     * Integer-indexed adjacency of this graph.
+     */
+    public GraphIndex index() {
+        return index;
+    }
+
+    /**
+     * Name lookup index over type and method nodes, built on first use.
+     */
+    public SymbolIndex symbols() {
+        SymbolIndex symbols = symbolIndex;
+        if (symbols == null) {
+            synchronized (this) {
+                symbols = symbolIndex;
+                if (symbols == null) {
+                    symbols = new SymbolIndex(this);
+                    symbolIndex = symbols;
+                }
+            }
+        }
+        return symbols;
+    }
+
     public Optional<GraphNode> getNode(String id) {
-        return Optional.ofNullable(nodeIndex.get(id));
+        int i = index.indexOf(id);
+        return i < 0 ? Optional.empty() : Optional.ofNullable(index.nodeAt(i));
     }
 
+    /**
+     * All nodes of the given type, in graph order. The returned list is an
+     * immutable view shared between calls.
+     */
     public List<GraphNode> getNodesByType(NodeType type) {
-        return nodes.stream().filter(n -> n.getType() == type).collect(Collectors.toList());
+        return nodesByType.get(type);
     }
 
     public List<GraphEdge> getOutgoingEdges(String nodeId) {
-        return outgoingEdges.getOrDefault(nodeId, Collections.emptyList());
+        int i = index.indexOf(nodeId);
+        return i < 0 ? Collections.emptyList() : index.outgoingView(i);
     }
 
     public List<GraphEdge> getIncomingEdges(String nodeId) {
-        return incomingEdges.getOrDefault(nodeId, Collections.emptyList());
+        int i = index.indexOf(nodeId);
+        return i < 0 ? Collections.emptyList() : index.incomingView(i);
     }
 
+    /**
+     * Number of edges of the given type leaving or entering a node, or 0 if
+     * the ID is unknown. Counts come from primitive arrays kept by the
+     * {@link GraphIndex}, so metric-style rules can sweep all nodes without
+     * allocating.
+     */
+    public int degree(String nodeId, EdgeType type, Direction direction) {
+        int i = index.indexOf(nodeId);
+        return i < 0 ? 0 : index.degree(i, type, direction);
+    }
+
+    /**
+     * All edges of the given type, in graph order. The returned list is an
+     * immutable view shared between calls.
+     */
     public List<GraphEdge> getEdgesByType(EdgeType type) {
-        return edges.stream().filter(e -> e.getType() == type).collect(Collectors.toList());
+        return edgesByType.get(type);
     }
 
     /**
      * Extract a subgraph containing only the specified node IDs and edges between
      * them.
+     *
+     * Only the outgoing adjacency of the requested nodes is walked, so the
+     * cost depends on the size of the selection rather than of the graph.
+     * Nodes come in index order, which is graph order for a graph that has
+     * not been patched; edges keep graph order. IDs without a node (dangling
+     * edge endpoints) select no node but keep the edges that reach them.
      */
     public CodeGraph subgraph(Set<String> nodeIds) {
-        List<GraphNode> subNodes = nodes.stream()
-                .filter(n -> nodeIds.contains(n.getId()))
-                .collect(Collectors.toList());
-        List<GraphEdge> subEdges = edges.stream()
-                .filter(e -> nodeIds.contains(e.getSourceId()) && nodeIds.contains(e.getTargetId()))
-                .collect(Collectors.toList());
+        int[] slots = new int[nodeIds.size()];
+        int slotCount = 0;
+        for (String id : nodeIds) {
+            int slot = index.indexOf(id);
+            if (slot >= 0)
+                slots[slotCount++] = slot;
+        }
+        Arrays.sort(slots, 0, slotCount);
+
+        List<GraphNode> subNodes = new ArrayList<>(slotCount);
+        int[] edgePositions = new int[16];
+        int edgeCount = 0;
+        for (int k = 0; k < slotCount; k++) {
+            int slot = slots[k];
+            GraphNode node = index.nodeAt(slot);
+            if (node != null)
+                subNodes.add(node);
+            for (int pos = index.outStart(slot); pos < index.outEnd(slot); pos++) {
+                int edge = index.outEdgeAt(pos);
+                if (!nodeIds.contains(index.idAt(index.edgeTarget(edge))))
+                    continue;
+                if (edgeCount == edgePositions.length)
+                    edgePositions = Arrays.copyOf(edgePositions, edgeCount * 2);
+                edgePositions[edgeCount++] = edge;
+            }
+        }
+
+        // Edge indexes are positions in the edge list, so sorting restores graph order
+        Arrays.sort(edgePositions, 0, edgeCount);
+        List<GraphEdge> subEdges = new ArrayList<>(edgeCount);
+        for (int e = 0; e < edgeCount; e++) {
+            subEdges.add(index.edgeAt(edgePositions[e]));
+        }
         return new CodeGraph(subNodes, subEdges);
     }
 
@@ -86,4 +282,29 @@ public class CodeGraph {
     public String toString() {
         return String.format("CodeGraph{nodes=%d, edges=%d}", nodes.size(), edges.size());
     }
+
+    /**
+     * Read-only view of the items of one type, by position in the graph's
+     * node or edge list.
+     */
+    private static final class Bucket<T> extends AbstractList<T> implements RandomAccess {
+        private final List<T> items;
+        private final int[] positions;
+
+        Bucket(List<T> items, int[] positions) {
+            this.items = items;
+            this.positions = positions;
+        }
+
+        @Override
+        public T get(int i) {
+            Objects.checkIndex(i, positions.length);
+            return items.get(positions[i]);
+        }
+
+        @Override
+        public int size() {
+            return positions.length;
+        }
+    }
 }
@@ -0,0 +1,11 @@
+package com.codemap.model;
+
+/**
+ * Direction of the edges counted or followed at a node.
+ */
+public enum Direction {
+    /** Edges whose source is the node */
+    OUTGOING,
+    /** Edges whose target is the node */
+    INCOMING
+}
@@ -0,0 +1,195 @@
+package com.codemap.model;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * The difference between two versions of a {@link CodeGraph}, as produced by
+ * an incremental update: the new graph plus the IDs of nodes and edges that
+ * were added, removed, or replaced with different content.
+ */
+public final class GraphDelta {
+
+    private final CodeGraph graph;
+    private final Changes nodes;
+    private final Changes edges;
+    private final List<String> addedNodes;
+    private final List<String> removedNodes;
+    private final List<String> changedNodes;
+    private final List<String> addedEdges;
+    private final List<String> removedEdges;
+    private final List<String> changedEdges;
+
+    private GraphDelta(CodeGraph graph, Changes nodes, Changes edges) {
+        this.graph = graph;
+        this.nodes = nodes;
+        this.edges = edges;
+        this.addedNodes = Collections.unmodifiableList(nodes.added);
+        this.removedNodes = Collections.unmodifiableList(nodes.removed);
+        this.changedNodes = Collections.unmodifiableList(nodes.changed);
+        this.addedEdges = Collections.unmodifiableList(edges.added);
+        this.removedEdges = Collections.unmodifiableList(edges.removed);
+        this.changedEdges = Collections.unmodifiableList(edges.changed);
+    }
+
+    /**
+     * Patch {@code graph} and describe the change. An ID that is both removed
+     * and added counts as changed.
+     *
+     * @see CodeGraph#patch(Collection, Collection, List, List)
+     */
+    public static GraphDelta apply(CodeGraph graph, Collection<GraphNode> removedNodes,
+            Collection<GraphEdge> removedEdges, List<GraphNode> addedNodes, List<GraphEdge> addedEdges) {
+        CodeGraph patched = graph.patch(removedNodes, removedEdges, addedNodes, addedEdges);
+        return new GraphDelta(patched,
+                Changes.of(ids(removedNodes, GraphNode::getId), ids(addedNodes, GraphNode::getId)),
+                Changes.of(ids(removedEdges, GraphEdge::getId), ids(addedEdges, GraphEdge::getId)));
+    }
+
+    /**
+     * Compare two independently built graphs by ID and content.
+     */
+    public static GraphDelta diff(CodeGraph before, CodeGraph after) {
+        Map<String, GraphNode> oldNodes = new HashMap<>();
+        before.getNodes().forEach(n -> oldNodes.put(n.getId(), n));
+        Map<String, GraphNode> newNodes = new HashMap<>();
+        after.getNodes().forEach(n -> newNodes.put(n.getId(), n));
+        Map<String, GraphEdge> oldEdges = new HashMap<>();
+        before.getEdges().forEach(e -> oldEdges.put(e.getId(), e));
+        Map<String, GraphEdge> newEdges = new HashMap<>();
+        after.getEdges().forEach(e -> newEdges.put(e.getId(), e));
+
+        return new GraphDelta(after,
+                Changes.diff(oldNodes, newNodes, GraphNode::contentEquals),
+                Changes.diff(oldEdges, newEdges, GraphEdge::contentEquals));
+    }
+
+    /**
+     * The net effect of this change followed by {@code next}, which must
+     * start from this change's graph. An ID added and then removed drops
+     * out; one removed and then added counts as changed.
+     */
+    public GraphDelta andThen(GraphDelta next) {
+        return new GraphDelta(next.graph, Changes.compose(nodes, next.nodes), Changes.compose(edges, next.edges));
+    }
+
+    private static <T> Set<String> ids(Collection<T> items, Function<T, String> id) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (T item : items) {
+            ids.add(id.apply(item));
+        }
+        return ids;
+    }
+
+    /** The graph after the change. */
+    public CodeGraph getGraph() {
+        return graph;
+    }
+
+    public List<String> getAddedNodes() {
+        return addedNodes;
+    }
+
+    public List<String> getRemovedNodes() {
+        return removedNodes;
+    }
+
+    /** Nodes present before and after whose content differs. */
+    public List<String> getChangedNodes() {
+        return changedNodes;
+    }
+
+    public List<String> getAddedEdges() {
+        return addedEdges;
+    }
+
+    public List<String> getRemovedEdges() {
+        return removedEdges;
+    }
+
+    /** Edges present before and after whose content differs. */
+    public List<String> getChangedEdges() {
+        return changedEdges;
+    }
+
+    public boolean isEmpty() {
+        return addedNodes.isEmpty() && removedNodes.isEmpty() && changedNodes.isEmpty()
+                && addedEdges.isEmpty() && removedEdges.isEmpty() && changedEdges.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GraphDelta{nodes +%d -%d ~%d, edges +%d -%d ~%d}",
+                addedNodes.size(), removedNodes.size(), changedNodes.size(),
+                addedEdges.size(), removedEdges.size(), changedEdges.size());
+    }
+
+    private static final class Changes {
+        final List<String> added = new ArrayList<>();
+        final List<String> removed = new ArrayList<>();
+        final List<String> changed = new ArrayList<>();
+
+        private enum Kind {
+            ADDED, REMOVED, CHANGED;
+
+            /** The net kind of this change followed by {@code next}, or null if they cancel out. */
+            Kind then(Kind next) {
+                switch (this) {
+                    case ADDED:
+                        return next == REMOVED ? null : ADDED;
+                    case REMOVED:
+                        return next == ADDED ? CHANGED : next;
+                    default:
+                        return next == REMOVED ? REMOVED : CHANGED;
+                }
+            }
+        }
+
+        static Changes compose(Changes first, Changes second) {
+            Map<String, Kind> kinds = new LinkedHashMap<>();
+            first.forEach(kinds::put);
+            second.forEach((id, kind) -> kinds.merge(id, kind, Kind::then));
+            Changes changes = new Changes();
+            kinds.forEach((id, kind) -> (kind == Kind.ADDED ? changes.added
+                    : kind == Kind.REMOVED ? changes.removed : changes.changed).add(id));
+            return changes;
+        }
+
+        private void forEach(BiConsumer<String, Kind> action) {
+            added.forEach(id -> action.accept(id, Kind.ADDED));
+            removed.forEach(id -> action.accept(id, Kind.REMOVED));
+            changed.forEach(id -> action.accept(id, Kind.CHANGED));
+        }
+
+        static Changes of(Set<String> removedIds, Set<String> addedIds) {
+            Changes changes = new Changes();
+            for (String id : removedIds) {
+                (addedIds.contains(id) ? changes.changed : changes.removed).add(id);
+            }
+            for (String id : addedIds) {
+                if (!removedIds.contains(id))
+                    changes.added.add(id);
+            }
+            return changes;
+        }
+
+        static <T> Changes diff(Map<String, T> before, Map<String, T> after,
+                BiPredicate<T, T> sameContent) {
+            Changes changes = new Changes();
+            before.forEach((id, old) -> {
+                T current = after.get(id);
+                if (current == null)
+                    changes.removed.add(id);
+                else if (!sameContent.test(old, current))
+                    changes.changed.add(id);
+            });
+            after.keySet().forEach(id -> {
+                if (!before.containsKey(id))
+                    changes.added.add(id);
+            });
+            return changes;
+        }
+    }
+}
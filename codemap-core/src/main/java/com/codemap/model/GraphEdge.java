@@ -41,6 +41,17 @@ public class GraphEdge {
         return metadata;
     }
 
+    /**
+     * Whether every field matches; {@link #equals(Object)} compares IDs only.
+     */
+    public boolean contentEquals(GraphEdge other) {
+        return Objects.equals(id, other.id)
+                && Objects.equals(sourceId, other.sourceId)
+                && Objects.equals(targetId, other.targetId)
+                && type == other.type
+                && Objects.equals(metadata, other.metadata);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
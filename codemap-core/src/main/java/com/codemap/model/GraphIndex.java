@@ -0,0 +1,652 @@
+package com.codemap.model;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Compact, integer-indexed adjacency for a {@link CodeGraph}.
+ *
+ * Every distinct node ID gets a dense int index. Edges keep their position in
+ * {@link CodeGraph#getEdges()} as their int index, and are stored in
+ * compressed-sparse-row form for both directions: {@code outOffsets[n]} to
+ * {@code outOffsets[n + 1]} delimit the slice of {@code outEdges} holding the
+ * edge indexes leaving node {@code n} (likewise for incoming edges). Edge
+ * endpoints and types live in parallel primitive arrays, so traversals can
+ * run without touching {@link GraphEdge} objects or hashing strings.
+ *
+ * Edge endpoints that do not correspond to a node are still indexed so their
+ * adjacency stays reachable; {@link #nodeAt(int)} returns null for them.
+ *
+ * A patched index ({@link #patch}) keeps the slots of its base: the ID table
+ * is shared, new IDs go into a small per-version overlay, and the slots of
+ * removed nodes stay allocated with no node and no edges. Once such dead
+ * slots make up a sizeable part of the index, {@link CodeGraph} re-indexes
+ * from scratch, so a long series of patches does not grow it without bound.
+ */
+public final class GraphIndex {
+
+    private static final EdgeType[] EDGE_TYPES = EdgeType.values();
+
+    /** ID table shared by an index and all versions patched from it; never modified once built */
+    private final Map<String, Integer> baseIds;
+    /** IDs interned by patches since {@code baseIds} was built */
+    private final Map<String, Integer> addedIds;
+    private final String[] ids;
+    private final GraphNode[] nodesByIndex;
+    /** Slot of each node, by position in the node list */
+    private final int[] nodeSlots;
+    private final GraphEdge[] edges;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+    private final byte[] edgeTypes;
+    private final int[] outOffsets;
+    private final int[] outEdges;
+    private final int[] inOffsets;
+    private final int[] inEdges;
+    /** Slots with no node and no edges, left behind by patches */
+    private final int deadSlots;
+    /** Per-node edge counts by direction and type, each built on first use */
+    private final AtomicReferenceArray<int[]> degrees = new AtomicReferenceArray<>(2 * EDGE_TYPES.length);
+
+    GraphIndex(List<GraphNode> nodes, List<GraphEdge> edgeList) {
+        Map<String, Integer> indexById = new HashMap<>(Math.max(16, nodes.size() * 2));
+        List<String> idList = new ArrayList<>(nodes.size());
+        this.nodeSlots = new int[nodes.size()];
+        for (int i = 0; i < nodeSlots.length; i++) {
+            nodeSlots[i] = intern(nodes.get(i).getId(), indexById, idList);
+        }
+
+        this.edges = edgeList.toArray(new GraphEdge[0]);
+        this.edgeSources = new int[edges.length];
+        this.edgeTargets = new int[edges.length];
+        this.edgeTypes = new byte[edges.length];
+        for (int e = 0; e < edges.length; e++) {
+            GraphEdge edge = edges[e];
+            edgeSources[e] = intern(edge.getSourceId(), indexById, idList);
+            edgeTargets[e] = intern(edge.getTargetId(), indexById, idList);
+            edgeTypes[e] = (byte) edge.getType().ordinal();
+        }
+
+        this.baseIds = indexById;
+        this.addedIds = Map.of();
+        this.ids = idList.toArray(new String[0]);
+        this.nodesByIndex = new GraphNode[ids.length];
+        for (int i = 0; i < nodeSlots.length; i++) {
+            // Last node wins for duplicate IDs, matching CodeGraph#getNode
+            nodesByIndex[nodeSlots[i]] = nodes.get(i);
+        }
+
+        this.outOffsets = new int[ids.length + 1];
+        this.outEdges = new int[edges.length];
+        buildCsr(edgeSources, outOffsets, outEdges);
+
+        this.inOffsets = new int[ids.length + 1];
+        this.inEdges = new int[edges.length];
+        buildCsr(edgeTargets, inOffsets, inEdges);
+        this.deadSlots = 0;
+    }
+
+    /**
+     * Index of a patched graph: the base's nodes and edges without the
+     * removed positions, in their original order, followed by the added ones.
+     */
+    private GraphIndex(GraphIndex base, List<GraphNode> baseNodes, BitSet removedNodes, BitSet removedEdges,
+            List<GraphNode> addedNodes, List<GraphEdge> addedEdges) {
+        Interner interner = new Interner(base);
+
+        // Node slots, by position in the patched node list
+        this.nodeSlots = new int[baseNodes.size() - removedNodes.cardinality() + addedNodes.size()];
+        int n = 0;
+        for (int p = 0; p < baseNodes.size(); p++) {
+            if (!removedNodes.get(p))
+                nodeSlots[n++] = base.nodeSlots[p];
+        }
+        for (GraphNode node : addedNodes) {
+            nodeSlots[n++] = interner.intern(node.getId());
+        }
+
+        // Edges: compact the surviving runs, then append
+        int edgeCount = base.edges.length - removedEdges.cardinality() + addedEdges.size();
+        this.edges = new GraphEdge[edgeCount];
+        this.edgeSources = new int[edgeCount];
+        this.edgeTargets = new int[edgeCount];
+        this.edgeTypes = new byte[edgeCount];
+        int e = 0;
+        for (int from = 0; from < base.edges.length; ) {
+            int removed = removedEdges.nextSetBit(from);
+            int to = removed < 0 ? base.edges.length : removed;
+            System.arraycopy(base.edges, from, edges, e, to - from);
+            System.arraycopy(base.edgeSources, from, edgeSources, e, to - from);
+            System.arraycopy(base.edgeTargets, from, edgeTargets, e, to - from);
+            System.arraycopy(base.edgeTypes, from, edgeTypes, e, to - from);
+            e += to - from;
+            from = to + 1;
+        }
+        for (GraphEdge edge : addedEdges) {
+            edges[e] = edge;
+            edgeSources[e] = interner.intern(edge.getSourceId());
+            edgeTargets[e] = interner.intern(edge.getTargetId());
+            edgeTypes[e] = (byte) edge.getType().ordinal();
+            e++;
+        }
+
+        this.ids = Arrays.copyOf(base.ids, base.ids.length + interner.newIds.size());
+        for (int i = 0; i < interner.newIds.size(); i++) {
+            ids[base.ids.length + i] = interner.newIds.get(i);
+        }
+
+        // Clear the slots of removed nodes, then let the surviving nodes on
+        // those slots and the added nodes claim them again (last wins)
+        this.nodesByIndex = Arrays.copyOf(base.nodesByIndex, ids.length);
+        BitSet cleared = new BitSet();
+        for (int p = removedNodes.nextSetBit(0); p >= 0; p = removedNodes.nextSetBit(p + 1)) {
+            nodesByIndex[base.nodeSlots[p]] = null;
+            cleared.set(base.nodeSlots[p]);
+        }
+        if (!cleared.isEmpty()) {
+            for (int p = 0; p < baseNodes.size(); p++) {
+                if (!removedNodes.get(p) && cleared.get(base.nodeSlots[p]))
+                    nodesByIndex[base.nodeSlots[p]] = baseNodes.get(p);
+            }
+        }
+        for (int i = 0; i < addedNodes.size(); i++) {
+            nodesByIndex[nodeSlots[nodeSlots.length - addedNodes.size() + i]] = addedNodes.get(i);
+        }
+
+        // Fold the overlay into a new shared table once it stops being small
+        if (interner.overlay.size() > 256 + base.baseIds.size() / 32) {
+            Map<String, Integer> merged = new HashMap<>(base.baseIds);
+            merged.putAll(interner.overlay);
+            this.baseIds = merged;
+            this.addedIds = Map.of();
+        } else {
+            this.baseIds = base.baseIds;
+            this.addedIds = interner.overlay;
+        }
+
+        // Renumber the base's CSR slices instead of sorting all edges again
+        int[] removed = removedEdges.stream().toArray();
+        int addedFrom = edgeCount - addedEdges.size();
+        this.outOffsets = new int[ids.length + 1];
+        this.outEdges = new int[edges.length];
+        patchCsr(base.outOffsets, base.outEdges, removed, edgeSources, addedFrom, outOffsets, outEdges);
+
+        this.inOffsets = new int[ids.length + 1];
+        this.inEdges = new int[edges.length];
+        patchCsr(base.inOffsets, base.inEdges, removed, edgeTargets, addedFrom, inOffsets, inEdges);
+
+        int dead = 0;
+        for (int slot = 0; slot < ids.length; slot++) {
+            if (nodesByIndex[slot] == null && outOffsets[slot] == outOffsets[slot + 1]
+                    && inOffsets[slot] == inOffsets[slot + 1])
+                dead++;
+        }
+        this.deadSlots = dead;
+    }
+
+    /**
+     * Whether so many slots are dead that the index should be rebuilt rather
+     * than patched further.
+     */
+    boolean isSparse() {
+        return deadSlots > 1024 + ids.length / 4;
+    }
+
+    /**
+     * Index for {@code baseNodes} (this index's node list) and this index's
+     * edges, without the nodes and edges at the removed positions and with
+     * the added ones appended.
+     */
+    GraphIndex patch(List<GraphNode> baseNodes, BitSet removedNodes, BitSet removedEdges,
+            List<GraphNode> addedNodes, List<GraphEdge> addedEdges) {
+        return new GraphIndex(this, baseNodes, removedNodes, removedEdges, addedNodes, addedEdges);
+    }
+
+    /**
+     * Positions in {@code nodeList} (this index's node list) of the given
+     * node instances.
+     *
+     * @throws IllegalArgumentException if a node is not in the list
+     */
+    BitSet nodePositions(List<GraphNode> nodeList, Collection<GraphNode> nodes) {
+        BitSet positions = new BitSet(nodeList.size());
+        if (nodes.isEmpty())
+            return positions;
+        Set<GraphNode> wanted = Collections.newSetFromMap(new IdentityHashMap<>());
+        BitSet candidateSlots = new BitSet(ids.length);
+        for (GraphNode node : nodes) {
+            int slot = indexOf(node.getId());
+            if (slot < 0)
+                throw new IllegalArgumentException("Node is not in the graph: " + node.getId());
+            wanted.add(node);
+            candidateSlots.set(slot);
+        }
+        for (int p = 0; p < nodeSlots.length; p++) {
+            if (candidateSlots.get(nodeSlots[p]) && wanted.contains(nodeList.get(p)))
+                positions.set(p);
+        }
+        if (positions.cardinality() != wanted.size())
+            throw new IllegalArgumentException("Some nodes are not in the graph");
+        return positions;
+    }
+
+    /**
+     * Positions of the given edge instances in this index's edge order.
+     *
+     * @throws IllegalArgumentException if an edge is not in the graph
+     */
+    BitSet edgePositions(Collection<GraphEdge> removed) {
+        BitSet positions = new BitSet(edges.length);
+        for (GraphEdge edge : removed) {
+            int source = indexOf(edge.getSourceId());
+            int found = -1;
+            if (source >= 0) {
+                for (int i = outOffsets[source]; i < outOffsets[source + 1]; i++) {
+                    if (edges[outEdges[i]] == edge && !positions.get(outEdges[i])) {
+                        found = outEdges[i];
+                        break;
+                    }
+                }
+            }
+            if (found < 0)
+                throw new IllegalArgumentException("Edge is not in the graph: " + edge.getId());
+            positions.set(found);
+        }
+        return positions;
+    }
+
+    /**
+     * Assigns slots to IDs first seen while patching: after the base's slots,
+     * recorded in a copy of the base's overlay, made when the first new ID
+     * turns up.
+     */
+    private static final class Interner {
+        final GraphIndex base;
+        Map<String, Integer> overlay;
+        final List<String> newIds = new ArrayList<>();
+
+        Interner(GraphIndex base) {
+            this.base = base;
+            this.overlay = base.addedIds;
+        }
+
+        int intern(String id) {
+            int existing = base.indexOf(id);
+            if (existing >= 0)
+                return existing;
+            if (newIds.isEmpty()) {
+                // The base's overlay already missed; copy it to add to
+                overlay = new HashMap<>(base.addedIds);
+            } else {
+                Integer added = overlay.get(id);
+                if (added != null)
+                    return added;
+            }
+            int slot = base.ids.length + newIds.size();
+            overlay.put(id, slot);
+            newIds.add(id);
+            return slot;
+        }
+    }
+
+    private static int intern(String id, Map<String, Integer> indexById, List<String> idList) {
+        Integer existing = indexById.get(id);
+        if (existing != null)
+            return existing;
+        int index = idList.size();
+        indexById.put(id, index);
+        idList.add(id);
+        return index;
+    }
+
+    /**
+     * CSR of a patched index from the base's: each slot's base slice without
+     * the removed edges, renumbered, followed by its added edges. Added edges
+     * have the highest indexes, so slices stay in edge order as with
+     * {@link #buildCsr}.
+     *
+     * @param removed   sorted base indexes of the removed edges
+     * @param endpoints endpoint slot of each patched edge
+     * @param addedFrom patched index of the first added edge
+     */
+    private static void patchCsr(int[] baseOffsets, int[] baseSorted, int[] removed, int[] endpoints,
+            int addedFrom, int[] offsets, int[] sorted) {
+        // Added edges ordered by endpoint, then index
+        Integer[] added = new Integer[endpoints.length - addedFrom];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = addedFrom + i;
+        }
+        Arrays.sort(added, Comparator.comparingInt((Integer e) -> endpoints[e]).thenComparingInt(e -> e));
+
+        int baseSlots = baseOffsets.length - 1;
+        int n = 0;
+        int a = 0;
+        for (int slot = 0; slot < offsets.length - 1; slot++) {
+            if (slot < baseSlots && baseOffsets[slot] < baseOffsets[slot + 1]) {
+                // Slices are in edge order, so the removed edges below each
+                // edge only ever grow within a slice
+                int r = Arrays.binarySearch(removed, baseSorted[baseOffsets[slot]]);
+                r = r < 0 ? -r - 1 : r;
+                for (int i = baseOffsets[slot]; i < baseOffsets[slot + 1]; i++) {
+                    int e = baseSorted[i];
+                    while (r < removed.length && removed[r] < e) {
+                        r++;
+                    }
+                    if (r == removed.length || removed[r] != e)
+                        sorted[n++] = e - r;
+                }
+            }
+            while (a < added.length && endpoints[added[a]] == slot) {
+                sorted[n++] = added[a++];
+            }
+            offsets[slot + 1] = n;
+        }
+    }
+
+    /**
+     * Counting sort of edge indexes by endpoint; stable, so each node's slice
+     * preserves the original edge order.
+     */
+    private static void buildCsr(int[] endpoints, int[] offsets, int[] sorted) {
+        for (int endpoint : endpoints) {
+            offsets[endpoint + 1]++;
+        }
+        for (int n = 0; n < offsets.length - 1; n++) {
+            offsets[n + 1] += offsets[n];
+        }
+        int[] cursor = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int e = 0; e < endpoints.length; e++) {
+            sorted[cursor[endpoints[e]]++] = e;
+        }
+    }
+
+    /**
+     * Number of indexed IDs (nodes plus dangling edge endpoints). A patched
+     * index keeps the slots of IDs that are no longer used; they have no node
+     * and no edges.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * @return the dense index of a node ID, or -1 if unknown
+     */
+    public int indexOf(String nodeId) {
+        Integer index = baseIds.get(nodeId);
+        if (index == null && !addedIds.isEmpty())
+            index = addedIds.get(nodeId);
+        return index != null ? index : -1;
+    }
+
+    public String idAt(int index) {
+        return ids[index];
+    }
+
+    /**
+     * @return the node at the index, or null for a dangling edge endpoint
+     */
+    public GraphNode nodeAt(int index) {
+        return nodesByIndex[index];
+    }
+
+    public GraphEdge edgeAt(int edge) {
+        return edges[edge];
+    }
+
+    public int edgeSource(int edge) {
+        return edgeSources[edge];
+    }
+
+    public int edgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public EdgeType edgeType(int edge) {
+        return EDGE_TYPES[edgeTypes[edge]];
+    }
+
+    /**
+     * @return true if the edge's type is contained in a mask built by
+     *         {@link #edgeTypeMask(Set)}
+     */
+    public boolean edgeMatches(int edge, int typeMask) {
+        return (typeMask & (1 << edgeTypes[edge])) != 0;
+    }
+
+    /**
+     * Start of a node's slice in the outgoing CSR array (inclusive).
+     */
+    public int outStart(int node) {
+        return outOffsets[node];
+    }
+
+    /**
+     * End of a node's slice in the outgoing CSR array (exclusive).
+     */
+    public int outEnd(int node) {
+        return outOffsets[node + 1];
+    }
+
+    /**
+     * Edge index stored at a position of the outgoing CSR array.
+     */
+    public int outEdgeAt(int position) {
+        return outEdges[position];
+    }
+
+    public int inStart(int node) {
+        return inOffsets[node];
+    }
+
+    public int inEnd(int node) {
+        return inOffsets[node + 1];
+    }
+
+    public int inEdgeAt(int position) {
+        return inEdges[position];
+    }
+
+    /**
+     * Number of edges of one type leaving or entering a node. The counts for
+     * a type and direction are built for all nodes in one pass over the
+     * edges the first time they are asked for, after which each lookup is an
+     * array read.
+     */
+    public int degree(int node, EdgeType type, Direction direction) {
+        int slot = direction.ordinal() * EDGE_TYPES.length + type.ordinal();
+        int[] counts = degrees.get(slot);
+        if (counts == null) {
+            // Concurrent first calls compute equal arrays; either may win
+            counts = countDegrees(type, direction == Direction.OUTGOING ? edgeSources : edgeTargets);
+            degrees.compareAndSet(slot, null, counts);
+        }
+        return counts[node];
+    }
+
+    private int[] countDegrees(EdgeType type, int[] endpoints) {
+        int[] counts = new int[ids.length];
+        byte ordinal = (byte) type.ordinal();
+        for (int e = 0; e < endpoints.length; e++) {
+            if (edgeTypes[e] == ordinal)
+                counts[endpoints[e]]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Tarjan's strongly connected components over edges of the given types.
+     * The search keeps an explicit call stack and primitive state, so it
+     * neither recurses nor boxes and handles arbitrarily deep chains.
+     * Components are numbered as they complete, so an edge between two
+     * components always leads to the lower number: every component is
+     * visited after the components it has edges to.
+     *
+     * @param typeMask   edge types to follow, from {@link #edgeTypeMask(Set)}
+     * @param roots      slots to search from, in order; the search does not
+     *                   leave them. Null for all slots
+     * @param components receives the component number of every slot, -1 for
+     *                   slots outside the roots, each set before its
+     *                   component is visited; may be null
+     * @param visitor    called as each component completes; may be null
+     * @return the number of components
+     */
+    public int stronglyConnectedComponents(int typeMask, int[] roots, int[] components, ComponentVisitor visitor) {
+        int n = ids.length;
+        int rootCount = roots != null ? roots.length : n;
+        BitSet allowed = null;
+        if (roots != null) {
+            allowed = new BitSet(n);
+            for (int root : roots) {
+                allowed.set(root);
+            }
+        }
+        if (components != null)
+            Arrays.fill(components, 0, n, -1);
+
+        // order[v] is v's 1-based discovery number, 0 while unvisited
+        int[] order = new int[n];
+        int[] lowLink = new int[n];
+        BitSet onStack = new BitSet(n);
+        int[] stack = new int[rootCount];
+        int stackSize = 0;
+        // Explicit call stack: node and next position in its outgoing CSR slice
+        int[] callNode = new int[rootCount];
+        int[] callPos = new int[rootCount];
+        int counter = 0;
+        int componentCount = 0;
+
+        for (int r = 0; r < rootCount; r++) {
+            int root = roots != null ? roots[r] : r;
+            if (order[root] != 0)
+                continue;
+            order[root] = lowLink[root] = ++counter;
+            stack[stackSize++] = root;
+            onStack.set(root);
+            callNode[0] = root;
+            callPos[0] = outOffsets[root];
+            int depth = 1;
+
+            while (depth > 0) {
+                int v = callNode[depth - 1];
+                int pos = callPos[depth - 1];
+                if (pos < outOffsets[v + 1]) {
+                    callPos[depth - 1] = pos + 1;
+                    int edge = outEdges[pos];
+                    if (!edgeMatches(edge, typeMask))
+                        continue;
+                    int w = edgeTargets[edge];
+                    if (allowed != null && !allowed.get(w))
+                        continue;
+                    if (order[w] == 0) {
+                        order[w] = lowLink[w] = ++counter;
+                        stack[stackSize++] = w;
+                        onStack.set(w);
+                        callNode[depth] = w;
+                        callPos[depth] = outOffsets[w];
+                        depth++;
+                    } else if (onStack.get(w)) {
+                        lowLink[v] = Math.min(lowLink[v], order[w]);
+                    }
+                    continue;
+                }
+
+                // All edges of v done: pop the frame, complete v's component if it is a root
+                depth--;
+                if (lowLink[v] == order[v]) {
+                    int start = stackSize - 1;
+                    while (stack[start] != v) {
+                        start--;
+                    }
+                    for (int i = start; i < stackSize; i++) {
+                        onStack.clear(stack[i]);
+                        if (components != null)
+                            components[stack[i]] = componentCount;
+                    }
+                    if (visitor != null)
+                        visitor.component(componentCount, stack, start, stackSize);
+                    componentCount++;
+                    stackSize = start;
+                }
+                if (depth > 0) {
+                    int parent = callNode[depth - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                }
+            }
+        }
+        return componentCount;
+    }
+
+    /**
+     * Receives the components found by {@link #stronglyConnectedComponents}.
+     */
+    @FunctionalInterface
+    public interface ComponentVisitor {
+
+        /**
+         * One completed component, whose slots are
+         * {@code members[from, to)} in discovery order. The array is the
+         * search's own stack and must not be modified.
+         */
+        void component(int component, int[] members, int from, int to);
+    }
+
+    /**
+     * Bit mask of edge types for {@link #edgeMatches(int, int)}; null or empty
+     * means all types.
+     */
+    public static int edgeTypeMask(Set<EdgeType> types) {
+        if (types == null || types.isEmpty())
+            return (1 << EDGE_TYPES.length) - 1;
+        int mask = 0;
+        for (EdgeType type : types) {
+            mask |= 1 << type.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * The indexed edges, in order, as a read-only list.
+     */
+    List<GraphEdge> edgeList() {
+        return Collections.unmodifiableList(Arrays.asList(edges));
+    }
+
+    List<GraphEdge> outgoingView(int node) {
+        return new EdgeSlice(outEdges, outOffsets[node], outOffsets[node + 1]);
+    }
+
+    List<GraphEdge> incomingView(int node) {
+        return new EdgeSlice(inEdges, inOffsets[node], inOffsets[node + 1]);
+    }
+
+    /**
+     * Read-only list view over a CSR slice.
+     */
+    private final class EdgeSlice extends AbstractList<GraphEdge> implements RandomAccess {
+        private final int[] slots;
+        private final int from;
+        private final int to;
+
+        EdgeSlice(int[] slots, int from, int to) {
+            this.slots = slots;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public GraphEdge get(int i) {
+            Objects.checkIndex(i, to - from);
+            return edges[slots[from + i]];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
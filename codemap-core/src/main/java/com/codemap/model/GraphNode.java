@@ -33,6 +33,19 @@ public class GraphNode {
     public int getLineNumber() { return lineNumber; }
     public Map<String, String> getMetadata() { return metadata; }
 
+    /**
+     * Whether every field matches; {@link #equals(Object)} compares IDs only.
+     */
+    public boolean contentEquals(GraphNode other) {
+        return Objects.equals(id, other.id)
+                && Objects.equals(name, other.name)
+                && Objects.equals(qualifiedName, other.qualifiedName)
+                && type == other.type
+                && Objects.equals(filePath, other.filePath)
+                && lineNumber == other.lineNumber
+                && Objects.equals(metadata, other.metadata);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -51,6 +64,17 @@ public class GraphNode {
 
     public static Builder builder() { return new Builder(); }
 
+    /**
+     * A builder initialized with this node's fields, for deriving a node
+     * with changed metadata.
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder().id(id).name(name).qualifiedName(qualifiedName).type(type)
+                .filePath(filePath).lineNumber(lineNumber);
+        builder.metadata.putAll(metadata);
+        return builder;
+    }
+
     public static class Builder {
         private String id;
         private String name;
@@ -0,0 +1,345 @@
+package com.codemap.model;
+
+import java.util.*;
+
+/**
+ * Precomputed reachability over edges of selected types, so that "does A
+ * reach B" and "what reaches B" need no traversal.
+ *
+ * Strongly connected components are collapsed first (Tarjan), since all
+ * members of a cycle reach the same nodes. The condensed graph is a DAG;
+ * its components are numbered in postorder of a depth-first search that
+ * follows edges backwards, so the components below one in the search tree
+ * occupy a contiguous range of numbers. The set of components reaching a
+ * component is then stored as a few intervals of postorder numbers: its own
+ * tree range merged with the intervals of the components it is entered from
+ * (Agrawal et al., "Efficient management of transitive relationships").
+ * Code graphs are tree-like enough that most sets need a handful of
+ * intervals, where a closure bitset per component would need one bit per
+ * component.
+ *
+ * A lookup checks the tree range, then binary-searches the intervals; the
+ * reaching nodes are enumerated by walking the intervals. The index is tied
+ * to one graph version: a patched graph needs a new index.
+ */
+public final class ReachabilityIndex {
+
+    private final CodeGraph graph;
+    private final int typeMask;
+    /** Component of every index slot */
+    private final int[] components;
+    /** Slots of each component: {@code members[memberOffsets[c], memberOffsets[c + 1])} */
+    private final int[] memberOffsets;
+    private final int[] members;
+    /** Postorder number of each component, and the smallest one in its search tree */
+    private final int[] post;
+    private final int[] low;
+    /** Component with each postorder number */
+    private final int[] byPost;
+    /** Slots in components numbered below each postorder number, for counting */
+    private final int[] slotsBefore;
+    /**
+     * Intervals of components reaching component {@code c}: pairs of
+     * inclusive bounds at {@code intervals[2 * intervalOffsets[c], 2 * intervalOffsets[c + 1])},
+     * sorted and disjoint
+     */
+    private final int[] intervalOffsets;
+    private final int[] intervals;
+    private final long buildNanos;
+
+    /**
+     * Build the index for the given graph.
+     *
+     * @param edgeTypes edge types that connect nodes (null/empty = all)
+     */
+    public ReachabilityIndex(CodeGraph graph, Set<EdgeType> edgeTypes) {
+        long start = System.nanoTime();
+        this.graph = graph;
+        this.typeMask = GraphIndex.edgeTypeMask(edgeTypes);
+        GraphIndex index = graph.index();
+        int n = index.size();
+
+        this.components = new int[n];
+        // Cycles collapse to one component; edges between components lead to lower numbers
+        int componentCount = index.stronglyConnectedComponents(typeMask, null, components, null);
+
+        this.memberOffsets = new int[componentCount + 1];
+        this.members = new int[n];
+        for (int v = 0; v < n; v++) {
+            memberOffsets[components[v] + 1]++;
+        }
+        for (int c = 0; c < componentCount; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        int[] cursor = Arrays.copyOf(memberOffsets, componentCount);
+        for (int v = 0; v < n; v++) {
+            members[cursor[components[v]]++] = v;
+        }
+
+        // Components entering each component, without duplicates or itself
+        int[] predecessorOffsets = new int[componentCount + 1];
+        int[] predecessors = predecessors(index, predecessorOffsets);
+
+        this.post = new int[componentCount];
+        this.low = new int[componentCount];
+        this.byPost = new int[componentCount];
+        numberComponents(predecessorOffsets, predecessors);
+
+        this.slotsBefore = new int[componentCount + 1];
+        for (int p = 0; p < componentCount; p++) {
+            int c = byPost[p];
+            slotsBefore[p + 1] = slotsBefore[p] + memberOffsets[c + 1] - memberOffsets[c];
+        }
+
+        this.intervalOffsets = new int[componentCount + 1];
+        this.intervals = label(predecessorOffsets, predecessors);
+        this.buildNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Whether a path of the indexed edge types leads from one node to the
+     * other. Every node reaches itself.
+     *
+     * @return false if either node is unknown
+     */
+    public boolean reaches(String fromId, String toId) {
+        GraphIndex index = graph.index();
+        int from = index.indexOf(fromId);
+        int to = index.indexOf(toId);
+        return from >= 0 && to >= 0 && reaches(from, to);
+    }
+
+    /**
+     * Slot-based {@link #reaches(String, String)}.
+     */
+    public boolean reaches(int fromSlot, int toSlot) {
+        int target = components[toSlot];
+        int p = post[components[fromSlot]];
+        if (p >= low[target] && p <= post[target])
+            return true;
+
+        // Last interval starting at or before p
+        int lo = intervalOffsets[target];
+        int hi = intervalOffsets[target + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (intervals[2 * mid] <= p)
+                lo = mid + 1;
+            else
+                hi = mid - 1;
+        }
+        return hi >= intervalOffsets[target] && p <= intervals[2 * hi + 1];
+    }
+
+    /**
+     * Slots of all nodes reaching the given slot, including the slot itself
+     * and dangling edge endpoints. The order follows the index's internal
+     * numbering; sort the result if an order matters.
+     */
+    public int[] reaching(int slot) {
+        int c = components[slot];
+        int[] result = new int[reachingCount(slot)];
+        int n = 0;
+        for (int i = intervalOffsets[c]; i < intervalOffsets[c + 1]; i++) {
+            for (int p = intervals[2 * i]; p <= intervals[2 * i + 1]; p++) {
+                int component = byPost[p];
+                int from = memberOffsets[component];
+                int length = memberOffsets[component + 1] - from;
+                System.arraycopy(members, from, result, n, length);
+                n += length;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of slots {@link #reaching(int)} returns, without enumerating them.
+     */
+    public int reachingCount(int slot) {
+        int c = components[slot];
+        int count = 0;
+        for (int i = intervalOffsets[c]; i < intervalOffsets[c + 1]; i++) {
+            count += slotsBefore[intervals[2 * i + 1] + 1] - slotsBefore[intervals[2 * i]];
+        }
+        return count;
+    }
+
+    /**
+     * The graph this index was built for.
+     */
+    public CodeGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Whether this index answers reachability over exactly the given edge
+     * types in the given graph version.
+     */
+    public boolean covers(CodeGraph graph, Set<EdgeType> edgeTypes) {
+        return this.graph == graph && typeMask == GraphIndex.edgeTypeMask(edgeTypes);
+    }
+
+    public int componentCount() {
+        return post.length;
+    }
+
+    public int intervalCount() {
+        return intervals.length / 2;
+    }
+
+    /**
+     * Approximate heap size of the index's arrays, in bytes.
+     */
+    public long memoryBytes() {
+        long ints = (long) components.length + memberOffsets.length + members.length + post.length + low.length
+                + byPost.length + slotsBefore.length + intervalOffsets.length + intervals.length;
+        return ints * Integer.BYTES;
+    }
+
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReachabilityIndex[%d nodes, %d components, %d intervals, %d KB, %d ms]",
+                components.length, componentCount(), intervalCount(), memoryBytes() / 1024, buildNanos / 1_000_000);
+    }
+
+    /**
+     * Condensed incoming adjacency in CSR form.
+     */
+    private int[] predecessors(GraphIndex index, int[] offsets) {
+        int componentCount = offsets.length - 1;
+        int[] seen = new int[componentCount];
+        Arrays.fill(seen, -1);
+        int[] result = new int[16];
+        int size = 0;
+        for (int c = 0; c < componentCount; c++) {
+            seen[c] = c;
+            for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                int v = members[m];
+                for (int pos = index.inStart(v); pos < index.inEnd(v); pos++) {
+                    int edge = index.inEdgeAt(pos);
+                    if (!index.edgeMatches(edge, typeMask))
+                        continue;
+                    int source = components[index.edgeSource(edge)];
+                    if (seen[source] == c)
+                        continue;
+                    seen[source] = c;
+                    if (size == result.length)
+                        result = Arrays.copyOf(result, size * 2);
+                    result[size++] = source;
+                }
+            }
+            offsets[c + 1] = size;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Number the components in postorder of a depth-first search over the
+     * incoming adjacency, recording the range of each search subtree.
+     */
+    private void numberComponents(int[] offsets, int[] predecessors) {
+        int componentCount = post.length;
+        boolean[] visited = new boolean[componentCount];
+        int[] callNode = new int[componentCount];
+        int[] callPos = new int[componentCount];
+        int counter = 0;
+
+        for (int root = 0; root < componentCount; root++) {
+            if (visited[root])
+                continue;
+            visited[root] = true;
+            low[root] = counter;
+            callNode[0] = root;
+            callPos[0] = offsets[root];
+            int depth = 1;
+
+            while (depth > 0) {
+                int c = callNode[depth - 1];
+                int pos = callPos[depth - 1];
+                if (pos < offsets[c + 1]) {
+                    callPos[depth - 1] = pos + 1;
+                    int next = predecessors[pos];
+                    if (!visited[next]) {
+                        visited[next] = true;
+                        low[next] = counter;
+                        callNode[depth] = next;
+                        callPos[depth] = offsets[next];
+                        depth++;
+                    }
+                    continue;
+                }
+                depth--;
+                post[c] = counter;
+                byPost[counter++] = c;
+            }
+        }
+    }
+
+    /**
+     * Interval labels: each component's tree range merged with the labels
+     * of its predecessors. Predecessors have higher component numbers, so
+     * going from the highest number down finds them all labelled.
+     */
+    private int[] label(int[] offsets, int[] predecessors) {
+        int componentCount = post.length;
+        int[][] labels = new int[componentCount][];
+        long[] buffer = new long[16];
+        int total = 0;
+
+        for (int c = componentCount - 1; c >= 0; c--) {
+            int size = 0;
+            buffer[size++] = pack(low[c], post[c]);
+            for (int pos = offsets[c]; pos < offsets[c + 1]; pos++) {
+                int[] label = labels[predecessors[pos]];
+                // Labels of search-tree descendants usually lie in the tree range
+                if (label[0] >= low[c] && label[label.length - 1] <= post[c])
+                    continue;
+                if (size + label.length / 2 > buffer.length)
+                    buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + label.length / 2));
+                for (int i = 0; i < label.length; i += 2) {
+                    buffer[size++] = pack(label[i], label[i + 1]);
+                }
+            }
+            labels[c] = merge(buffer, size);
+            total += labels[c].length / 2;
+        }
+
+        int[] flat = new int[2 * total];
+        int n = 0;
+        for (int c = 0; c < componentCount; c++) {
+            intervalOffsets[c] = n / 2;
+            System.arraycopy(labels[c], 0, flat, n, labels[c].length);
+            n += labels[c].length;
+        }
+        intervalOffsets[componentCount] = total;
+        return flat;
+    }
+
+    /**
+     * Sort packed intervals and join those that overlap or touch.
+     */
+    private static int[] merge(long[] packed, int size) {
+        Arrays.sort(packed, 0, size);
+        int[] result = new int[2 * size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int start = (int) (packed[i] >>> 32);
+            int end = (int) packed[i];
+            if (n > 0 && start <= result[n - 1] + 1) {
+                result[n - 1] = Math.max(result[n - 1], end);
+            } else {
+                result[n++] = start;
+                result[n++] = end;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static long pack(int start, int end) {
+        return (long) start << 32 | end;
+    }
+}
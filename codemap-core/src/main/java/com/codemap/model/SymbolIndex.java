@@ -0,0 +1,159 @@
+package com.codemap.model;
+
+import java.util.*;
+
+/**
+ * Name lookup index over the type and method nodes of a {@link CodeGraph}.
+ *
+ * Every qualified name is registered under each of its dot-separated
+ * suffixes, so {@code com.example.A.run(String)} can be found as
+ * {@code run}, {@code A.run}, {@code example.A.run(String)} and so on, with a
+ * single hash lookup. Queries that are not a whole-segment suffix (such as a
+ * fragment of a name) fall back to the substring match the analyzers used
+ * before, so no previously resolvable query stops resolving.
+ *
+ * Candidates are ranked: exact node ID first, then the candidates whose
+ * qualified name the query covers most completely, then by node type
+ * (CLASS before INTERFACE before ENUM, METHOD before CONSTRUCTOR), then in
+ * graph order.
+ */
+public final class SymbolIndex {
+
+    private static final Set<NodeType> TYPE_KINDS = EnumSet.of(NodeType.CLASS, NodeType.INTERFACE, NodeType.ENUM);
+    private static final Set<NodeType> METHOD_KINDS = EnumSet.of(NodeType.METHOD, NodeType.CONSTRUCTOR);
+
+    // Stable sort, so ties keep graph order
+    private static final Comparator<Candidate> RANKING = Comparator
+            .comparingInt((Candidate c) -> c.slack)
+            .thenComparingInt(c -> c.node.getType().ordinal());
+
+    private final CodeGraph graph;
+    private final Map<String, List<Candidate>> typesBySuffix = new HashMap<>();
+    private final Map<String, List<Candidate>> methodsBySuffix = new HashMap<>();
+
+    SymbolIndex(CodeGraph graph) {
+        this.graph = graph;
+        for (GraphNode node : graph.getNodes()) {
+            if (node.getQualifiedName() == null)
+                continue;
+            if (TYPE_KINDS.contains(node.getType())) {
+                registerSuffixes(node, node.getQualifiedName(), "", typesBySuffix);
+            } else if (METHOD_KINDS.contains(node.getType())) {
+                String qn = node.getQualifiedName();
+                int paren = qn.indexOf('(');
+                String base = paren >= 0 ? qn.substring(0, paren) : qn;
+                String params = paren >= 0 ? qn.substring(paren) : "";
+                registerSuffixes(node, base, "", methodsBySuffix);
+                if (!params.isEmpty()) {
+                    registerSuffixes(node, base, params, methodsBySuffix);
+                }
+            }
+        }
+        typesBySuffix.values().forEach(list -> list.sort(RANKING));
+        methodsBySuffix.values().forEach(list -> list.sort(RANKING));
+    }
+
+    private static void registerSuffixes(GraphNode node, String dotted, String tail,
+            Map<String, List<Candidate>> target) {
+        int remaining = 0;
+        int cut = dotted.length();
+        while (cut >= 0) {
+            int dot = dotted.lastIndexOf('.', cut - 1);
+            String key = dotted.substring(dot + 1) + tail;
+            target.computeIfAbsent(key, k -> new ArrayList<>(1)).add(new Candidate(node, remaining));
+            if (dot < 0)
+                break;
+            cut = dot;
+            remaining++;
+        }
+    }
+
+    /**
+     * All method and constructor nodes matching the query, best match first.
+     *
+     * @param query a node ID suffix, simple method name, {@code Class.method},
+     *              or fully qualified signature
+     */
+    public List<GraphNode> findMethods(String query) {
+        return find(query, "method:", METHOD_KINDS, methodsBySuffix, false);
+    }
+
+    /**
+     * All class, interface and enum nodes matching the query, best match first.
+     *
+     * @param query a simple or (partially) qualified type name
+     */
+    public List<GraphNode> findTypes(String query) {
+        return find(query, "class:", TYPE_KINDS, typesBySuffix, true);
+    }
+
+    /**
+     * @return the ID of the best method match, or null if nothing matches
+     */
+    public String resolveMethodId(String query) {
+        List<GraphNode> matches = findMethods(query);
+        return matches.isEmpty() ? null : matches.get(0).getId();
+    }
+
+    /**
+     * @return the ID of the best type match, or null if nothing matches
+     */
+    public String resolveTypeId(String query) {
+        List<GraphNode> matches = findTypes(query);
+        return matches.isEmpty() ? null : matches.get(0).getId();
+    }
+
+    private List<GraphNode> find(String query, String idPrefix, Set<NodeType> kinds,
+            Map<String, List<Candidate>> suffixes, boolean suffixMatch) {
+        if (query == null || query.isEmpty())
+            return Collections.emptyList();
+
+        Set<GraphNode> result = new LinkedHashSet<>();
+        Optional<GraphNode> direct = graph.getNode(idPrefix + query);
+        direct.filter(n -> kinds.contains(n.getType())).ifPresent(result::add);
+
+        List<Candidate> candidates = suffixes.get(query);
+        if (candidates == null) {
+            candidates = scan(query, kinds, suffixMatch);
+            candidates.sort(RANKING);
+        }
+        for (Candidate candidate : candidates) {
+            result.add(candidate.node);
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Slow path for queries that are not a whole-segment suffix.
+     */
+    private List<Candidate> scan(String query, Set<NodeType> kinds, boolean suffixMatch) {
+        List<Candidate> matches = new ArrayList<>();
+        for (NodeType kind : kinds) {
+            for (GraphNode node : graph.getNodesByType(kind)) {
+                String qn = node.getQualifiedName();
+                if (qn == null)
+                    continue;
+                boolean match = suffixMatch ? qn.endsWith(query) : qn.contains(query);
+                if (match) {
+                    matches.add(new Candidate(node, qn.length() - query.length()));
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * A node matched by a key. {@code slack} measures how much of the
+     * qualified name the key leaves uncovered (segments for indexed keys,
+     * characters for scanned ones); lower is a closer match.
+     */
+    private static final class Candidate {
+        final GraphNode node;
+        final int slack;
+
+        Candidate(GraphNode node, int slack) {
+            this.node = node;
+            this.slack = slack;
+        }
+    }
+}
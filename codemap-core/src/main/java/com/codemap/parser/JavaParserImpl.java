@@ -1,5 +1,7 @@
 package com.codemap.parser;
 
+import com.codemap.metrics.FileParsedEvent;
+import com.codemap.metrics.MetricsRecorder;
 import com.codemap.model.ClassInfo;
 import com.codemap.model.MethodInfo;
 import com.github.javaparser.JavaParser;
@@ -18,35 +20,118 @@ import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
  * JavaParser-based implementation of {@link JavaSourceParser}.
  * Walks the source tree, parses each .java file, and extracts
  * classes, methods, calls, inheritance, annotations, and imports.
+ * Files can be parsed on a bounded worker pool; each worker thread
+ * uses its own {@link JavaParser} instance.
  */
 public class JavaParserImpl implements JavaSourceParser {
 
     private static final Logger log = LoggerFactory.getLogger(JavaParserImpl.class);
-    private final JavaParser parser;
+
+    // JavaParser instances are not thread-safe, so each worker thread gets its own
+    private final ThreadLocal<JavaParser> parser = ThreadLocal.withInitial(JavaParser::new);
+    private final int threads;
 
     public JavaParserImpl() {
-        this.parser = new JavaParser();
+        this(1);
+    }
+
+    /**
+     * @param threads number of worker threads used by {@link #parse(Path)};
+     *                values below 1 use one thread per available processor
+     */
+    public JavaParserImpl(int threads) {
+        this.threads = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+    }
+
+    public int getThreads() {
+        return threads;
     }
 
     @Override
     public List<ClassInfo> parse(Path sourceRoot) {
+        List<Path> files = findSourceFiles(sourceRoot);
         List<ClassInfo> allClasses = new ArrayList<>();
+        for (List<ClassInfo> fileClasses : parseFiles(files)) {
+            allClasses.addAll(fileClasses);
+        }
+        log.info("Parsed {} classes from {} ({} files, {} threads)",
+                allClasses.size(), sourceRoot, files.size(), threads);
+        return allClasses;
+    }
+
+    /**
+     * Parse the given files, concurrently when more than one thread is configured.
+     * Results are returned in the same order as the input list, so the merged
+     * class list is deterministic regardless of scheduling.
+     *
+     * @param files source files to parse
+     * @return per-file parse results, index-aligned with {@code files}
+     */
+    @Override
+    public List<List<ClassInfo>> parseFiles(List<Path> files) {
+        return parseFiles(files, null);
+    }
+
+    /**
+     * Parse the given files, adding the CPU time and allocation of worker
+     * threads to {@code phase} when it is not null.
+     */
+    @Override
+    public List<List<ClassInfo>> parseFiles(List<Path> files, MetricsRecorder.Phase phase) {
+        List<List<ClassInfo>> results = new ArrayList<>(files.size());
+        if (threads <= 1 || files.size() < 2) {
+            for (Path file : files) {
+                results.add(parseQuietly(file));
+            }
+            return results;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, files.size()), new ParserThreadFactory());
+        try {
+            List<Future<List<ClassInfo>>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                Callable<List<ClassInfo>> task = phase != null
+                        ? () -> phase.measure(() -> parseQuietly(file))
+                        : () -> parseQuietly(file);
+                futures.add(pool.submit(task));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    log.warn("Failed to parse file: {}", files.get(i), e.getCause());
+                    results.add(Collections.emptyList());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing source files", e);
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Collect all .java files under the source root, sorted by path.
+     */
+    @Override
+    public List<Path> findSourceFiles(Path sourceRoot) {
+        List<Path> files = new ArrayList<>();
         try {
             Files.walkFileTree(sourceRoot, new SimpleFileVisitor<>() {
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
                     if (file.toString().endsWith(".java")) {
-                        try {
-                            allClasses.addAll(parseFile(file));
-                        } catch (Exception e) {
-                            log.warn("Failed to parse file: {}", file, e);
-                        }
+                        files.add(file);
                     }
                     return FileVisitResult.CONTINUE;
                 }
@@ -60,16 +145,29 @@ public class JavaParserImpl implements JavaSourceParser {
         } catch (IOException e) {
             log.error("Failed to walk source tree: {}", sourceRoot, e);
         }
-        log.info("Parsed {} classes from {}", allClasses.size(), sourceRoot);
-        return allClasses;
+        Collections.sort(files);
+        return files;
+    }
+
+    private List<ClassInfo> parseQuietly(Path file) {
+        try {
+            return parseFile(file);
+        } catch (Exception e) {
+            log.warn("Failed to parse file: {}", file, e);
+            return Collections.emptyList();
+        }
     }
 
     @Override
     public List<ClassInfo> parseFile(Path sourceFile) {
+        FileParsedEvent event = new FileParsedEvent();
+        event.begin();
         List<ClassInfo> classes = new ArrayList<>();
+        boolean succeeded = false;
         try {
-            ParseResult<CompilationUnit> result = parser.parse(sourceFile);
+            ParseResult<CompilationUnit> result = parser.get().parse(sourceFile);
             if (result.isSuccessful() && result.getResult().isPresent()) {
+                succeeded = true;
                 CompilationUnit cu = result.getResult().get();
                 String packageName = cu.getPackageDeclaration()
                         .map(pd -> pd.getNameAsString())
@@ -90,9 +188,42 @@ public class JavaParserImpl implements JavaSourceParser {
         } catch (IOException e) {
             log.error("IO error parsing file: {}", sourceFile, e);
         }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = sourceFile.toString();
+            event.size = sizeOf(sourceFile);
+            event.classCount = classes.size();
+            event.succeeded = succeeded;
+            event.commit();
+        }
         return classes;
     }
 
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Names parser worker threads and marks them as daemons so a stuck parse
+     * never keeps the JVM alive.
+     */
+    private static class ParserThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "codemap-parser-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
     /**
      * Visitor that extracts class/interface declarations.
      */
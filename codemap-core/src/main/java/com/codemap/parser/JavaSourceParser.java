@@ -1,8 +1,10 @@
 package com.codemap.parser;
 
+import com.codemap.metrics.MetricsRecorder;
 import com.codemap.model.ClassInfo;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -25,4 +27,36 @@ public interface JavaSourceParser {
      * @return list of classes found in the file (can be multiple for inner classes)
      */
     List<ClassInfo> parseFile(Path sourceFile);
+
+    /**
+     * List all Java source files under the given root directory, in a stable order.
+     *
+     * @param sourceRoot root directory containing Java source files
+     * @return paths of the .java files found
+     */
+    List<Path> findSourceFiles(Path sourceRoot);
+
+    /**
+     * Parse several source files. Implementations may parse concurrently but must
+     * return results in input order.
+     *
+     * @param sourceFiles paths to the Java source files
+     * @return per-file parse results, index-aligned with {@code sourceFiles}
+     */
+    default List<List<ClassInfo>> parseFiles(List<Path> sourceFiles) {
+        List<List<ClassInfo>> results = new ArrayList<>(sourceFiles.size());
+        for (Path file : sourceFiles) {
+            results.add(parseFile(file));
+        }
+        return results;
+    }
+
+    /**
+     * Parse several source files as part of a measured phase. Implementations
+     * that parse on worker threads add the workers' usage to the phase; the
+     * default parses on the calling thread, which the phase already measures.
+     */
+    default List<List<ClassInfo>> parseFiles(List<Path> sourceFiles, MetricsRecorder.Phase phase) {
+        return parseFiles(sourceFiles);
+    }
 }
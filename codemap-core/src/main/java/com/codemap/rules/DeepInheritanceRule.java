@@ -1,11 +1,13 @@
 package com.codemap.rules;
 
+import com.codemap.analysis.InheritanceDepth;
 import com.codemap.model.*;
 
 import java.util.*;
 
 /**
- * Detects deep inheritance chains beyond a configurable threshold.
+ * Detects deep inheritance chains beyond a configurable threshold. Depths
+ * come from {@link InheritanceDepth}, which walks each chain once.
  */
 public class DeepInheritanceRule implements ArchitectureRule {
 
@@ -31,10 +33,10 @@ public class DeepInheritanceRule implements ArchitectureRule {
     @Override
     public List<Violation> evaluate(CodeGraph graph) {
         List<Violation> violations = new ArrayList<>();
-        List<GraphNode> classNodes = graph.getNodesByType(NodeType.CLASS);
+        InheritanceDepth depths = new InheritanceDepth(graph);
 
-        for (GraphNode node : classNodes) {
-            int depth = computeInheritanceDepth(node.getId(), graph, new HashSet<>());
+        for (GraphNode node : graph.getNodesByType(NodeType.CLASS)) {
+            int depth = depths.depthOf(node.getId());
             if (depth > maxDepth) {
                 violations.add(new Violation(
                         getName(), "WARNING",
@@ -44,19 +46,4 @@ public class DeepInheritanceRule implements ArchitectureRule {
         }
         return violations;
     }
-
-    private int computeInheritanceDepth(String nodeId, CodeGraph graph, Set<String> visited) {
-        if (visited.contains(nodeId))
-            return 0; // cycle guard
-        visited.add(nodeId);
-
-        int maxChildDepth = 0;
-        for (GraphEdge edge : graph.getOutgoingEdges(nodeId)) {
-            if (edge.getType() == EdgeType.EXTENDS) {
-                int childDepth = 1 + computeInheritanceDepth(edge.getTargetId(), graph, visited);
-                maxChildDepth = Math.max(maxChildDepth, childDepth);
-            }
-        }
-        return maxChildDepth;
-    }
 }
@@ -37,15 +37,8 @@ public class GodClassRule implements ArchitectureRule {
         List<Violation> violations = new ArrayList<>();
 
         for (GraphNode node : graph.getNodesByType(NodeType.CLASS)) {
-            // Count methods (CONTAINS edges to METHOD nodes)
-            long methodCount = graph.getOutgoingEdges(node.getId()).stream()
-                    .filter(e -> e.getType() == EdgeType.CONTAINS)
-                    .count();
-
-            // Count dependencies (DEPENDENCY edges outgoing)
-            long depCount = graph.getOutgoingEdges(node.getId()).stream()
-                    .filter(e -> e.getType() == EdgeType.DEPENDENCY)
-                    .count();
+            int methodCount = graph.degree(node.getId(), EdgeType.CONTAINS, Direction.OUTGOING);
+            int depCount = graph.degree(node.getId(), EdgeType.DEPENDENCY, Direction.OUTGOING);
 
             if (methodCount > maxMethods) {
                 violations.add(new Violation(
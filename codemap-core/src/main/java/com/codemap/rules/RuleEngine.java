@@ -1,22 +1,58 @@
 package com.codemap.rules;
 
+import com.codemap.metrics.MetricsRecorder;
+import com.codemap.metrics.RuleEvaluationEvent;
 import com.codemap.model.CodeGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Engine that runs architecture rules against a code graph and collects
  * violations.
+ *
+ * Rules only read the (immutable) graph, so they can be evaluated
+ * concurrently: given an executor, each rule runs as its own task and the
+ * wall time approaches that of the slowest rule. A rule that runs longer
+ * than the per-rule timeout is cancelled and reported as timed out, as is a
+ * rule still queued when every rule could have had its turn, so rules that
+ * ignore interruption cannot keep an evaluation from returning. In either
+ * mode violations are returned grouped by rule, in registration order.
  */
 public class RuleEngine {
 
     private static final Logger log = LoggerFactory.getLogger(RuleEngine.class);
 
     private final List<ArchitectureRule> rules = new ArrayList<>();
+    private final ExecutorService executor;
+    private final Duration ruleTimeout;
 
+    /**
+     * Evaluate rules one after another on the calling thread.
+     */
     public RuleEngine() {
+        this(null, null);
+    }
+
+    /**
+     * Evaluate rules concurrently.
+     *
+     * @param executor    runs one task per rule; owned by the caller. If null,
+     *                    rules run on the calling thread
+     * @param ruleTimeout how long a rule may run once started, or null for no
+     *                    limit; only enforced when an executor is given. A
+     *                    rule not started within the timeout times the
+     *                    number of rounds of executor threads the rules
+     *                    need is cancelled as timed out
+     */
+    public RuleEngine(ExecutorService executor, Duration ruleTimeout) {
+        if (ruleTimeout != null && (ruleTimeout.isNegative() || ruleTimeout.isZero()))
+            throw new IllegalArgumentException("Rule timeout must be positive: " + ruleTimeout);
+        this.executor = executor;
+        this.ruleTimeout = ruleTimeout;
         // Register default rules
         rules.add(new CircularDependencyRule());
         rules.add(new GodClassRule());
@@ -58,17 +94,125 @@ public class RuleEngine {
      * @return all violations from all rules
      */
     public List<ArchitectureRule.Violation> evaluate(CodeGraph graph) {
-        List<ArchitectureRule.Violation> allViolations = new ArrayList<>();
+        return run(graph, null).violations();
+    }
+
+    /**
+     * Run all rules, recording a {@code rules} phase with one
+     * {@code rules.<name>} phase per rule.
+     */
+    public List<ArchitectureRule.Violation> evaluate(CodeGraph graph, MetricsRecorder recorder) {
+        return run(graph, recorder).violations();
+    }
+
+    /**
+     * Run all rules and report how each one went.
+     */
+    public Report run(CodeGraph graph) {
+        return run(graph, null);
+    }
+
+    private Report run(CodeGraph graph, MetricsRecorder recorder) {
+        List<ArchitectureRule> snapshot = List.copyOf(rules);
+        List<RuleResult> results;
+        if (recorder == null) {
+            results = evaluateRules(graph, snapshot, null, null);
+        } else {
+            try (MetricsRecorder.Phase phase = recorder.start("rules")) {
+                results = evaluateRules(graph, snapshot, recorder, phase);
+                phase.count("rules", snapshot.size())
+                        .count("violations", results.stream().mapToInt(RuleResult::violationCount).sum());
+            }
+        }
+
+        List<ArchitectureRule.Violation> violations = new ArrayList<>();
+        for (RuleResult result : results) {
+            violations.addAll(result.violations());
+        }
+        return new Report(violations, results);
+    }
+
+    private List<RuleResult> evaluateRules(CodeGraph graph, List<ArchitectureRule> rules,
+            MetricsRecorder recorder, MetricsRecorder.Phase phase) {
+        List<RuleResult> results = new ArrayList<>(rules.size());
+        if (executor == null) {
+            for (ArchitectureRule rule : rules) {
+                results.add(new RuleTask(rule, graph, recorder, null).call());
+            }
+            return results;
+        }
+
+        List<RuleTask> tasks = new ArrayList<>(rules.size());
+        List<Future<RuleResult>> futures = new ArrayList<>(rules.size());
+        long submitted = System.nanoTime();
         for (ArchitectureRule rule : rules) {
-            try {
-                List<ArchitectureRule.Violation> violations = rule.evaluate(graph);
-                allViolations.addAll(violations);
-                log.info("Rule '{}': {} violations", rule.getName(), violations.size());
-            } catch (Exception e) {
-                log.error("Error evaluating rule '{}': {}", rule.getName(), e.getMessage(), e);
+            RuleTask task = new RuleTask(rule, graph, recorder, phase);
+            tasks.add(task);
+            futures.add(executor.submit(task));
+        }
+        long startDeadline = ruleTimeout == null ? 0 : submitted + ruleTimeout.toNanos() * waves(rules.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            results.add(await(tasks.get(i), futures.get(i), startDeadline));
+        }
+        return results;
+    }
+
+    /**
+     * How many rounds of the executor's threads the rules need, assuming
+     * every rule uses its full timeout; one thread when the pool size is
+     * unknown.
+     */
+    private int waves(int ruleCount) {
+        int threads = executor instanceof ThreadPoolExecutor pool
+                ? Math.max(1, Math.max(pool.getCorePoolSize(), Math.min(pool.getMaximumPoolSize(), ruleCount)))
+                : 1;
+        return (ruleCount + threads - 1) / threads;
+    }
+
+    /**
+     * Wait for a rule task, cancelling it once it has run for longer than
+     * the timeout, or if it has not started by {@code startDeadline}. A rule
+     * that ignores interruption keeps its thread, so rules queued behind it
+     * are given up on at the start deadline rather than waited for.
+     */
+    private RuleResult await(RuleTask task, Future<RuleResult> future, long startDeadline) {
+        String name = task.rule.getName();
+        try {
+            if (ruleTimeout == null)
+                return future.get();
+            long timeout = ruleTimeout.toNanos();
+            boolean started;
+            while (true) {
+                started = task.started;
+                long deadline = started ? task.startNanos + timeout : startDeadline;
+                long remaining = deadline - System.nanoTime();
+                try {
+                    // A rule that finished while we waited for others is collected by get(0)
+                    return future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    if (remaining <= 0 && started == task.started)
+                        break;
+                    // Started while we waited, so its own deadline applies; check again
+                }
             }
+            future.cancel(true);
+            if (started) {
+                log.error("Rule '{}' timed out after {}ms", name, ruleTimeout.toMillis());
+                return new RuleResult(name, Status.TIMED_OUT, List.of(), System.nanoTime() - task.startNanos);
+            }
+            log.error("Rule '{}' timed out waiting for an executor thread", name);
+            return new RuleResult(name, Status.TIMED_OUT, List.of(), 0);
+        } catch (ExecutionException e) {
+            // RuleTask catches rule failures; this is an error in the task itself
+            log.error("Error evaluating rule '{}': {}", name, e.getCause().getMessage(), e.getCause());
+            return new RuleResult(name, Status.FAILED, List.of(), 0);
+        } catch (CancellationException e) {
+            return new RuleResult(name, Status.FAILED, List.of(), 0);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException("Interrupted while evaluating rules", e);
         }
-        return allViolations;
     }
 
     /**
@@ -77,4 +221,95 @@ public class RuleEngine {
     public List<ArchitectureRule> getRules() {
         return Collections.unmodifiableList(rules);
     }
+
+    /**
+     * Outcome of evaluating one rule.
+     */
+    public enum Status {
+        COMPLETED, FAILED, TIMED_OUT
+    }
+
+    /**
+     * How one rule went: its violations and its wall time. A rule that
+     * failed or timed out has no violations.
+     */
+    public record RuleResult(
+            String rule,
+            Status status,
+            List<ArchitectureRule.Violation> violations,
+            long wallNanos) {
+
+        public int violationCount() {
+            return violations.size();
+        }
+    }
+
+    /**
+     * Result of {@link #run(CodeGraph)}: the violations of all rules, grouped
+     * by rule in registration order, and one result per rule in the same
+     * order.
+     */
+    public record Report(
+            List<ArchitectureRule.Violation> violations,
+            List<RuleResult> results) {
+    }
+
+    /**
+     * Evaluates one rule, on whichever thread calls it.
+     */
+    private static final class RuleTask implements Callable<RuleResult> {
+        private final ArchitectureRule rule;
+        private final CodeGraph graph;
+        private final MetricsRecorder recorder;
+        private final MetricsRecorder.Phase parent;
+        /** Set once the rule starts; {@code startNanos} is valid from then on */
+        private volatile boolean started;
+        private volatile long startNanos;
+
+        RuleTask(ArchitectureRule rule, CodeGraph graph, MetricsRecorder recorder, MetricsRecorder.Phase parent) {
+            this.rule = rule;
+            this.graph = graph;
+            this.recorder = recorder;
+            this.parent = parent;
+        }
+
+        @Override
+        public RuleResult call() {
+            if (recorder == null)
+                return evaluate();
+            try (MetricsRecorder.Phase phase = recorder.start("rules." + rule.getName())) {
+                // Work on a worker thread is added to the enclosing phase as well
+                RuleResult result = parent != null ? parent.measure(this::evaluate) : evaluate();
+                phase.count("violations", result.violationCount());
+                return result;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private RuleResult evaluate() {
+            RuleEvaluationEvent event = new RuleEvaluationEvent();
+            event.begin();
+            long start = System.nanoTime();
+            startNanos = start;
+            started = true;
+            RuleResult result;
+            try {
+                List<ArchitectureRule.Violation> violations = List.copyOf(rule.evaluate(graph));
+                event.violationCount = violations.size();
+                event.succeeded = true;
+                result = new RuleResult(rule.getName(), Status.COMPLETED, violations, System.nanoTime() - start);
+                log.info("Rule '{}': {} violations", rule.getName(), violations.size());
+            } catch (Exception e) {
+                log.error("Error evaluating rule '{}': {}", rule.getName(), e.getMessage(), e);
+                result = new RuleResult(rule.getName(), Status.FAILED, List.of(), System.nanoTime() - start);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.rule = rule.getName();
+                event.commit();
+            }
+            return result;
+        }
+    }
 }
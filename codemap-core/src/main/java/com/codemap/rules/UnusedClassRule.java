@@ -9,6 +9,8 @@ import java.util.*;
  */
 public class UnusedClassRule implements ArchitectureRule {
 
+    private static final List<NodeType> CLASS_TYPES = List.of(NodeType.CLASS, NodeType.INTERFACE);
+
     @Override
     public String getName() {
         return "unused-class";
@@ -23,22 +25,19 @@ public class UnusedClassRule implements ArchitectureRule {
     public List<Violation> evaluate(CodeGraph graph) {
         List<Violation> violations = new ArrayList<>();
 
-        List<GraphNode> classNodes = new ArrayList<>();
-        classNodes.addAll(graph.getNodesByType(NodeType.CLASS));
-        classNodes.addAll(graph.getNodesByType(NodeType.INTERFACE));
-
-        for (GraphNode node : classNodes) {
-            List<GraphEdge> incoming = graph.getIncomingEdges(node.getId());
-            boolean hasExternalReference = incoming.stream()
-                    .anyMatch(e -> e.getType() == EdgeType.DEPENDENCY
-                            || e.getType() == EdgeType.EXTENDS
-                            || e.getType() == EdgeType.IMPLEMENTS);
-
-            if (!hasExternalReference) {
-                violations.add(new Violation(
-                        getName(), "INFO",
-                        "Class has no incoming dependencies — may be unused",
-                        node.getId(), node.getFilePath(), node.getLineNumber()));
+        for (NodeType type : CLASS_TYPES) {
+            for (GraphNode node : graph.getNodesByType(type)) {
+                String id = node.getId();
+                boolean hasExternalReference = graph.degree(id, EdgeType.DEPENDENCY, Direction.INCOMING) > 0
+                        || graph.degree(id, EdgeType.EXTENDS, Direction.INCOMING) > 0
+                        || graph.degree(id, EdgeType.IMPLEMENTS, Direction.INCOMING) > 0;
+
+                if (!hasExternalReference) {
+                    violations.add(new Violation(
+                            getName(), "INFO",
+                            "Class has no incoming dependencies — may be unused",
+                            node.getId(), node.getFilePath(), node.getLineNumber()));
+                }
             }
         }
         return violations;
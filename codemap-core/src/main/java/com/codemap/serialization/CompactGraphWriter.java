@@ -0,0 +1,196 @@
+package com.codemap.serialization;
+
+import com.codemap.model.*;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Writes a {@link CodeGraph} in the {@link OutputFormat#COMPACT} layout:
+ * <pre>
+ * {
+ *   "nodeTypes": ["CLASS", ...],
+ *   "edgeTypes": ["CALLS", ...],
+ *   "strings":   ["com.example.A", "A", ...],
+ *   "nodes":     [[type, name, qualifiedName, filePath, lineNumber, metadata, id], ...],
+ *   "edges":     [[type, source, target, metadata, id], ...]
+ * }
+ * </pre>
+ * Types are indexes into {@code nodeTypes}/{@code edgeTypes}; every other
+ * string is an index into {@code strings}, with -1 for null. Metadata is a
+ * flat array of alternating key and value indexes. Edge endpoints are node
+ * indexes; an endpoint that is not a node is written as {@code -1 - s}, where
+ * {@code s} is the string index of its ID.
+ *
+ * Trailing fields holding their default (-1 file, 0 line, empty metadata,
+ * derived ID) are omitted. A node's ID is derived as {@code "method:"} +
+ * qualified name for methods and constructors and {@code "class:"} +
+ * qualified name otherwise; an edge's ID as {@code source-TYPE-target}.
+ */
+final class CompactGraphWriter {
+
+    private static final NodeType[] NODE_TYPES = NodeType.values();
+    private static final EdgeType[] EDGE_TYPES = EdgeType.values();
+
+    private final CodeGraph graph;
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    CompactGraphWriter(CodeGraph graph) {
+        this.graph = graph;
+    }
+
+    void write(JsonWriter writer) throws IOException {
+        List<GraphNode> nodes = graph.getNodes();
+        List<GraphEdge> edges = graph.getEdges();
+        GraphIndex index = graph.index();
+
+        // Map index slots to positions in the node list (last wins for duplicate IDs)
+        int[] positions = new int[index.size()];
+        Arrays.fill(positions, -1);
+        for (int i = 0; i < nodes.size(); i++) {
+            positions[index.indexOf(nodes.get(i).getId())] = i;
+        }
+
+        for (GraphNode node : nodes) {
+            intern(node.getName());
+            intern(node.getQualifiedName());
+            intern(node.getFilePath());
+            internAll(node.getMetadata());
+            if (!hasDerivedId(node))
+                intern(node.getId());
+        }
+        for (int e = 0; e < edges.size(); e++) {
+            GraphEdge edge = edges.get(e);
+            if (positions[index.edgeSource(e)] < 0)
+                intern(edge.getSourceId());
+            if (positions[index.edgeTarget(e)] < 0)
+                intern(edge.getTargetId());
+            internAll(edge.getMetadata());
+            if (!hasDerivedId(edge))
+                intern(edge.getId());
+        }
+
+        writer.beginObject();
+        writer.name("nodeTypes").beginArray();
+        for (NodeType type : NODE_TYPES) {
+            writer.value(type.name());
+        }
+        writer.endArray();
+        writer.name("edgeTypes").beginArray();
+        for (EdgeType type : EDGE_TYPES) {
+            writer.value(type.name());
+        }
+        writer.endArray();
+
+        writer.name("strings").beginArray();
+        for (String s : strings) {
+            writer.value(s);
+        }
+        writer.endArray();
+
+        writer.name("nodes").beginArray();
+        for (GraphNode node : nodes) {
+            int id = hasDerivedId(node) ? -1 : indexOf(node.getId());
+            int file = indexOf(node.getFilePath());
+            int line = Math.max(node.getLineNumber(), 0);
+            Map<String, String> metadata = node.getMetadata();
+
+            writer.beginArray();
+            writer.value(node.getType().ordinal());
+            writer.value(indexOf(node.getName()));
+            writer.value(indexOf(node.getQualifiedName()));
+            if (file >= 0 || line > 0 || !metadata.isEmpty() || id >= 0) {
+                writer.value(file);
+                if (line > 0 || !metadata.isEmpty() || id >= 0) {
+                    writer.value(line);
+                    if (!metadata.isEmpty() || id >= 0) {
+                        writeMetadata(writer, metadata);
+                        if (id >= 0)
+                            writer.value(id);
+                    }
+                }
+            }
+            writer.endArray();
+        }
+        writer.endArray();
+
+        writer.name("edges").beginArray();
+        for (int e = 0; e < edges.size(); e++) {
+            GraphEdge edge = edges.get(e);
+            int id = hasDerivedId(edge) ? -1 : indexOf(edge.getId());
+            Map<String, String> metadata = edge.getMetadata();
+
+            writer.beginArray();
+            writer.value(edge.getType().ordinal());
+            writer.value(endpoint(positions[index.edgeSource(e)], edge.getSourceId()));
+            writer.value(endpoint(positions[index.edgeTarget(e)], edge.getTargetId()));
+            if (!metadata.isEmpty() || id >= 0) {
+                writeMetadata(writer, metadata);
+                if (id >= 0)
+                    writer.value(id);
+            }
+            writer.endArray();
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+
+    private int endpoint(int position, String id) {
+        return position >= 0 ? position : -1 - indexOf(id);
+    }
+
+    private void writeMetadata(JsonWriter writer, Map<String, String> metadata) throws IOException {
+        writer.beginArray();
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            writer.value(indexOf(entry.getKey()));
+            writer.value(indexOf(entry.getValue()));
+        }
+        writer.endArray();
+    }
+
+    private void intern(String s) {
+        if (s != null && !stringIndex.containsKey(s)) {
+            stringIndex.put(s, strings.size());
+            strings.add(s);
+        }
+    }
+
+    private void internAll(Map<String, String> metadata) {
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            intern(entry.getKey());
+            intern(entry.getValue());
+        }
+    }
+
+    private int indexOf(String s) {
+        return s == null ? -1 : stringIndex.get(s);
+    }
+
+    // Compared piecewise to avoid building the derived ID for every element
+
+    private static boolean hasDerivedId(GraphNode node) {
+        String qn = node.getQualifiedName();
+        if (qn == null)
+            return false;
+        boolean method = node.getType() == NodeType.METHOD || node.getType() == NodeType.CONSTRUCTOR;
+        String prefix = method ? "method:" : "class:";
+        String id = node.getId();
+        return id.length() == prefix.length() + qn.length() && id.startsWith(prefix) && id.endsWith(qn);
+    }
+
+    private static boolean hasDerivedId(GraphEdge edge) {
+        String id = edge.getId();
+        String source = edge.getSourceId();
+        String type = edge.getType().name();
+        String target = edge.getTargetId();
+        int typeStart = source.length() + 1;
+        return id.length() == typeStart + type.length() + 1 + target.length()
+                && id.startsWith(source)
+                && id.charAt(source.length()) == '-'
+                && id.startsWith(type, typeStart)
+                && id.charAt(typeStart + type.length()) == '-'
+                && id.endsWith(target);
+    }
+}
@@ -1,93 +1,236 @@
 package com.codemap.serialization;
 
+import com.codemap.metrics.MetricsRecorder;
+import com.codemap.metrics.PhaseMetrics;
 import com.codemap.model.*;
 import com.google.gson.*;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.*;
 import java.lang.reflect.Type;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Serializes CodeGraph and AnalysisResult to JSON format.
+ * Output is streamed through a {@link JsonWriter}, so serialization memory
+ * does not grow with the size of the graph.
  */
 public class GraphJsonSerializer {
 
     private final Gson gson;
+    private final OutputFormat format;
 
     public GraphJsonSerializer() {
-        this.gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .registerTypeAdapter(Instant.class, new InstantAdapter())
-                .create();
+        this(OutputFormat.PRETTY);
+    }
+
+    /**
+     * @param prettyPrint whether to indent the output; single-line output is
+     *                    used for line-delimited protocols
+     */
+    public GraphJsonSerializer(boolean prettyPrint) {
+        this(prettyPrint ? OutputFormat.PRETTY : OutputFormat.PLAIN);
+    }
+
+    public GraphJsonSerializer(OutputFormat format) {
+        GsonBuilder builder = new GsonBuilder()
+                .registerTypeAdapter(Instant.class, new InstantAdapter());
+        if (format == OutputFormat.PRETTY) {
+            builder.setPrettyPrinting();
+        }
+        this.gson = builder.create();
+        this.format = format;
+    }
+
+    public OutputFormat getFormat() {
+        return format;
     }
 
     /**
      * Serialize an analysis result to JSON.
      */
     public String toJson(AnalysisResult result) {
-        return gson.toJson(buildResultObject(result));
+        StringWriter out = new StringWriter();
+        writeJson(result, out);
+        return out.toString();
     }
 
     /**
      * Serialize a code graph to JSON.
      */
     public String toJson(CodeGraph graph) {
-        return gson.toJson(buildGraphObject(graph));
+        StringWriter out = new StringWriter();
+        writeJson(graph, out);
+        return out.toString();
     }
 
-    private JsonObject buildResultObject(AnalysisResult result) {
-        JsonObject root = new JsonObject();
-        root.addProperty("command", result.getCommand());
-        root.addProperty("target", result.getTarget());
-        root.addProperty("timestamp", result.getTimestamp().toString());
-        root.addProperty("analysisTimeMs", result.getAnalysisTimeMs());
-
-        JsonObject stats = new JsonObject();
-        stats.addProperty("totalClassesParsed", result.getTotalClassesParsed());
-        stats.addProperty("totalMethodsParsed", result.getTotalMethodsParsed());
-        stats.addProperty("graphNodes", result.getGraph().nodeCount());
-        stats.addProperty("graphEdges", result.getGraph().edgeCount());
-        root.add("stats", stats);
-
-        root.add("graph", buildGraphObject(result.getGraph()));
-        return root;
+    /**
+     * Stream an analysis result as JSON. Nodes and edges are written as they
+     * are iterated, so no intermediate JSON tree is built.
+     */
+    public void writeJson(AnalysisResult result, Writer out) {
+        try {
+            JsonWriter writer = newJsonWriter(out);
+            writeResult(writer, result);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write JSON", e);
+        }
+    }
+
+    /**
+     * Stream a code graph as JSON.
+     */
+    public void writeJson(CodeGraph graph, Writer out) {
+        try {
+            JsonWriter writer = newJsonWriter(out);
+            writeGraph(writer, graph);
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write JSON", e);
+        }
     }
 
-    private JsonObject buildGraphObject(CodeGraph graph) {
-        JsonObject graphObj = new JsonObject();
+    /**
+     * Create a JSON writer with this serializer's formatting, for callers that
+     * embed results in their own messages.
+     */
+    public JsonWriter newJsonWriter(Writer out) throws IOException {
+        return gson.newJsonWriter(out);
+    }
 
-        JsonArray nodesArr = new JsonArray();
+    /**
+     * Write an analysis result as the next value of an open JSON writer.
+     * A profiled result gets a trailing {@code metrics} array that also
+     * covers the writing of its graph.
+     */
+    public void writeResult(JsonWriter writer, AnalysisResult result) throws IOException {
+        writer.beginObject();
+        if (format == OutputFormat.COMPACT)
+            writer.name("format").value("compact");
+        writer.name("command").value(result.getCommand());
+        writer.name("target").value(result.getTarget());
+        writer.name("timestamp").value(result.getTimestamp().toString());
+        writer.name("analysisTimeMs").value(result.getAnalysisTimeMs());
+
+        writer.name("stats").beginObject();
+        writer.name("totalClassesParsed").value(result.getTotalClassesParsed());
+        writer.name("totalMethodsParsed").value(result.getTotalMethodsParsed());
+        writer.name("graphNodes").value(result.getGraph().nodeCount());
+        writer.name("graphEdges").value(result.getGraph().edgeCount());
+        writer.endObject();
+
+        if (result.getPaths() != null) {
+            writer.name("paths").beginArray();
+            for (List<String> path : result.getPaths()) {
+                writer.beginArray();
+                for (String nodeId : path) {
+                    writer.value(nodeId);
+                }
+                writer.endArray();
+            }
+            writer.endArray();
+        }
+        if (result.getAttribution() != null) {
+            writer.name("attribution").beginObject();
+            for (Map.Entry<String, List<String>> entry : result.getAttribution().entrySet()) {
+                writer.name(entry.getKey()).beginArray();
+                for (String nodeId : entry.getValue()) {
+                    writer.value(nodeId);
+                }
+                writer.endArray();
+            }
+            writer.endObject();
+        }
+
+        writer.name("graph");
+        if (result.getMetrics() == null) {
+            writeGraph(writer, result.getGraph());
+            writer.endObject();
+            return;
+        }
+
+        MetricsRecorder recorder = new MetricsRecorder();
+        recorder.addAll(result.getMetrics());
+        try (MetricsRecorder.Phase phase = recorder.start("serialization")) {
+            writeGraph(writer, result.getGraph());
+            phase.count("nodes", result.getGraph().nodeCount()).count("edges", result.getGraph().edgeCount());
+        }
+        writer.name("metrics");
+        writeMetrics(writer, recorder.getPhases());
+        writer.endObject();
+    }
+
+    private static void writeMetrics(JsonWriter writer, List<PhaseMetrics> phases) throws IOException {
+        writer.beginArray();
+        for (PhaseMetrics phase : phases) {
+            writer.beginObject();
+            writer.name("phase").value(phase.getName());
+            writer.name("wallMs").value(phase.getWallNanos() / 1e6);
+            writer.name("cpuMs").value(phase.getCpuNanos() >= 0 ? phase.getCpuNanos() / 1e6 : -1);
+            writer.name("allocatedBytes").value(phase.getAllocatedBytes());
+            writer.name("counts").beginObject();
+            for (Map.Entry<String, Long> count : phase.getCounts().entrySet()) {
+                writer.name(count.getKey()).value(count.getValue());
+            }
+            writer.endObject();
+            writer.endObject();
+        }
+        writer.endArray();
+    }
+
+    private void writeGraph(JsonWriter writer, CodeGraph graph) throws IOException {
+        if (format == OutputFormat.COMPACT) {
+            new CompactGraphWriter(graph).write(writer);
+            return;
+        }
+        writer.beginObject();
+
+        writer.name("nodes").beginArray();
         for (GraphNode node : graph.getNodes()) {
-            JsonObject nodeObj = new JsonObject();
-            nodeObj.addProperty("id", node.getId());
-            nodeObj.addProperty("name", node.getName());
-            nodeObj.addProperty("qualifiedName", node.getQualifiedName());
-            nodeObj.addProperty("type", node.getType().name());
+            writer.beginObject();
+            writer.name("id").value(node.getId());
+            writer.name("name").value(node.getName());
+            writer.name("qualifiedName").value(node.getQualifiedName());
+            writer.name("type").value(node.getType().name());
             if (node.getFilePath() != null)
-                nodeObj.addProperty("filePath", node.getFilePath());
+                writer.name("filePath").value(node.getFilePath());
             if (node.getLineNumber() > 0)
-                nodeObj.addProperty("lineNumber", node.getLineNumber());
+                writer.name("lineNumber").value(node.getLineNumber());
             if (!node.getMetadata().isEmpty()) {
-                nodeObj.add("metadata", gson.toJsonTree(node.getMetadata()));
+                writer.name("metadata");
+                writeMetadata(writer, node.getMetadata());
             }
-            nodesArr.add(nodeObj);
+            writer.endObject();
         }
-        graphObj.add("nodes", nodesArr);
+        writer.endArray();
 
-        JsonArray edgesArr = new JsonArray();
+        writer.name("edges").beginArray();
         for (GraphEdge edge : graph.getEdges()) {
-            JsonObject edgeObj = new JsonObject();
-            edgeObj.addProperty("id", edge.getId());
-            edgeObj.addProperty("source", edge.getSourceId());
-            edgeObj.addProperty("target", edge.getTargetId());
-            edgeObj.addProperty("type", edge.getType().name());
+            writer.beginObject();
+            writer.name("id").value(edge.getId());
+            writer.name("source").value(edge.getSourceId());
+            writer.name("target").value(edge.getTargetId());
+            writer.name("type").value(edge.getType().name());
             if (!edge.getMetadata().isEmpty()) {
-                edgeObj.add("metadata", gson.toJsonTree(edge.getMetadata()));
+                writer.name("metadata");
+                writeMetadata(writer, edge.getMetadata());
             }
-            edgesArr.add(edgeObj);
+            writer.endObject();
         }
-        graphObj.add("edges", edgesArr);
+        writer.endArray();
 
-        return graphObj;
+        writer.endObject();
+    }
+
+    private static void writeMetadata(JsonWriter writer, Map<String, String> metadata) throws IOException {
+        writer.beginObject();
+        for (Map.Entry<String, String> entry : metadata.entrySet()) {
+            writer.name(entry.getKey()).value(entry.getValue());
+        }
+        writer.endObject();
     }
 
     /**
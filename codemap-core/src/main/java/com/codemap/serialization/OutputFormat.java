@@ -0,0 +1,13 @@
+package com.codemap.serialization;
+
+/**
+ * JSON layouts supported by {@link GraphJsonSerializer}.
+ */
+public enum OutputFormat {
+    /** Indented JSON with one object per node and edge. */
+    PRETTY,
+    /** Single-line JSON with one object per node and edge. */
+    PLAIN,
+    /** Single-line JSON with a string table and index-based nodes and edges. */
+    COMPACT
+}
@@ -0,0 +1,452 @@
+package com.codemap.server;
+
+import com.codemap.CodeMapEngine;
+import com.codemap.model.AnalysisResult;
+import com.codemap.model.CodeGraph;
+import com.codemap.model.EdgeType;
+import com.codemap.model.GraphDelta;
+import com.codemap.serialization.GraphJsonSerializer;
+import com.codemap.serialization.OutputFormat;
+import com.google.gson.*;
+import com.google.gson.stream.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Long-running query server that keeps an analyzed {@link CodeMapEngine} warm
+ * so IDE plugins do not re-parse the project for every action.
+ *
+ * Protocol: one JSON object per line in each direction.
+ * <pre>
+ * → {"id": 1, "command": "callgraph", "target": "A.main", "depth": 3}
+ * ← {"id": 1, "ok": true, "result": { ...analysis result... }}
+ * ← {"id": 2, "ok": false, "error": "Unknown command: foo ..."}
+ * </pre>
+ * A request may add {@code "format": "compact"} to receive the result in the
+ * {@link OutputFormat#COMPACT} layout. A {@code path} request names its end
+ * point and may limit the paths and the edge types followed:
+ * <pre>
+ * → {"id": 3, "command": "path", "target": "UserController", "to": "UserRepository",
+ *    "paths": 3, "edgeTypes": ["CALLS", "DEPENDENCY"]}
+ * </pre>
+ * An {@code impact-batch} request gives either changed files or a git
+ * revision range of the repository containing the source root:
+ * <pre>
+ * → {"id": 4, "command": "impact-batch", "range": "main...HEAD"}
+ * → {"id": 5, "command": "impact-batch", "files": ["src/com/example/A.java"]}
+ * </pre>
+ * Besides the analysis commands of {@link CodeMapEngine#COMMANDS}, the server
+ * understands {@code analyze} (re-analyze the source root, reusing cached
+ * parse results), {@code ping} and {@code shutdown}. Unsolicited messages
+ * carry an {@code event} field instead of an {@code id}, e.g. the
+ * {@code ready} event sent when a client connects.
+ *
+ * With {@link #watch(Duration)} the server also watches the source roots and
+ * patches the graph as files change, sending every connected client a
+ * {@code graphChanged} event:
+ * <pre>
+ * ← {"event": "graphChanged", "files": ["src/A.java"], "nodes": 120, "edges": 340,
+ *    "addedNodes": [...], "removedNodes": [...], "changedNodes": [...],
+ *    "addedEdges": [...], "removedEdges": [...], "changedEdges": [...]}
+ * </pre>
+ */
+public class CodeMapServer {
+
+    private static final Logger log = LoggerFactory.getLogger(CodeMapServer.class);
+
+    private final CodeMapEngine engine;
+    private final Path sourceRoot;
+    private final List<Path> extraRoots;
+    private final GraphJsonSerializer serializer = new GraphJsonSerializer(OutputFormat.PLAIN);
+    private final GraphJsonSerializer compactSerializer = new GraphJsonSerializer(OutputFormat.COMPACT);
+    private final Object engineLock = new Object();
+    private final Set<Writer> clients = new CopyOnWriteArraySet<>();
+    private volatile boolean running = true;
+    private volatile ServerSocketChannel serverChannel;
+    private volatile SourceWatcher watcher;
+
+    /**
+     * @param engine     engine that has already analyzed {@code sourceRoot}
+     * @param sourceRoot source root used for {@code analyze} requests
+     */
+    public CodeMapServer(CodeMapEngine engine, Path sourceRoot) {
+        this(engine, sourceRoot, List.of());
+    }
+
+    /**
+     * @param engine     engine that has already analyzed {@code sourceRoot}
+     *                   and {@code extraRoots}
+     * @param sourceRoot source root used for {@code analyze} requests
+     * @param extraRoots further source roots analyzed and watched with it
+     */
+    public CodeMapServer(CodeMapEngine engine, Path sourceRoot, List<Path> extraRoots) {
+        this.engine = engine;
+        this.sourceRoot = sourceRoot;
+        this.extraRoots = List.copyOf(extraRoots);
+    }
+
+    /**
+     * Watch the source roots and keep the graph up to date: each debounced
+     * batch of changed files is re-parsed and patched into the graph, and
+     * the changes are sent to all connected clients. Requests see the graph
+     * either before or after a batch, never in between.
+     */
+    public void watch(Duration debounce) throws IOException {
+        watch(debounce, List.of());
+    }
+
+    /**
+     * Watch the source roots as for {@link #watch(Duration)}, except for
+     * the given directories, e.g. a cache directory inside the project that
+     * the engine writes to as it applies changes.
+     */
+    public void watch(Duration debounce, Collection<Path> excluded) throws IOException {
+        List<Path> roots = new ArrayList<>();
+        roots.add(sourceRoot);
+        roots.addAll(extraRoots);
+        SourceWatcher sourceWatcher = new SourceWatcher(roots, excluded, debounce, new SourceWatcher.Listener() {
+            @Override
+            public void filesChanged(Set<Path> paths) {
+                applyChanges(paths);
+            }
+
+            @Override
+            public void overflow() {
+                reanalyze();
+            }
+        });
+        watcher = sourceWatcher;
+        sourceWatcher.start();
+    }
+
+    /**
+     * Serve requests from a single client until end of input or a
+     * {@code shutdown} request.
+     */
+    public void serve(Reader in, Writer out) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        send(out, readyEvent());
+
+        clients.add(out);
+        try {
+            String line;
+            while (running && (line = reader.readLine()) != null) {
+                if (line.isBlank())
+                    continue;
+                send(out, handle(line));
+            }
+        } finally {
+            clients.remove(out);
+        }
+    }
+
+    /**
+     * Listen on a Unix domain socket and serve each connection on its own
+     * thread until a client sends {@code shutdown}.
+     */
+    public void serveSocket(Path socketPath) throws IOException {
+        Files.deleteIfExists(socketPath);
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            serverChannel = server;
+            server.bind(UnixDomainSocketAddress.of(socketPath));
+            log.info("Listening on {}", socketPath);
+
+            while (running) {
+                SocketChannel client;
+                try {
+                    client = server.accept();
+                } catch (ClosedChannelException e) {
+                    break;
+                }
+                Thread worker = new Thread(() -> serveConnection(client), "codemap-client");
+                worker.setDaemon(true);
+                worker.start();
+            }
+        } finally {
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    /**
+     * Handle one request line and return the response to send.
+     */
+    Response handle(String line) {
+        JsonElement id = JsonNull.INSTANCE;
+        try {
+            JsonObject request = JsonParser.parseString(line).getAsJsonObject();
+            if (request.has("id"))
+                id = request.get("id");
+
+            String command = stringField(request, "command");
+            if (command == null)
+                return error(id, "Missing 'command'");
+
+            switch (command) {
+                case "ping":
+                    return ok(id);
+                case "shutdown":
+                    stop();
+                    return ok(id);
+                case "analyze": {
+                    CodeGraph graph;
+                    synchronized (engineLock) {
+                        graph = engine.analyze(sourceRoot, extraRoots);
+                    }
+                    Response response = ok(id);
+                    response.envelope.addProperty("nodes", graph.nodeCount());
+                    response.envelope.addProperty("edges", graph.edgeCount());
+                    return response;
+                }
+                case "impact-batch": {
+                    List<Path> files = new ArrayList<>();
+                    for (String file : stringList(request, "files")) {
+                        files.add(Path.of(file));
+                    }
+                    AnalysisResult result;
+                    synchronized (engineLock) {
+                        result = engine.runImpactBatch(files, stringField(request, "range"));
+                    }
+                    boolean compact = "compact".equalsIgnoreCase(stringField(request, "format"));
+                    return new Response(ok(id).envelope, result, compact);
+                }
+                default: {
+                    String target = stringField(request, "target");
+                    int depth = request.has("depth") ? request.get("depth").getAsInt() : 5;
+                    CodeMapEngine.PathOptions paths = new CodeMapEngine.PathOptions(stringField(request, "to"),
+                            request.has("paths") ? request.get("paths").getAsInt() : 1, edgeTypes(request));
+                    AnalysisResult result;
+                    synchronized (engineLock) {
+                        result = engine.runCommand(command, target, depth, paths);
+                    }
+                    boolean compact = "compact".equalsIgnoreCase(stringField(request, "format"));
+                    return new Response(ok(id).envelope, result, compact);
+                }
+            }
+        } catch (JsonParseException | IllegalStateException | IllegalArgumentException e) {
+            return error(id, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Request failed: {}", line, e);
+            return error(id, e.toString());
+        }
+    }
+
+    /**
+     * Patch the graph for a batch of changed files and notify the clients.
+     */
+    void applyChanges(Set<Path> paths) {
+        try {
+            GraphDelta delta;
+            synchronized (engineLock) {
+                delta = engine.update(paths);
+            }
+            if (!delta.isEmpty())
+                broadcast(graphChangedEvent(delta, paths));
+        } catch (RuntimeException e) {
+            log.error("Failed to apply changes to {}", paths, e);
+        }
+    }
+
+    /**
+     * Re-analyze the source roots after the watcher lost events, and notify
+     * the clients of the difference.
+     */
+    private void reanalyze() {
+        try {
+            GraphDelta delta;
+            synchronized (engineLock) {
+                CodeGraph before = engine.getFullGraph();
+                delta = GraphDelta.diff(before, engine.analyze(sourceRoot, extraRoots));
+            }
+            if (!delta.isEmpty())
+                broadcast(graphChangedEvent(delta, Set.of()));
+        } catch (RuntimeException e) {
+            log.error("Failed to re-analyze {}", sourceRoot, e);
+        }
+    }
+
+    private void broadcast(Response event) {
+        for (Writer client : clients) {
+            try {
+                send(client, event);
+            } catch (IOException e) {
+                log.warn("Failed to notify client: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stop accepting requests; the serving loops exit after the current one.
+     */
+    public void stop() {
+        running = false;
+        SourceWatcher sourceWatcher = watcher;
+        if (sourceWatcher != null) {
+            try {
+                sourceWatcher.close();
+            } catch (IOException e) {
+                log.warn("Failed to stop watching: {}", e.getMessage());
+            }
+        }
+        ServerSocketChannel channel = serverChannel;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close server socket: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void serveConnection(SocketChannel client) {
+        try (client;
+                Reader in = Channels.newReader(client, StandardCharsets.UTF_8);
+                Writer out = Channels.newWriter(client, StandardCharsets.UTF_8)) {
+            serve(in, out);
+        } catch (IOException e) {
+            log.warn("Client connection failed: {}", e.getMessage());
+        }
+    }
+
+    private Response readyEvent() {
+        JsonObject event = new JsonObject();
+        event.addProperty("event", "ready");
+        synchronized (engineLock) {
+            CodeGraph graph = engine.getFullGraph();
+            event.addProperty("nodes", graph.nodeCount());
+            event.addProperty("edges", graph.edgeCount());
+        }
+        return new Response(event, null, false);
+    }
+
+    private static Response graphChangedEvent(GraphDelta delta, Set<Path> paths) {
+        JsonObject event = new JsonObject();
+        event.addProperty("event", "graphChanged");
+        JsonArray files = new JsonArray();
+        paths.forEach(p -> files.add(p.toString()));
+        event.add("files", files);
+        event.addProperty("nodes", delta.getGraph().nodeCount());
+        event.addProperty("edges", delta.getGraph().edgeCount());
+        event.add("addedNodes", idArray(delta.getAddedNodes()));
+        event.add("removedNodes", idArray(delta.getRemovedNodes()));
+        event.add("changedNodes", idArray(delta.getChangedNodes()));
+        event.add("addedEdges", idArray(delta.getAddedEdges()));
+        event.add("removedEdges", idArray(delta.getRemovedEdges()));
+        event.add("changedEdges", idArray(delta.getChangedEdges()));
+        return new Response(event, null, false);
+    }
+
+    private static JsonArray idArray(List<String> ids) {
+        JsonArray array = new JsonArray(ids.size());
+        ids.forEach(array::add);
+        return array;
+    }
+
+    /**
+     * Write a message as one line. The analysis result, if any, is streamed
+     * straight into the output rather than built as a JSON tree first.
+     */
+    private void send(Writer out, Response message) throws IOException {
+        synchronized (out) {
+            JsonWriter writer = serializer.newJsonWriter(out);
+            writer.beginObject();
+            for (var entry : message.envelope.entrySet()) {
+                if (!entry.getValue().isJsonNull())
+                    writer.name(entry.getKey()).jsonValue(entry.getValue().toString());
+            }
+            if (message.result != null) {
+                writer.name("result");
+                GraphJsonSerializer resultSerializer = message.compact ? compactSerializer : serializer;
+                resultSerializer.writeResult(writer, message.result);
+            }
+            writer.endObject();
+            writer.flush();
+            out.write('\n');
+            out.flush();
+        }
+    }
+
+    private static Response ok(JsonElement id) {
+        JsonObject response = new JsonObject();
+        response.add("id", id);
+        response.addProperty("ok", true);
+        return new Response(response, null, false);
+    }
+
+    private static Response error(JsonElement id, String message) {
+        JsonObject response = new JsonObject();
+        response.add("id", id);
+        response.addProperty("ok", false);
+        response.addProperty("error", message);
+        return new Response(response, null, false);
+    }
+
+    /**
+     * The {@code edgeTypes} of a request, given as an array or a
+     * comma-separated string, or null for all types.
+     */
+    private static Set<EdgeType> edgeTypes(JsonObject request) {
+        Set<EdgeType> types = EnumSet.noneOf(EdgeType.class);
+        for (String name : stringList(request, "edgeTypes")) {
+            types.add(EdgeType.valueOf(name.toUpperCase()));
+        }
+        return types.isEmpty() ? null : types;
+    }
+
+    /**
+     * A field given as an array of strings or a comma-separated string,
+     * without blank entries; empty if absent.
+     */
+    private static List<String> stringList(JsonObject obj, String name) {
+        JsonElement value = obj.get(name);
+        List<String> values = new ArrayList<>();
+        if (value == null || value.isJsonNull())
+            return values;
+        if (value.isJsonArray()) {
+            value.getAsJsonArray().forEach(e -> values.add(e.getAsString()));
+        } else {
+            values.addAll(List.of(value.getAsString().split(",")));
+        }
+        values.replaceAll(String::trim);
+        values.removeIf(String::isEmpty);
+        return values;
+    }
+
+    private static String stringField(JsonObject obj, String name) {
+        JsonElement value = obj.get(name);
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    /**
+     * A message to send: small envelope fields plus an optional analysis
+     * result written under {@code result}.
+     */
+    static final class Response {
+        final JsonObject envelope;
+        final AnalysisResult result;
+        final boolean compact;
+
+        Response(JsonObject envelope, AnalysisResult result, boolean compact) {
+            this.envelope = envelope;
+            this.result = result;
+            this.compact = compact;
+        }
+    }
+}
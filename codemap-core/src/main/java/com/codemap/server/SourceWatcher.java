@@ -0,0 +1,211 @@
+package com.codemap.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches source directory trees and reports changed {@code .java} files in
+ * batches. Events are collected until none has arrived for the debounce
+ * interval, so that an editor's save or a branch switch is delivered as one
+ * batch rather than file by file; a steady stream of events is still flushed
+ * after {@value #MAX_DELAY_FACTOR} debounce intervals.
+ *
+ * Directories created under a watched root are watched as they appear, and
+ * reported themselves so that files written into them before they were
+ * registered are not missed. A deleted directory is reported as its path.
+ * Hidden directories such as {@code .git} or {@code .codemap}, and any
+ * excluded directory such as a cache or build output, are not watched, so
+ * writes there do not wake the watcher. The listener is called on the
+ * watcher's own thread.
+ */
+public class SourceWatcher implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SourceWatcher.class);
+
+    static final int MAX_DELAY_FACTOR = 10;
+
+    /**
+     * Receives the batches of a {@link SourceWatcher}.
+     */
+    public interface Listener {
+
+        /**
+         * Files, or directories, under the watched roots that were created,
+         * modified or deleted.
+         */
+        void filesChanged(Set<Path> paths);
+
+        /**
+         * Events were lost, e.g. because the operating system's queue
+         * overflowed; the listener should rescan the roots.
+         */
+        void overflow();
+    }
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Set<Path> watched = new HashSet<>();
+    private final Set<Path> roots = new HashSet<>();
+    private final List<Path> excluded = new ArrayList<>();
+    private final long debounceNanos;
+    private final Listener listener;
+    private final Thread thread;
+
+    /**
+     * Register the roots and their subdirectories. Call {@link #start()} to
+     * begin delivering batches.
+     */
+    public SourceWatcher(List<Path> roots, Duration debounce, Listener listener) throws IOException {
+        this(roots, List.of(), debounce, listener);
+    }
+
+    /**
+     * Register the roots and their subdirectories, leaving out hidden
+     * directories and those under {@code excluded}. Call {@link #start()} to
+     * begin delivering batches.
+     */
+    public SourceWatcher(List<Path> roots, Collection<Path> excluded, Duration debounce, Listener listener)
+            throws IOException {
+        for (Path root : roots) {
+            this.roots.add(root.toAbsolutePath().normalize());
+        }
+        for (Path dir : excluded) {
+            this.excluded.add(dir.toAbsolutePath().normalize());
+        }
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.debounceNanos = debounce.toNanos();
+        this.listener = listener;
+        this.thread = new Thread(this::run, "codemap-watcher");
+        this.thread.setDaemon(true);
+        try {
+            for (Path root : roots) {
+                registerTree(root);
+            }
+        } catch (IOException e) {
+            watchService.close();
+            throw e;
+        }
+        log.info("Watching {} directories under {}", directories.size(), roots);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stop watching; a batch being delivered is completed first.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void run() {
+        Set<Path> pending = new LinkedHashSet<>();
+        boolean overflow = false;
+        long firstEvent = 0;
+        try {
+            while (true) {
+                WatchKey key;
+                if (pending.isEmpty() && !overflow) {
+                    key = watchService.take();
+                    firstEvent = System.nanoTime();
+                } else {
+                    key = watchService.poll(debounceNanos, TimeUnit.NANOSECONDS);
+                }
+
+                if (key != null) {
+                    overflow |= collect(key, pending);
+                    if (System.nanoTime() - firstEvent < MAX_DELAY_FACTOR * debounceNanos)
+                        continue;
+                }
+                if (overflow) {
+                    listener.overflow();
+                } else if (!pending.isEmpty()) {
+                    listener.filesChanged(Collections.unmodifiableSet(new LinkedHashSet<>(pending)));
+                }
+                pending.clear();
+                overflow = false;
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            log.debug("Watcher stopped");
+        } catch (RuntimeException e) {
+            log.error("Watcher failed", e);
+        }
+    }
+
+    /**
+     * Add the paths of one key's events to {@code pending}.
+     *
+     * @return whether events were lost
+     */
+    private boolean collect(WatchKey key, Set<Path> pending) {
+        Path dir = directories.get(key);
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || dir == null) {
+                overflow = true;
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (event.kind() == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                if (isSkipped(path))
+                    continue;
+                try {
+                    registerTree(path);
+                    pending.add(path);
+                } catch (IOException e) {
+                    log.warn("Cannot watch {}: {}", path, e.getMessage());
+                    overflow = true;
+                }
+            } else if (path.toString().endsWith(".java") || event.kind() == ENTRY_DELETE && watched.contains(path)) {
+                // Other deletions, e.g. of a cache's renamed temporary file, are no source change
+                pending.add(path);
+            }
+        }
+        if (!key.reset())
+            watched.remove(directories.remove(key));
+        return overflow;
+    }
+
+    /**
+     * Whether a directory is left unwatched: hidden, unless it is a root, or
+     * under an excluded directory.
+     */
+    private boolean isSkipped(Path dir) {
+        Path absolute = dir.toAbsolutePath().normalize();
+        if (roots.contains(absolute))
+            return false;
+        Path name = absolute.getFileName();
+        if (name != null && name.toString().startsWith("."))
+            return true;
+        for (Path exclusion : excluded) {
+            if (absolute.startsWith(exclusion))
+                return true;
+        }
+        return false;
+    }
+
+    private void registerTree(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (isSkipped(dir))
+                    return FileVisitResult.SKIP_SUBTREE;
+                directories.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+                watched.add(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -1,10 +1,17 @@
 package com.codemap;
 
+import com.codemap.metrics.PhaseMetrics;
 import com.codemap.model.*;
+import com.google.gson.*;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -142,6 +149,22 @@ class CodeMapEngineTest {
         assertEquals("impact-analysis", result.getCommand());
     }
 
+    @Test
+    void shouldFindPathsBetweenMethods() {
+        engine.analyze(tempDir);
+        AnalysisResult result = engine.runCommand("path", "ServiceImpl.process", 5,
+                new CodeMapEngine.PathOptions("Repository.fetch", 3, EnumSet.of(EdgeType.CALLS)));
+        assertEquals("path", result.getCommand());
+        assertEquals(1, result.getPaths().size());
+        assertEquals(2, result.getPaths().get(0).size());
+        assertEquals(2, result.getGraph().nodeCount());
+        assertEquals(1, result.getGraph().edgeCount());
+        assertTrue(engine.toJson(result).contains("\"paths\""));
+
+        assertTrue(engine.getPaths("Repository", "Controller", 1, null).getPaths().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> engine.runCommand("path", "Controller", 5));
+    }
+
     @Test
     void shouldSerializeToJson() {
         engine.analyze(tempDir);
@@ -153,6 +176,156 @@ class CodeMapEngineTest {
         assertTrue(json.contains("\"command\""));
     }
 
+    @Test
+    void shouldReuseCachedFilesOnReanalysis() {
+        CodeGraph first = engine.analyze(tempDir);
+        CodeGraph second = engine.analyze(tempDir);
+
+        assertEquals(4L, engine.getCacheStats().get("hits"));
+        assertEquals(first.nodeCount(), second.nodeCount());
+        assertEquals(first.edgeCount(), second.edgeCount());
+    }
+
+    @Test
+    void shouldAttachPhaseMetricsWhenProfiling() {
+        engine.analyze(tempDir);
+        assertNull(engine.runCommand("fullgraph", null, 5).getMetrics());
+
+        engine.setProfiling(true);
+        AnalysisResult result = engine.runCommand("fullgraph", null, 5);
+        List<String> names = result.getMetrics().stream().map(PhaseMetrics::getName).toList();
+        assertEquals(List.of("discovery", "cache", "parse", "build.pass1", "build.pass2", "build.index", "query"), names);
+        assertEquals(4L, result.getMetrics().get(0).getCounts().get("files"));
+
+        JsonArray metrics = JsonParser.parseString(engine.toJson(result)).getAsJsonObject().getAsJsonArray("metrics");
+        assertEquals(names.size() + 1, metrics.size());
+        JsonObject serialization = metrics.get(names.size()).getAsJsonObject();
+        assertEquals("serialization", serialization.get("phase").getAsString());
+        assertEquals(result.getGraph().nodeCount(), serialization.getAsJsonObject("counts").get("nodes").getAsInt());
+    }
+
+    @Test
+    void shouldAttributeImpactOfGitChanges(@TempDir Path root) throws Exception {
+        Path a = root.resolve("A.java");
+        Files.writeString(a, "package p;\npublic class A {\n    public void save() {}\n\n    public void load() {}\n}\n");
+        Files.writeString(root.resolve("B.java"),
+                "package p;\npublic class B {\n    private A a;\n    public void run() { a.save(); }\n}\n");
+        Files.writeString(root.resolve("C.java"),
+                "package p;\npublic class C {\n    private A a;\n    public void go() { a.load(); }\n}\n");
+        git(root, "init", "-q");
+        // Settings that change the diff's path prefixes must not matter
+        git(root, "config", "diff.mnemonicPrefix", "true");
+        git(root, "config", "diff.noprefix", "true");
+        git(root, "add", ".");
+        git(root, "-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "-m", "initial");
+
+        // Change the body of save() in the working tree
+        Files.writeString(a, "package p;\npublic class A {\n    public void save() { load(); }\n\n    public void load() {}\n}\n");
+        engine.analyze(root);
+        AnalysisResult result = engine.runImpactBatch(List.of(), "HEAD");
+
+        assertEquals("impact-batch", result.getCommand());
+        assertEquals(List.of("method:p.A.save()"), List.copyOf(result.getAttribution().keySet()));
+        assertTrue(result.getAttribution().get("method:p.A.save()").contains("method:p.B.run()"));
+        assertTrue(result.getGraph().getNode("method:p.B.run()").isPresent());
+        assertTrue(result.getGraph().getNode("method:p.C.go()").isEmpty());
+        assertTrue(engine.toJson(result).contains("\"attribution\""));
+
+        AnalysisResult byFile = engine.runImpactBatch(List.of(a), null);
+        assertTrue(byFile.getAttribution().get("method:p.A.load()").contains("method:p.C.go()"));
+        assertThrows(IllegalArgumentException.class, () -> engine.runImpactBatch(List.of(), "--output=x"));
+    }
+
+    private static void git(Path directory, String... args) throws Exception {
+        List<String> command = new ArrayList<>(List.of("git", "-C", directory.toString()));
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes());
+        assertEquals(0, process.waitFor(), output);
+    }
+
+    @Test
+    void shouldPatchGraphWhenFileChanges(@TempDir Path root) throws IOException {
+        Path a = root.resolve("A.java");
+        Path b = root.resolve("B.java");
+        Files.writeString(a, "package p;\npublic class A {\n    public void save() {}\n}\n");
+        Files.writeString(b, "package p;\npublic class B {\n    private A a;\n    public void run() { a.save(); }\n}\n");
+        engine.analyze(root);
+
+        Files.writeString(a, "package p;\npublic class A {\n    public void store() {}\n}\n");
+        GraphDelta delta = engine.update(a.toAbsolutePath());
+        assertEquals(List.of("method:p.A.save()"), delta.getRemovedNodes());
+        assertEquals(List.of("method:p.A.store()"), delta.getAddedNodes());
+        assertSame(delta.getGraph(), engine.getFullGraph());
+        assertEquals(ids(new CodeMapEngine().analyze(root)), ids(engine.getFullGraph()));
+
+        Path c = root.resolve("C.java");
+        Files.writeString(c, "package p;\npublic class C extends B {}\n");
+        engine.update(c);
+        Files.delete(a);
+        engine.update(a);
+        assertEquals(ids(new CodeMapEngine().analyze(root)), ids(engine.getFullGraph()));
+    }
+
+    @Test
+    void shouldIgnoreChangesToNonSourceFiles(@TempDir Path root) throws IOException {
+        Path src = Files.createDirectories(root.resolve("src"));
+        Files.writeString(src.resolve("A.java"), "package p;\npublic class A {}\n");
+        engine.analyze(src);
+        List<String> before = ids(engine.getFullGraph());
+
+        Path notes = Files.writeString(src.resolve("notes.txt"), "package p;\npublic class Notes {}\n");
+        Path outside = Files.writeString(root.resolve("Outside.java"), "package p;\npublic class Outside {}\n");
+        GraphDelta delta = engine.update(notes);
+        assertTrue(delta.getAddedNodes().isEmpty());
+        delta = engine.update(outside);
+        assertTrue(delta.getAddedNodes().isEmpty());
+        assertEquals(before, ids(engine.getFullGraph()));
+
+        Path b = Files.writeString(src.resolve("B.java"), "package p;\npublic class B {}\n");
+        delta = engine.update(List.of(notes, outside, b));
+        assertEquals(List.of("class:p.B"), delta.getAddedNodes());
+    }
+
+    @Test
+    void shouldApplyBatchOfChangesAsOneDelta(@TempDir Path root) throws IOException {
+        Path sub = Files.createDirectories(root.resolve("p/sub"));
+        Path a = root.resolve("p/A.java");
+        Files.writeString(a, "package p;\npublic class A {\n    public void save() {}\n}\n");
+        Files.writeString(sub.resolve("S.java"), "package p.sub;\npublic class S {}\n");
+        Files.writeString(sub.resolve("T.java"), "package p.sub;\npublic class T {}\n");
+        // Built for patching up front, with the same result as a plain build
+        engine.setIncremental(true);
+        engine.analyze(root);
+        assertEquals(ids(new CodeMapEngine().analyze(root)), ids(engine.getFullGraph()));
+
+        // Renaming a method and back nets out: the temporary name drops out
+        String original = Files.readString(a);
+        Files.writeString(a, original.replace("save", "store"));
+        GraphDelta renamed = engine.update(a);
+        Files.writeString(a, original);
+        GraphDelta delta = renamed.andThen(engine.update(a));
+        assertEquals(List.of(), delta.getAddedNodes());
+        assertEquals(List.of(), delta.getRemovedNodes());
+        assertEquals(List.of("method:p.A.save()"), delta.getChangedNodes());
+
+        // A deleted directory stands for the files beneath it
+        Files.delete(sub.resolve("S.java"));
+        Files.delete(sub.resolve("T.java"));
+        Files.delete(sub);
+        Path b = root.resolve("p/B.java");
+        Files.writeString(b, "package p;\npublic class B {}\n");
+        delta = engine.update(List.of(sub, b));
+        assertTrue(delta.getRemovedNodes().containsAll(List.of("class:p.sub.S", "class:p.sub.T")));
+        assertTrue(delta.getAddedNodes().contains("class:p.B"));
+        assertEquals(ids(new CodeMapEngine().analyze(root)), ids(engine.getFullGraph()));
+    }
+
+    private static List<String> ids(CodeGraph graph) {
+        return Stream.concat(graph.getNodes().stream().map(GraphNode::getId),
+                graph.getEdges().stream().map(GraphEdge::getId)).sorted().toList();
+    }
+
     @Test
     void shouldThrowWhenNotAnalyzed() {
         assertThrows(IllegalStateException.class, () -> engine.getCallGraph("anything", 1));
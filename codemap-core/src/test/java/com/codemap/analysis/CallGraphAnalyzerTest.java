@@ -61,6 +61,24 @@ class CallGraphAnalyzerTest {
         assertTrue(result.nodeCount() > 0, "Should find callers of store()");
     }
 
+    @Test
+    void shouldResolveSymbolsBySuffix() {
+        SymbolIndex symbols = graph.symbols();
+
+        assertEquals("method:com.example.C.store()", symbols.resolveMethodId("store"));
+        assertEquals("method:com.example.C.store()", symbols.resolveMethodId("C.store"));
+        assertEquals("method:com.example.C.store()", symbols.resolveMethodId("com.example.C.store()"));
+        assertEquals("class:com.example.B", symbols.resolveTypeId("B"));
+        assertEquals("class:com.example.B", symbols.resolveTypeId("example.B"));
+        assertNull(symbols.resolveMethodId("missing"));
+    }
+
+    @Test
+    void shouldFallBackToSubstringMatch() {
+        assertEquals("method:com.example.A.process()", graph.symbols().resolveMethodId("proc"));
+        assertEquals("class:com.example.A", graph.symbols().resolveTypeId("ample.A"));
+    }
+
     @Test
     void shouldReturnEmptyForUnknownMethod() {
         CallGraphAnalyzer analyzer = new CallGraphAnalyzer(graph);
@@ -0,0 +1,80 @@
+package com.codemap.analysis;
+
+import com.codemap.model.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the circular dependency detector — cycle sets and deep chains.
+ */
+class CircularDependencyDetectorTest {
+
+    @Test
+    void shouldFindCyclesOverClassEdges() {
+        List<GraphNode> nodes = new ArrayList<>();
+        for (String name : List.of("A", "B", "C", "D", "E", "F")) {
+            nodes.add(classNode(name));
+        }
+        nodes.add(GraphNode.builder().id("method:A.run()").name("run").qualifiedName("A.run()")
+                .type(NodeType.METHOD).build());
+
+        List<GraphEdge> edges = List.of(
+                edge("A", "B", EdgeType.DEPENDENCY),
+                edge("B", "C", EdgeType.EXTENDS),
+                edge("C", "A", EdgeType.IMPLEMENTS),
+                edge("D", "E", EdgeType.DEPENDENCY),
+                edge("E", "D", EdgeType.DEPENDENCY),
+                edge("C", "D", EdgeType.DEPENDENCY),
+                // Calls and self-dependencies are not cycles between classes
+                edge("E", "F", EdgeType.DEPENDENCY),
+                GraphEdge.builder().sourceId("class:F").targetId("method:A.run()").type(EdgeType.CALLS).build(),
+                edge("F", "F", EdgeType.DEPENDENCY),
+                edge("F", "Missing", EdgeType.DEPENDENCY));
+
+        List<List<String>> cycles = new CircularDependencyDetector(new CodeGraph(nodes, edges))
+                .detectCircularDependencies();
+
+        assertEquals(Set.of(Set.of("class:A", "class:B", "class:C"), Set.of("class:D", "class:E")),
+                toSets(cycles));
+    }
+
+    @Test
+    void shouldHandleDeepDependencyChains() {
+        int count = 200_000;
+        List<GraphNode> nodes = new ArrayList<>(count);
+        List<GraphEdge> edges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            nodes.add(classNode("C" + i));
+            edges.add(edge("C" + i, "C" + (i + 1), EdgeType.DEPENDENCY));
+        }
+        // Close a ring over the second half of the chain
+        edges.add(edge("C" + (count - 1), "C" + (count / 2), EdgeType.DEPENDENCY));
+
+        List<List<String>> cycles = new CircularDependencyDetector(new CodeGraph(nodes, edges))
+                .detectCircularDependencies();
+
+        assertEquals(1, cycles.size());
+        assertEquals(count / 2, cycles.get(0).size());
+        assertTrue(cycles.get(0).contains("class:C" + (count / 2)));
+        assertFalse(cycles.get(0).contains("class:C0"));
+    }
+
+    private static GraphNode classNode(String name) {
+        return GraphNode.builder().id("class:" + name).name(name).qualifiedName(name).type(NodeType.CLASS).build();
+    }
+
+    private static GraphEdge edge(String source, String target, EdgeType type) {
+        return GraphEdge.builder().sourceId("class:" + source).targetId("class:" + target).type(type).build();
+    }
+
+    private static Set<Set<String>> toSets(List<List<String>> cycles) {
+        Set<Set<String>> sets = new HashSet<>();
+        for (List<String> cycle : cycles) {
+            sets.add(new HashSet<>(cycle));
+        }
+        return sets;
+    }
+}
@@ -0,0 +1,130 @@
+package com.codemap.analysis;
+
+import com.codemap.model.*;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ImpactAnalyzer — batch impact and mapping changes to nodes.
+ */
+class ImpactAnalyzerTest {
+
+    @Test
+    void shouldMatchSeparateTraversalsPerChangedNode() {
+        Random random = new Random(3);
+        for (int round = 0; round < 10; round++) {
+            int count = 100 + random.nextInt(100);
+            List<GraphNode> nodes = new ArrayList<>();
+            List<GraphEdge> edges = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                nodes.add(node("class:C" + i, NodeType.CLASS, null, 0));
+            }
+            EdgeType[] types = { EdgeType.DEPENDENCY, EdgeType.CALLS, EdgeType.EXTENDS, EdgeType.CONTAINS };
+            for (int i = 0; i < count * 2; i++) {
+                edges.add(edge("class:C" + random.nextInt(count), "class:C" + random.nextInt(count),
+                        types[random.nextInt(types.length)]));
+            }
+            CodeGraph graph = new CodeGraph(nodes, edges);
+
+            // More than 64 changed nodes, so the bitsets span several words
+            List<String> changed = new ArrayList<>();
+            for (int i = 0; i < 70; i++) {
+                changed.add("class:C" + random.nextInt(count));
+            }
+            changed.add("class:Unknown");
+
+            ImpactAnalyzer traversing = new ImpactAnalyzer(graph);
+            ImpactAnalyzer indexed = new ImpactAnalyzer(graph,
+                    new ReachabilityIndex(graph, ImpactAnalyzer.IMPACT_EDGE_TYPES));
+            ImpactAnalyzer.BatchImpact batch = traversing.getBatchImpact(changed);
+            ImpactAnalyzer.BatchImpact fromIndex = indexed.getBatchImpact(changed);
+
+            Set<String> union = new HashSet<>();
+            for (String id : new LinkedHashSet<>(changed)) {
+                if (id.equals("class:Unknown")) {
+                    assertFalse(batch.attribution().containsKey(id));
+                    continue;
+                }
+                CodeGraph single = traversing.getImpactAnalysis(id.substring(6));
+                Set<String> expected = ids(single.getNodes());
+                union.addAll(expected);
+                assertEquals(expected, new HashSet<>(batch.attribution().get(id)), id);
+                assertEquals(expected, new HashSet<>(fromIndex.attribution().get(id)), id);
+            }
+            assertEquals(union, ids(batch.graph().getNodes()));
+            assertEquals(union, ids(fromIndex.graph().getNodes()));
+            assertEquals(batch.graph().edgeCount(), fromIndex.graph().edgeCount());
+        }
+    }
+
+    @Test
+    void shouldMapChangedLinesToEnclosingNodes() {
+        Path file = Path.of("src/com/example/A.java").toAbsolutePath();
+        String path = file.toString();
+        List<GraphNode> nodes = List.of(
+                node("class:com.example.A", NodeType.CLASS, path, 3),
+                node("method:com.example.A.first()", NodeType.METHOD, path, 6),
+                node("method:com.example.A.second()", NodeType.METHOD, path, 12),
+                node("method:com.example.A.third()", NodeType.METHOD, path, 20),
+                node("class:com.example.B", NodeType.CLASS, "src/com/example/B.java", 1));
+        ImpactAnalyzer analyzer = new ImpactAnalyzer(new CodeGraph(nodes, List.of()));
+
+        String diff = String.join("\n",
+                "diff --git a/src/com/example/A.java b/src/com/example/A.java",
+                "--- a/src/com/example/A.java",
+                "+++ b/src/com/example/A.java",
+                "@@ -1 +1 @@",
+                "-import x;",
+                "+import y;",
+                "@@ -8,0 +9,2 @@ class A {",
+                "+    int a;",
+                "+    int b;",
+                "@@ -15,3 +16,6 @@ class A {",
+                // Content lines that look like file headers
+                "--- x;",
+                "-    int c;",
+                "-    int d;",
+                "+++ b/src/com/example/Fake.java",
+                "+    int c;",
+                "+    int d;",
+                "+    int e;",
+                "+    int f;",
+                "+    int g;",
+                "diff --git a/src/com/example/Gone.java b/src/com/example/Gone.java",
+                "--- a/src/com/example/Gone.java",
+                "+++ /dev/null",
+                "@@ -1,5 +0,0 @@",
+                "");
+        ChangeSet changes = ChangeSet.parseDiff(diff, Path.of("").toAbsolutePath());
+        assertEquals(Set.of(file.normalize()), changes.files());
+        assertEquals(List.of(new ChangeSet.LineRange(1, 1), new ChangeSet.LineRange(9, 10),
+                new ChangeSet.LineRange(16, 21)), changes.lines(file.normalize()));
+
+        assertEquals(List.of("class:com.example.A", "method:com.example.A.first()",
+                "method:com.example.A.second()", "method:com.example.A.third()"),
+                analyzer.getChangedNodes(changes));
+
+        ChangeSet wholeFile = ChangeSet.ofFiles(List.of(Path.of("src/com/example/B.java")));
+        assertEquals(List.of("class:com.example.B"), analyzer.getChangedNodes(wholeFile));
+    }
+
+    private static Set<String> ids(List<GraphNode> nodes) {
+        Set<String> ids = new HashSet<>();
+        nodes.forEach(n -> ids.add(n.getId()));
+        return ids;
+    }
+
+    private static GraphNode node(String id, NodeType type, String filePath, int line) {
+        String name = id.substring(id.indexOf(':') + 1);
+        return GraphNode.builder().id(id).name(name).qualifiedName(name).type(type).filePath(filePath)
+                .lineNumber(line).build();
+    }
+
+    private static GraphEdge edge(String source, String target, EdgeType type) {
+        return GraphEdge.builder().sourceId(source).targetId(target).type(type).build();
+    }
+}
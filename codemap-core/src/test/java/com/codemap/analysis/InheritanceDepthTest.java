@@ -0,0 +1,109 @@
+package com.codemap.analysis;
+
+import com.codemap.model.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for InheritanceDepth — memoized depths over EXTENDS chains.
+ */
+class InheritanceDepthTest {
+
+    @Test
+    void shouldMatchNaiveWalkOnRandomHierarchies() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            int count = 50 + random.nextInt(200);
+            List<GraphNode> nodes = new ArrayList<>();
+            List<GraphEdge> edges = new ArrayList<>();
+            Map<String, String> superclass = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                nodes.add(node("class:C" + i, NodeType.CLASS));
+                // Supertypes are earlier classes or outside the project, so there are no cycles
+                int choice = random.nextInt(i + 3);
+                if (choice < i) {
+                    superclass.put("class:C" + i, "class:C" + choice);
+                } else if (choice == i) {
+                    superclass.put("class:C" + i, "class:External");
+                }
+            }
+            superclass.forEach((sub, sup) -> edges.add(edge(sub, sup, EdgeType.EXTENDS)));
+            InheritanceDepth depths = new InheritanceDepth(new CodeGraph(nodes, edges));
+
+            for (GraphNode node : nodes) {
+                int expected = 0;
+                for (String s = superclass.get(node.getId()); s != null; s = superclass.get(s)) {
+                    expected++;
+                }
+                assertEquals(expected, depths.depthOf(node.getId()), node.getId());
+            }
+        }
+    }
+
+    @Test
+    void shouldTakeLongestChainAndFollowCyclesOnce() {
+        List<GraphNode> nodes = List.of(
+                node("class:A", NodeType.CLASS),
+                node("class:B", NodeType.CLASS),
+                node("interface:I", NodeType.INTERFACE),
+                node("interface:J", NodeType.INTERFACE),
+                node("interface:K", NodeType.INTERFACE),
+                node("class:X", NodeType.CLASS),
+                node("class:Y", NodeType.CLASS),
+                node("class:Z", NodeType.CLASS));
+        List<GraphEdge> edges = List.of(
+                edge("class:A", "class:B", EdgeType.EXTENDS),
+                edge("class:A", "interface:I", EdgeType.IMPLEMENTS),
+                // Interfaces may extend several others; the longest chain counts
+                edge("interface:I", "interface:J", EdgeType.EXTENDS),
+                edge("interface:I", "interface:K", EdgeType.EXTENDS),
+                edge("interface:J", "interface:K", EdgeType.EXTENDS),
+                // X and Y form a cycle that leaves through Y to Z and then A
+                edge("class:X", "class:Y", EdgeType.EXTENDS),
+                edge("class:Y", "class:X", EdgeType.EXTENDS),
+                edge("class:Y", "class:Z", EdgeType.EXTENDS),
+                edge("class:Z", "class:A", EdgeType.EXTENDS));
+        InheritanceDepth depths = new InheritanceDepth(new CodeGraph(nodes, edges));
+
+        assertEquals(1, depths.depthOf("class:A"));
+        assertEquals(2, depths.depthOf("interface:I"));
+        assertEquals(2, depths.depthOf("class:Z"));
+        assertEquals(4, depths.depthOf("class:X"));
+        assertEquals(4, depths.depthOf("class:Y"));
+        assertEquals(0, depths.depthOf("class:Unknown"));
+    }
+
+    @Test
+    void shouldAnnotateTypeNodesAndHandleDeepChains() {
+        int count = 100_000;
+        List<GraphNode> nodes = new ArrayList<>();
+        List<GraphEdge> edges = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            nodes.add(node("class:C" + i, NodeType.CLASS));
+            if (i > 0)
+                edges.add(edge("class:C" + i, "class:C" + (i - 1), EdgeType.EXTENDS));
+        }
+        nodes.add(node("method:C0.run()", NodeType.METHOD));
+        CodeGraph graph = new CodeGraph(nodes, edges);
+
+        CodeGraph annotated = new InheritanceDepth(graph).annotate();
+        assertEquals(graph.nodeCount(), annotated.nodeCount());
+        assertEquals(graph.edgeCount(), annotated.edgeCount());
+        assertEquals(String.valueOf(count - 1), annotated.getNode("class:C" + (count - 1)).orElseThrow()
+                .getMetadata().get(InheritanceDepth.METADATA_KEY));
+        assertNull(annotated.getNode("method:C0.run()").orElseThrow()
+                .getMetadata().get(InheritanceDepth.METADATA_KEY));
+    }
+
+    private static GraphNode node(String id, NodeType type) {
+        return GraphNode.builder().id(id).name(id.substring(id.indexOf(':') + 1)).qualifiedName(id).type(type)
+                .metadata("package", "p").build();
+    }
+
+    private static GraphEdge edge(String source, String target, EdgeType type) {
+        return GraphEdge.builder().sourceId(source).targetId(target).type(type).build();
+    }
+}
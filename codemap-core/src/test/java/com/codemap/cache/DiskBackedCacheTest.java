@@ -0,0 +1,137 @@
+package com.codemap.cache;
+
+import com.codemap.model.ClassInfo;
+import com.codemap.parser.JavaParserImpl;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for DiskBackedCache — round-tripping parse results through the
+ * on-disk format and invalidating on content changes.
+ */
+class DiskBackedCacheTest {
+
+    private Path tempDir;
+    private Path cacheDir;
+    private Path sourceFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("codemap-cache-test");
+        cacheDir = DiskBackedCache.defaultDirectory(tempDir);
+        sourceFile = tempDir.resolve("Sample.java");
+        Files.writeString(sourceFile,
+                """
+                        package com.example;
+
+                        import java.util.List;
+import java.util.stream.Stream;
+
+                        public class Sample extends Base implements Runnable {
+                            private List<String> items;
+
+                            public Sample(String name) {
+                                init(name);
+                            }
+
+                            @Override
+                            public void run() {
+                                items.forEach(System.out::println);
+                                helper.process(items);
+                            }
+
+                            private static int count() {
+                                return 0;
+                            }
+                        }
+                        """);
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        Files.walk(tempDir)
+                .sorted((a, b) -> b.compareTo(a))
+                .forEach(p -> {
+                    try {
+                        Files.deleteIfExists(p);
+                    } catch (IOException ignored) {
+                    }
+                });
+    }
+
+    @Test
+    void shouldRestoreEntriesInNewInstance() {
+        List<ClassInfo> parsed = new JavaParserImpl().parseFile(sourceFile);
+        new DiskBackedCache(cacheDir).put(sourceFile, parsed);
+
+        DiskBackedCache reopened = new DiskBackedCache(cacheDir);
+        List<ClassInfo> restored = reopened.get(sourceFile);
+
+        assertNotNull(restored);
+        assertEquals(1L, reopened.getStats().get("hits"));
+        assertEquals(parsed.size(), restored.size());
+
+        ClassInfo expected = parsed.get(0);
+        ClassInfo actual = restored.get(0);
+        assertEquals(expected.getQualifiedName(), actual.getQualifiedName());
+        assertEquals(expected.getSuperClass(), actual.getSuperClass());
+        assertEquals(expected.getInterfaces(), actual.getInterfaces());
+        assertEquals(expected.getFields(), actual.getFields());
+        assertEquals(expected.getImports(), actual.getImports());
+        assertEquals(expected.getMethods().size(), actual.getMethods().size());
+        for (int i = 0; i < expected.getMethods().size(); i++) {
+            assertEquals(expected.getMethods().get(i).getQualifiedName(), actual.getMethods().get(i).getQualifiedName());
+            assertEquals(expected.getMethods().get(i).getMethodCalls(), actual.getMethods().get(i).getMethodCalls());
+            assertEquals(expected.getMethods().get(i).isConstructor(), actual.getMethods().get(i).isConstructor());
+            assertEquals(expected.getMethods().get(i).isStatic(), actual.getMethods().get(i).isStatic());
+            assertEquals(expected.getMethods().get(i).getAccessModifier(), actual.getMethods().get(i).getAccessModifier());
+        }
+    }
+
+    @Test
+    void shouldMissWhenFileContentChanges() throws IOException {
+        DiskBackedCache cache = new DiskBackedCache(cacheDir);
+        cache.put(sourceFile, new JavaParserImpl().parseFile(sourceFile));
+
+        Files.writeString(sourceFile, "package com.example; public class Sample {}");
+
+        assertNull(new DiskBackedCache(cacheDir).get(sourceFile));
+        assertFalse(cache.isValid(sourceFile));
+    }
+
+    @Test
+    void shouldDropEntriesOfRemovedFilesUnderRoot() throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("src"));
+        Path kept = Files.writeString(root.resolve("Kept.java"), "package p; public class Kept {}");
+        Path removed = Files.writeString(root.resolve("Removed.java"), "package p; public class Removed {}");
+        DiskBackedCache cache = new DiskBackedCache(cacheDir);
+        JavaParserImpl parser = new JavaParserImpl();
+        for (Path file : List.of(kept, removed, sourceFile)) {
+            cache.put(file, parser.parseFile(file));
+        }
+        Files.delete(removed);
+
+        assertEquals(1, new DiskBackedCache(cacheDir).retainOnly(root, List.of(kept)));
+        try (Stream<Path> entries = Files.list(cacheDir)) {
+            assertEquals(2, entries.count());
+        }
+        assertNotNull(new DiskBackedCache(cacheDir).get(kept));
+        assertNotNull(new DiskBackedCache(cacheDir).get(sourceFile));
+        assertEquals(0, cache.retainOnly(root, List.of(kept)));
+    }
+
+    @Test
+    void shouldDeleteEntriesOnClear() {
+        DiskBackedCache cache = new DiskBackedCache(cacheDir);
+        cache.put(sourceFile, new JavaParserImpl().parseFile(sourceFile));
+        cache.clear();
+
+        assertNull(new DiskBackedCache(cacheDir).get(sourceFile));
+    }
+}
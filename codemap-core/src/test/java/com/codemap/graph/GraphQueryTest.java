@@ -0,0 +1,186 @@
+package com.codemap.graph;
+
+import com.codemap.model.*;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for GraphQuery traversals.
+ */
+class GraphQueryTest {
+
+    private CodeGraph graph;
+    private GraphQuery query;
+
+    @BeforeEach
+    void setUp() {
+        // a -> b -> c -> d, a -> c, b overrides x, and a class containing them
+        List<GraphNode> nodes = List.of(
+                node("class:K", NodeType.CLASS),
+                node("method:a", NodeType.METHOD),
+                node("method:b", NodeType.METHOD),
+                node("method:c", NodeType.METHOD),
+                node("method:d", NodeType.METHOD),
+                node("method:x", NodeType.METHOD));
+        List<GraphEdge> edges = List.of(
+                edge("class:K", "method:a", EdgeType.CONTAINS),
+                edge("class:K", "method:b", EdgeType.CONTAINS),
+                edge("method:a", "method:b", EdgeType.CALLS),
+                edge("method:b", "method:c", EdgeType.CALLS),
+                edge("method:c", "method:d", EdgeType.CALLS),
+                edge("method:a", "method:c", EdgeType.CALLS),
+                edge("method:b", "method:x", EdgeType.OVERRIDES),
+                edge("method:d", "method:external", EdgeType.CALLS));
+        graph = new CodeGraph(nodes, edges);
+        query = new GraphQuery(graph);
+    }
+
+    @Test
+    void shouldReturnWalkedRegionInVisitingOrder() {
+        CodeGraph result = query.forwardTraverse("method:a", 1, EnumSet.of(EdgeType.CALLS));
+
+        assertEquals(List.of("method:a", "method:b", "method:c"), nodeIds(result));
+        // Only edges leaving nodes within the depth limit; b and c are at the limit
+        assertEquals(List.of("method:a->method:b", "method:a->method:c"), edgeIds(result));
+
+        CodeGraph deeper = query.forwardTraverse("method:a", 2, EnumSet.of(EdgeType.CALLS));
+        assertEquals(List.of("method:a", "method:b", "method:c", "method:d"), nodeIds(deeper));
+        assertEquals(List.of("method:a->method:b", "method:a->method:c", "method:b->method:c", "method:c->method:d"),
+                edgeIds(deeper));
+    }
+
+    @Test
+    void shouldKeepDanglingEdgesAndWalkBackwards() {
+        CodeGraph all = query.forwardTraverse("method:a", -1, null);
+        assertEquals(List.of("method:a", "method:b", "method:c", "method:x", "method:d"), nodeIds(all));
+        assertTrue(edgeIds(all).contains("method:d->method:external"));
+        assertEquals(1, all.getIncomingEdges("method:external").size());
+
+        CodeGraph callers = query.reverseTraverse("method:c", -1, EnumSet.of(EdgeType.CALLS));
+        assertEquals(List.of("method:c", "method:b", "method:a"), nodeIds(callers));
+        assertEquals(3, callers.edgeCount());
+
+        assertEquals(0, query.forwardTraverse("method:missing", 3, null).nodeCount());
+    }
+
+    @Test
+    void shouldReuseStateAcrossGraphsOfDifferentSizes() {
+        List<GraphNode> nodes = new ArrayList<>();
+        List<GraphEdge> edges = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            nodes.add(node("method:m" + i, NodeType.METHOD));
+            edges.add(edge("method:m" + i, "method:m" + ((i + 1) % 1000), EdgeType.CALLS));
+        }
+        GraphQuery large = new GraphQuery(new CodeGraph(nodes, edges));
+
+        for (int round = 0; round < 3; round++) {
+            assertEquals(1000, large.forwardTraverse("method:m0", -1, null).nodeCount());
+            assertEquals(4, query.forwardTraverse("method:a", -1, EnumSet.of(EdgeType.CALLS)).nodeCount());
+            assertEquals(11, large.reverseTraverse("method:m500", 10, null).nodeCount());
+        }
+    }
+
+    @Test
+    void shouldFindShortestPathsAndOnlyTheirNodesAndEdges() {
+        GraphQuery.GraphPath shortest = query.shortestPath("method:a", "method:d", EnumSet.of(EdgeType.CALLS));
+        assertEquals(List.of("method:a", "method:c", "method:d"), shortest.nodeIds());
+        assertEquals(2, shortest.length());
+
+        List<GraphQuery.GraphPath> paths = query.shortestPaths("method:a", "method:d", 5, EnumSet.of(EdgeType.CALLS));
+        assertEquals(List.of(List.of("method:a", "method:c", "method:d"),
+                List.of("method:a", "method:b", "method:c", "method:d")),
+                paths.stream().map(GraphQuery.GraphPath::nodeIds).toList());
+
+        CodeGraph onPaths = query.pathGraph(paths);
+        assertEquals(List.of("method:a", "method:c", "method:d", "method:b"), nodeIds(onPaths));
+        assertEquals(List.of("method:a->method:b", "method:a->method:c", "method:b->method:c", "method:c->method:d"),
+                edgeIds(onPaths));
+
+        // Edges are followed in their direction, and only of the selected types
+        assertNull(query.shortestPath("method:d", "method:a", null));
+        assertNull(query.shortestPath("class:K", "method:c", EnumSet.of(EdgeType.CALLS)));
+        assertEquals(2, query.shortestPath("class:K", "method:c", null).length());
+        assertEquals(List.of("method:b"), query.shortestPath("method:b", "method:b", null).nodeIds());
+        assertTrue(query.shortestPaths("method:a", "method:missing", 3, null).isEmpty());
+    }
+
+    @Test
+    void shouldEnumerateSimplePathsInOrderOfLength() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            int count = 4 + random.nextInt(7);
+            List<GraphNode> nodes = new ArrayList<>();
+            List<GraphEdge> edges = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                nodes.add(node("method:m" + i, NodeType.METHOD));
+            }
+            for (int i = 0; i < count * 2; i++) {
+                // Parallel edges and self loops included
+                edges.add(edge("method:m" + random.nextInt(count), "method:m" + random.nextInt(count),
+                        EdgeType.CALLS));
+            }
+            CodeGraph randomGraph = new CodeGraph(nodes, edges);
+            String from = "method:m0";
+            String to = "method:m" + (count - 1);
+
+            List<Integer> expected = new ArrayList<>();
+            simplePathLengths(randomGraph, from, to, new LinkedHashSet<>(List.of(from)), expected);
+            Collections.sort(expected);
+
+            int limit = 1 + random.nextInt(10);
+            List<GraphQuery.GraphPath> paths = new GraphQuery(randomGraph).shortestPaths(from, to, limit, null);
+            assertEquals(expected.subList(0, Math.min(limit, expected.size())),
+                    paths.stream().map(GraphQuery.GraphPath::length).toList());
+            Set<List<String>> distinct = new HashSet<>();
+            for (GraphQuery.GraphPath path : paths) {
+                assertTrue(distinct.add(path.nodeIds()));
+                assertEquals(path.nodeIds().size(), new HashSet<>(path.nodeIds()).size());
+                for (int i = 0; i < path.length(); i++) {
+                    assertEquals(path.nodeIds().get(i), path.edges().get(i).getSourceId());
+                    assertEquals(path.nodeIds().get(i + 1), path.edges().get(i).getTargetId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Lengths of all simple paths by exhaustive search, parallel edges
+     * counted once.
+     */
+    private static void simplePathLengths(CodeGraph graph, String current, String to, LinkedHashSet<String> visited,
+            List<Integer> lengths) {
+        if (current.equals(to)) {
+            lengths.add(visited.size() - 1);
+            return;
+        }
+        Set<String> next = new TreeSet<>();
+        for (GraphEdge edge : graph.getOutgoingEdges(current)) {
+            next.add(edge.getTargetId());
+        }
+        for (String target : next) {
+            if (visited.add(target)) {
+                simplePathLengths(graph, target, to, visited, lengths);
+                visited.remove(target);
+            }
+        }
+    }
+
+    private static List<String> nodeIds(CodeGraph graph) {
+        return graph.getNodes().stream().map(GraphNode::getId).toList();
+    }
+
+    private static List<String> edgeIds(CodeGraph graph) {
+        return graph.getEdges().stream().map(e -> e.getSourceId() + "->" + e.getTargetId()).sorted().toList();
+    }
+
+    private static GraphNode node(String id, NodeType type) {
+        return GraphNode.builder().id(id).name(id.substring(id.indexOf(':') + 1)).qualifiedName(id).type(type).build();
+    }
+
+    private static GraphEdge edge(String source, String target, EdgeType type) {
+        return GraphEdge.builder().sourceId(source).targetId(target).type(type).build();
+    }
+}
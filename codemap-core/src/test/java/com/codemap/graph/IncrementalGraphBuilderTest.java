@@ -0,0 +1,212 @@
+package com.codemap.graph;
+
+import com.codemap.model.*;
+import org.junit.jupiter.api.*;
+
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for IncrementalGraphBuilder — a patched graph must match a full
+ * build of the same files.
+ */
+class IncrementalGraphBuilderTest {
+
+    private static final List<String> PACKAGES = List.of("a", "a.b", "a.b.c", "d");
+    private static final List<String> NAMES = List.of("A", "B", "C", "D", "E");
+    private static final List<String> METHODS = List.of("run", "get", "set");
+
+    @Test
+    void shouldReresolveDependentsWhenTargetChanges() {
+        Path repoFile = Path.of("/src/Repo.java");
+        Path serviceFile = Path.of("/src/Service.java");
+        Map<Path, List<ClassInfo>> files = new HashMap<>();
+        files.put(repoFile, List.of(type("com.example", "Repo", List.of(), method("com.example.Repo", "save"))));
+        files.put(serviceFile, List.of(type("com.example", "Service", List.of("Repo repo"),
+                method("com.example.Service", "handle", "repo.save"))));
+
+        IncrementalGraphBuilder builder = new IncrementalGraphBuilder(files);
+        CodeGraph before = builder.getGraph();
+        assertTrue(hasEdge(before, "method:com.example.Service.handle()", "method:com.example.Repo.save()"));
+        GraphNode service = before.getNode("class:com.example.Service").orElseThrow();
+
+        // Renaming the method leaves the call unresolved
+        GraphDelta delta = builder.update(repoFile,
+                List.of(type("com.example", "Repo", List.of(), method("com.example.Repo", "store"))));
+        CodeGraph after = delta.getGraph();
+        assertTrue(delta.getRemovedNodes().contains("method:com.example.Repo.save()"));
+        assertTrue(delta.getAddedNodes().contains("method:com.example.Repo.store()"));
+        assertTrue(after.getOutgoingEdges("method:com.example.Service.handle()").isEmpty());
+
+        // Unchanged nodes are shared, and the old version is untouched
+        assertSame(service, after.getNode("class:com.example.Service").orElseThrow());
+        assertTrue(hasEdge(before, "method:com.example.Service.handle()", "method:com.example.Repo.save()"));
+
+        // Deleting the file drops its nodes
+        CodeGraph removed = builder.remove(repoFile).getGraph();
+        assertTrue(removed.getNode("class:com.example.Repo").isEmpty());
+        assertEquals(canonical(new GraphBuilderImpl().build(files.get(serviceFile))), canonical(removed));
+    }
+
+    @Test
+    void shouldMatchFullBuildAfterRandomEdits() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Random random = new Random(seed);
+            Map<Path, List<ClassInfo>> files = new TreeMap<>();
+            for (int f = 0; f < 30; f++) {
+                files.put(Path.of("/src/F" + f + ".java"), randomFile(random));
+            }
+            IncrementalGraphBuilder builder = new IncrementalGraphBuilder(files);
+
+            for (int step = 0; step < 60; step++) {
+                Path file = Path.of("/src/F" + random.nextInt(36) + ".java");
+                List<ClassInfo> classes = random.nextInt(5) == 0 ? List.of() : randomFile(random);
+                if (classes.isEmpty())
+                    files.remove(file);
+                else
+                    files.put(file, classes);
+                builder.update(file, classes);
+
+                List<ClassInfo> all = new ArrayList<>();
+                files.values().forEach(all::addAll);
+                assertEquals(canonical(new GraphBuilderImpl().build(all)), canonical(builder.getGraph()),
+                        "seed " + seed + ", step " + step + ", " + file);
+            }
+        }
+    }
+
+    @Test
+    void shouldMatchFullBuildAfterRandomBatches() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Random random = new Random(seed);
+            Map<Path, List<ClassInfo>> files = new TreeMap<>();
+            for (int f = 0; f < 30; f++) {
+                files.put(Path.of("/src/F" + f + ".java"), randomFile(random));
+            }
+            IncrementalGraphBuilder builder = new IncrementalGraphBuilder(files);
+
+            for (int step = 0; step < 20; step++) {
+                Map<Path, List<ClassInfo>> batch = new HashMap<>();
+                for (int i = 1 + random.nextInt(8); i > 0; i--) {
+                    Path file = Path.of("/src/F" + random.nextInt(36) + ".java");
+                    List<ClassInfo> classes = random.nextInt(5) == 0 ? List.of() : randomFile(random);
+                    batch.put(file, classes);
+                }
+                batch.forEach((file, classes) -> {
+                    if (classes.isEmpty())
+                        files.remove(file);
+                    else
+                        files.put(file, classes);
+                });
+                builder.update(batch);
+
+                List<ClassInfo> all = new ArrayList<>();
+                files.values().forEach(all::addAll);
+                assertEquals(canonical(new GraphBuilderImpl().build(all)), canonical(builder.getGraph()),
+                        "seed " + seed + ", step " + step + ", " + batch.keySet());
+            }
+        }
+    }
+
+    /**
+     * Classes drawn from small name pools, so that symbols collide across
+     * files and packages.
+     */
+    private static List<ClassInfo> randomFile(Random random) {
+        List<ClassInfo> classes = new ArrayList<>();
+        String pkg = random.nextInt(6) == 0 ? null : pick(random, PACKAGES);
+        int count = 1 + random.nextInt(2);
+        for (int c = 0; c < count; c++) {
+            String name = pick(random, NAMES);
+            String qn = pkg != null ? pkg + "." + name : name;
+            List<String> fields = new ArrayList<>();
+            for (int f = random.nextInt(3); f > 0; f--) {
+                fields.add(pick(random, NAMES) + " f" + f);
+            }
+            MethodInfo[] methods = new MethodInfo[random.nextInt(3)];
+            for (int m = 0; m < methods.length; m++) {
+                List<String> calls = new ArrayList<>();
+                for (int k = random.nextInt(4); k > 0; k--) {
+                    String method = pick(random, METHODS);
+                    switch (random.nextInt(3)) {
+                        case 0 -> calls.add(method);
+                        case 1 -> calls.add("f" + (1 + random.nextInt(2)) + "." + method);
+                        default -> calls.add(pick(random, NAMES) + "." + method);
+                    }
+                }
+                methods[m] = method(qn, pick(random, METHODS), calls.toArray(new String[0]));
+            }
+            ClassInfo.Builder builder = ClassInfo.builder()
+                    .name(name)
+                    .packageName(pkg)
+                    .isInterface(random.nextInt(4) == 0)
+                    .fields(fields)
+                    .methods(List.of(methods));
+            if (random.nextBoolean())
+                builder.superClass(pick(random, NAMES));
+            if (random.nextInt(3) == 0)
+                builder.addInterface(pick(random, NAMES));
+            if (random.nextInt(3) == 0)
+                builder.addImport(pick(random, PACKAGES) + "." + pick(random, NAMES));
+            classes.add(builder.build());
+        }
+        return classes;
+    }
+
+    private static ClassInfo type(String pkg, String name, List<String> fields, MethodInfo method) {
+        return ClassInfo.builder().name(name).packageName(pkg).fields(fields).addMethod(method).build();
+    }
+
+    private static MethodInfo method(String className, String name, String... calls) {
+        return MethodInfo.builder()
+                .name(name)
+                .className(className)
+                .returnType("void")
+                .methodCalls(List.of(calls))
+                .build();
+    }
+
+    private static <T> T pick(Random random, List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static boolean hasEdge(CodeGraph graph, String source, String target) {
+        return graph.getOutgoingEdges(source).stream().anyMatch(e -> e.getTargetId().equals(target));
+    }
+
+    /**
+     * Order-independent description of a graph's content and adjacency.
+     */
+    private static List<String> canonical(CodeGraph graph) {
+        List<String> lines = new ArrayList<>();
+        Set<String> ids = new TreeSet<>();
+        for (GraphNode n : graph.getNodes()) {
+            lines.add("node " + n.getId() + " " + n.getName() + " " + n.getQualifiedName() + " " + n.getType()
+                    + " " + n.getFilePath() + " " + n.getLineNumber() + " " + sorted(n.getMetadata()));
+            ids.add(n.getId());
+        }
+        for (GraphEdge e : graph.getEdges()) {
+            lines.add("edge " + e.getId() + " " + e.getType() + " " + sorted(e.getMetadata()));
+            ids.add(e.getSourceId());
+            ids.add(e.getTargetId());
+        }
+        for (String id : ids) {
+            lines.add("out " + id + " " + graph.getOutgoingEdges(id).stream().map(GraphEdge::getId).sorted().toList());
+            lines.add("in " + id + " " + graph.getIncomingEdges(id).stream().map(GraphEdge::getId).sorted().toList());
+        }
+        for (NodeType type : NodeType.values()) {
+            lines.add(type + " " + graph.getNodesByType(type).stream().map(GraphNode::getId).sorted().toList());
+        }
+        for (EdgeType type : EdgeType.values()) {
+            lines.add(type + " " + graph.getEdgesByType(type).stream().map(GraphEdge::getId).sorted().toList());
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    private static Map<String, String> sorted(Map<String, String> metadata) {
+        return metadata == null ? Map.of() : new TreeMap<>(metadata);
+    }
+}
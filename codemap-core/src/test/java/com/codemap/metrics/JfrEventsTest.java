@@ -0,0 +1,79 @@
+package com.codemap.metrics;
+
+import com.codemap.CodeMapEngine;
+import com.codemap.rules.RuleEngine;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the Flight Recorder events — emitted with their fields while
+ * analyzing, querying and evaluating rules.
+ */
+class JfrEventsTest {
+
+    @Test
+    void shouldEmitEventsDuringAnalysisAndQueries(@TempDir Path root) throws Exception {
+        Path a = root.resolve("A.java");
+        Files.writeString(a, "package p;\npublic class A {\n    public void save() {}\n}\n");
+        Files.writeString(root.resolve("B.java"),
+                "package p;\npublic class B {\n    private A a;\n    public void run() { a.save(); }\n}\n");
+
+        Path dump = root.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            for (Class<? extends jdk.jfr.Event> type : List.of(FileParsedEvent.class, PhaseEvent.class,
+                    QueryEvent.class, RuleEvaluationEvent.class)) {
+                recording.enable(type).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            CodeMapEngine engine = new CodeMapEngine();
+            engine.analyze(root);
+            engine.runCommand("callgraph", "p.B.run", 2);
+            new RuleEngine().run(engine.getFullGraph());
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        Map<String, List<RecordedEvent>> events = new HashMap<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            events.computeIfAbsent(event.getEventType().getName(), k -> new ArrayList<>()).add(event);
+        }
+
+        List<RecordedEvent> parsed = events.getOrDefault("com.codemap.FileParsed", List.of());
+        assertEquals(2, parsed.size());
+        RecordedEvent parsedA = parsed.stream()
+                .filter(e -> e.getString("path").endsWith("A.java")).findFirst().orElseThrow();
+        assertTrue(parsedA.getBoolean("succeeded"));
+        assertEquals(1, parsedA.getInt("classCount"));
+        assertEquals(Files.size(a), parsedA.getLong("size"));
+
+        List<String> phases = events.getOrDefault("com.codemap.Phase", List.of()).stream()
+                .map(e -> e.getString("phase")).toList();
+        assertTrue(phases.containsAll(List.of("discovery", "parse", "query")), phases.toString());
+        RecordedEvent parsePhase = events.get("com.codemap.Phase").stream()
+                .filter(e -> e.getString("phase").equals("parse")).findFirst().orElseThrow();
+        assertTrue(parsePhase.getString("counts").contains("files=2"));
+
+        List<RecordedEvent> queries = events.getOrDefault("com.codemap.Query", List.of());
+        assertEquals(1, queries.size());
+        RecordedEvent query = queries.get(0);
+        assertEquals("callgraph", query.getString("command"));
+        assertEquals("p.B.run", query.getString("target"));
+        assertEquals(2, query.getInt("depth"));
+        assertTrue(query.getInt("nodeCount") > 0);
+
+        List<RecordedEvent> rules = events.getOrDefault("com.codemap.RuleEvaluation", List.of());
+        assertFalse(rules.isEmpty());
+        assertTrue(rules.stream().allMatch(e -> e.getBoolean("succeeded")));
+        assertTrue(rules.stream().anyMatch(e -> e.getString("rule").equals("unused-class")));
+    }
+}
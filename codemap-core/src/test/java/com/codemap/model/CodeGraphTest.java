@@ -0,0 +1,166 @@
+package com.codemap.model;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for CodeGraph lookups and its integer-indexed adjacency.
+ */
+class CodeGraphTest {
+
+    private CodeGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        List<GraphNode> nodes = List.of(
+                node("class:A", NodeType.CLASS),
+                node("class:B", NodeType.CLASS),
+                node("method:A.run()", NodeType.METHOD),
+                node("method:B.work()", NodeType.METHOD));
+        List<GraphEdge> edges = List.of(
+                edge("class:A", "method:A.run()", EdgeType.CONTAINS),
+                edge("class:A", "class:B", EdgeType.DEPENDENCY),
+                edge("class:B", "method:B.work()", EdgeType.CONTAINS),
+                edge("method:A.run()", "method:B.work()", EdgeType.CALLS),
+                edge("class:A", "class:External", EdgeType.EXTENDS));
+        graph = new CodeGraph(nodes, edges);
+    }
+
+    @Test
+    void shouldKeepEdgeOrderInAdjacencyLists() {
+        List<GraphEdge> outgoing = graph.getOutgoingEdges("class:A");
+        assertEquals(3, outgoing.size());
+        assertEquals(EdgeType.CONTAINS, outgoing.get(0).getType());
+        assertEquals(EdgeType.DEPENDENCY, outgoing.get(1).getType());
+        assertEquals(EdgeType.EXTENDS, outgoing.get(2).getType());
+
+        assertEquals(2, graph.getIncomingEdges("method:B.work()").size());
+        assertTrue(graph.getOutgoingEdges("class:Unknown").isEmpty());
+    }
+
+    @Test
+    void shouldIndexDanglingEndpoints() {
+        GraphIndex index = graph.index();
+        int external = index.indexOf("class:External");
+
+        assertTrue(external >= 0);
+        assertNull(index.nodeAt(external));
+        assertTrue(graph.getNode("class:External").isEmpty());
+        assertEquals(1, graph.getIncomingEdges("class:External").size());
+    }
+
+    @Test
+    void shouldWalkCsrSlices() {
+        GraphIndex index = graph.index();
+        int a = index.indexOf("class:A");
+        int mask = GraphIndex.edgeTypeMask(Set.of(EdgeType.DEPENDENCY));
+
+        int matches = 0;
+        for (int pos = index.outStart(a); pos < index.outEnd(a); pos++) {
+            int edge = index.outEdgeAt(pos);
+            if (index.edgeMatches(edge, mask)) {
+                assertEquals("class:B", index.idAt(index.edgeTarget(edge)));
+                matches++;
+            }
+        }
+        assertEquals(1, matches);
+    }
+
+    @Test
+    void shouldServeTypeViewsWithoutRescanning() {
+        List<GraphNode> methods = graph.getNodesByType(NodeType.METHOD);
+        assertEquals(2, methods.size());
+        assertSame(methods, graph.getNodesByType(NodeType.METHOD));
+        assertTrue(graph.getNodesByType(NodeType.ENUM).isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> methods.add(methods.get(0)));
+
+        assertEquals(2, graph.getEdgesByType(EdgeType.CONTAINS).size());
+        assertSame(graph.getEdgesByType(EdgeType.CALLS), graph.getEdgesByType(EdgeType.CALLS));
+    }
+
+    @Test
+    void shouldCountDegreesByTypeAndDirection() {
+        assertEquals(1, graph.degree("class:A", EdgeType.CONTAINS, Direction.OUTGOING));
+        assertEquals(1, graph.degree("class:A", EdgeType.DEPENDENCY, Direction.OUTGOING));
+        assertEquals(0, graph.degree("class:A", EdgeType.DEPENDENCY, Direction.INCOMING));
+        assertEquals(2, graph.degree("method:B.work()", EdgeType.CONTAINS, Direction.INCOMING)
+                + graph.degree("method:B.work()", EdgeType.CALLS, Direction.INCOMING));
+        assertEquals(1, graph.degree("class:External", EdgeType.EXTENDS, Direction.INCOMING));
+        assertEquals(0, graph.degree("class:Unknown", EdgeType.CALLS, Direction.OUTGOING));
+
+        // A patched version counts its own edges
+        GraphEdge dependency = graph.getOutgoingEdges("class:A").get(1);
+        CodeGraph patched = graph.patch(List.of(), List.of(dependency), List.of(),
+                List.of(edge("class:B", "class:A", EdgeType.DEPENDENCY)));
+        assertEquals(0, patched.degree("class:A", EdgeType.DEPENDENCY, Direction.OUTGOING));
+        assertEquals(1, patched.degree("class:A", EdgeType.DEPENDENCY, Direction.INCOMING));
+        assertEquals(1, graph.degree("class:A", EdgeType.DEPENDENCY, Direction.OUTGOING));
+    }
+
+    @Test
+    void shouldReclaimSlotsOfRemovedIdsAfterManyPatches() {
+        CodeGraph current = graph;
+        GraphNode previous = null;
+        GraphEdge previousEdge = null;
+        int maxSize = 0;
+        for (int i = 0; i < 5000; i++) {
+            // Renaming a method over and over leaves a dead slot per version
+            GraphNode renamed = GraphNode.builder().id("method:A.m" + i + "()").name("m" + i)
+                    .qualifiedName("A.m" + i).type(NodeType.METHOD).build();
+            GraphEdge contains = edge("class:A", renamed.getId(), EdgeType.CONTAINS);
+            current = current.patch(previous == null ? List.of() : List.of(previous),
+                    previousEdge == null ? List.of() : List.of(previousEdge), List.of(renamed), List.of(contains));
+            previous = renamed;
+            previousEdge = contains;
+            maxSize = Math.max(maxSize, current.index().size());
+        }
+        assertTrue(maxSize < 2000, "index grew to " + maxSize + " slots");
+        assertEquals(graph.nodeCount() + 1, current.nodeCount());
+        assertEquals(List.of(previousEdge), current.getIncomingEdges(previous.getId()));
+        assertEquals(graph.degree("class:A", EdgeType.CONTAINS, Direction.OUTGOING) + 1,
+                current.degree("class:A", EdgeType.CONTAINS, Direction.OUTGOING));
+    }
+
+    @Test
+    void shouldExtractSubgraphFromSelectedAdjacency() {
+        CodeGraph sub = graph.subgraph(Set.of("class:A", "class:B", "class:External", "class:Unknown"));
+        assertEquals(List.of("class:A", "class:B"), sub.getNodes().stream().map(GraphNode::getId).toList());
+        assertEquals(List.of(EdgeType.DEPENDENCY, EdgeType.EXTENDS),
+                sub.getEdges().stream().map(GraphEdge::getType).toList());
+
+        // Same content as filtering the whole graph, on a random graph
+        Random random = new Random(7);
+        List<GraphNode> nodes = new ArrayList<>();
+        List<GraphEdge> edges = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            nodes.add(node("class:N" + i, NodeType.CLASS));
+        }
+        for (int i = 0; i < 1000; i++) {
+            edges.add(edge("class:N" + random.nextInt(220), "class:N" + random.nextInt(220),
+                    EdgeType.values()[random.nextInt(EdgeType.values().length)]));
+        }
+        CodeGraph large = new CodeGraph(nodes, edges);
+        Set<String> selected = new HashSet<>();
+        for (int i = 0; i < 80; i++) {
+            selected.add("class:N" + random.nextInt(220));
+        }
+        List<GraphEdge> expected = large.getEdges().stream()
+                .filter(e -> selected.contains(e.getSourceId()) && selected.contains(e.getTargetId()))
+                .toList();
+        CodeGraph extracted = large.subgraph(selected);
+        assertEquals(expected, extracted.getEdges());
+        assertEquals(large.getNodes().stream().filter(n -> selected.contains(n.getId())).toList(),
+                extracted.getNodes());
+    }
+
+    private static GraphNode node(String id, NodeType type) {
+        return GraphNode.builder().id(id).name(id.substring(id.indexOf(':') + 1)).qualifiedName(id).type(type).build();
+    }
+
+    private static GraphEdge edge(String source, String target, EdgeType type) {
+        return GraphEdge.builder().sourceId(source).targetId(target).type(type).build();
+    }
+}
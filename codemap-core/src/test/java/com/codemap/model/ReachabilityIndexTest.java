@@ -0,0 +1,129 @@
+package com.codemap.model;
+
+import com.codemap.analysis.ImpactAnalyzer;
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ReachabilityIndex — interval labels over the condensed graph.
+ */
+class ReachabilityIndexTest {
+
+    @Test
+    void shouldMatchTraversalOnRandomGraphs() {
+        Random random = new Random(11);
+        for (int round = 0; round < 30; round++) {
+            int count = 20 + random.nextInt(80);
+            List<GraphNode> nodes = new ArrayList<>();
+            List<GraphEdge> edges = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                nodes.add(node("class:C" + i));
+            }
+            int edgeCount = random.nextInt(count * 3);
+            for (int i = 0; i < edgeCount; i++) {
+                // Mostly acyclic, with some back edges, dangling targets and ignored types
+                int source = random.nextInt(count);
+                int target = random.nextInt(10) == 0 ? random.nextInt(count) : random.nextInt(source + 1);
+                String targetId = random.nextInt(20) == 0 ? "class:External" + target : "class:C" + target;
+                EdgeType type = random.nextInt(5) == 0 ? EdgeType.CONTAINS : EdgeType.DEPENDENCY;
+                edges.add(GraphEdge.builder().sourceId("class:C" + source).targetId(targetId).type(type).build());
+            }
+            CodeGraph graph = new CodeGraph(nodes, edges);
+            Set<EdgeType> types = EnumSet.of(EdgeType.DEPENDENCY);
+            ReachabilityIndex reachability = new ReachabilityIndex(graph, types);
+            GraphIndex index = graph.index();
+
+            for (int to = 0; to < index.size(); to++) {
+                Set<Integer> expected = reachingByTraversal(index, to, GraphIndex.edgeTypeMask(types));
+                Set<Integer> actual = new HashSet<>();
+                for (int slot : reachability.reaching(to)) {
+                    assertTrue(actual.add(slot));
+                }
+                assertEquals(expected, actual, index.idAt(to));
+                assertEquals(expected.size(), reachability.reachingCount(to));
+                for (int from = 0; from < index.size(); from++) {
+                    assertEquals(expected.contains(from), reachability.reaches(from, to));
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldCollapseCyclesAndReportSize() {
+        List<GraphNode> nodes = List.of(node("class:A"), node("class:B"), node("class:C"), node("class:D"));
+        List<GraphEdge> edges = List.of(
+                edge("class:A", "class:B"),
+                edge("class:B", "class:C"),
+                edge("class:C", "class:B"),
+                edge("class:C", "class:D"));
+        ReachabilityIndex reachability = new ReachabilityIndex(new CodeGraph(nodes, edges), null);
+
+        assertEquals(3, reachability.componentCount());
+        assertTrue(reachability.reaches("class:A", "class:D"));
+        assertTrue(reachability.reaches("class:C", "class:B"));
+        assertTrue(reachability.reaches("class:D", "class:D"));
+        assertFalse(reachability.reaches("class:D", "class:A"));
+        assertFalse(reachability.reaches("class:Unknown", "class:A"));
+        assertTrue(reachability.memoryBytes() > 0);
+        assertTrue(reachability.getBuildNanos() >= 0);
+    }
+
+    @Test
+    void shouldGiveSameImpactAsTraversal() {
+        List<GraphNode> nodes = List.of(node("class:Base"), node("class:Sub"), node("class:User"),
+                node("class:Other"));
+        List<GraphEdge> edges = List.of(
+                GraphEdge.builder().sourceId("class:Sub").targetId("class:Base").type(EdgeType.EXTENDS).build(),
+                edge("class:User", "class:Sub"),
+                edge("class:Base", "class:User"),
+                GraphEdge.builder().sourceId("class:Other").targetId("class:Base").type(EdgeType.CONTAINS).build());
+        CodeGraph graph = new CodeGraph(nodes, edges);
+        ImpactAnalyzer traversing = new ImpactAnalyzer(graph);
+        ImpactAnalyzer indexed = new ImpactAnalyzer(graph,
+                new ReachabilityIndex(graph, ImpactAnalyzer.IMPACT_EDGE_TYPES));
+
+        CodeGraph expected = traversing.getImpactAnalysis("Base");
+        CodeGraph actual = indexed.getImpactAnalysis("Base");
+        assertEquals(ids(expected.getNodes()), ids(actual.getNodes()));
+        assertEquals(new HashSet<>(expected.getEdges()), new HashSet<>(actual.getEdges()));
+        assertEquals(expected.edgeCount(), actual.edgeCount());
+        assertTrue(indexed.isImpactedBy("class:User", "Base"));
+        assertFalse(indexed.isImpactedBy("class:Other", "Base"));
+        assertEquals(traversing.isImpactedBy("class:User", "Base"), indexed.isImpactedBy("class:User", "Base"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new ImpactAnalyzer(graph, new ReachabilityIndex(graph, EnumSet.of(EdgeType.CALLS))));
+    }
+
+    private static Set<Integer> reachingByTraversal(GraphIndex index, int to, int mask) {
+        Set<Integer> seen = new HashSet<>(List.of(to));
+        Deque<Integer> queue = new ArrayDeque<>(seen);
+        while (!queue.isEmpty()) {
+            int v = queue.poll();
+            for (int pos = index.inStart(v); pos < index.inEnd(v); pos++) {
+                int edge = index.inEdgeAt(pos);
+                if (index.edgeMatches(edge, mask) && seen.add(index.edgeSource(edge)))
+                    queue.add(index.edgeSource(edge));
+            }
+        }
+        return seen;
+    }
+
+    private static Set<String> ids(List<GraphNode> nodes) {
+        Set<String> ids = new TreeSet<>();
+        nodes.forEach(n -> ids.add(n.getId()));
+        return ids;
+    }
+
+    private static GraphNode node(String id) {
+        return GraphNode.builder().id(id).name(id.substring(id.indexOf(':') + 1)).qualifiedName(id.substring(6))
+                .type(NodeType.CLASS).build();
+    }
+
+    private static GraphEdge edge(String source, String target) {
+        return GraphEdge.builder().sourceId(source).targetId(target).type(EdgeType.DEPENDENCY).build();
+    }
+}
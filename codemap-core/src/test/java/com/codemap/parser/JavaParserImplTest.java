@@ -176,6 +176,23 @@ class JavaParserImplTest {
         assertTrue(classes.size() >= 2, "Should find at least 2 classes");
     }
 
+    @Test
+    void shouldParseInParallelInDeterministicOrder() throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("parallel"));
+        for (int i = 0; i < 20; i++) {
+            Files.writeString(root.resolve("P" + i + ".java"),
+                    "package par; public class P" + i + " { void m() { helper(); } void helper() {} }");
+        }
+
+        List<ClassInfo> sequential = new JavaParserImpl(1).parse(root);
+        List<ClassInfo> parallel = new JavaParserImpl(4).parse(root);
+
+        assertEquals(20, parallel.size());
+        assertEquals(
+                sequential.stream().map(ClassInfo::getQualifiedName).toList(),
+                parallel.stream().map(ClassInfo::getQualifiedName).toList());
+    }
+
     private Path createJavaFile(String name, String content) throws IOException {
         Path file = tempDir.resolve(name);
         Files.writeString(file, content);
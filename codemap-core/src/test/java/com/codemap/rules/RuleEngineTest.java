@@ -0,0 +1,214 @@
+package com.codemap.rules;
+
+import com.codemap.metrics.MetricsRecorder;
+import com.codemap.metrics.PhaseMetrics;
+import com.codemap.model.*;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for RuleEngine — sequential and parallel evaluation.
+ */
+class RuleEngineTest {
+
+    private static CodeGraph graph;
+    private ExecutorService executor;
+
+    @BeforeAll
+    static void buildGraph() {
+        // A cycle between A and B, and an unused class C
+        List<GraphNode> nodes = List.of(node("class:A"), node("class:B"), node("class:C"));
+        List<GraphEdge> edges = List.of(
+                edge("class:A", "class:B", EdgeType.DEPENDENCY),
+                edge("class:B", "class:A", EdgeType.DEPENDENCY));
+        graph = new CodeGraph(nodes, edges);
+    }
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldMatchSequentialOrderWhenParallel() {
+        RuleEngine sequential = new RuleEngine();
+        RuleEngine parallel = new RuleEngine(executor, Duration.ofSeconds(30));
+        for (RuleEngine engine : List.of(sequential, parallel)) {
+            // The slowest rule is registered first, so it finishes last
+            engine.addRule(new FixedRule("slow", 300, "slow-violation"));
+            engine.addRule(new FixedRule("fast", 0, "fast-violation"));
+        }
+
+        List<ArchitectureRule.Violation> expected = sequential.evaluate(graph);
+        assertFalse(expected.isEmpty());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected, parallel.evaluate(graph));
+        }
+
+        RuleEngine.Report report = parallel.run(graph);
+        assertEquals(List.of("circular-dependency", "god-class", "deep-inheritance", "unused-class", "slow", "fast"),
+                report.results().stream().map(RuleEngine.RuleResult::rule).toList());
+        RuleEngine.RuleResult slow = report.results().get(4);
+        assertEquals(RuleEngine.Status.COMPLETED, slow.status());
+        assertTrue(slow.wallNanos() >= Duration.ofMillis(300).toNanos());
+        assertEquals("slow-violation", slow.violations().get(0).message());
+    }
+
+    @Test
+    void shouldReportFailedAndTimedOutRules() {
+        RuleEngine engine = new RuleEngine(executor, Duration.ofMillis(200));
+        engine.addRule(new FixedRule("hanging", 60_000, "never"));
+        engine.addRule(new FixedRule("broken", -1, null));
+        engine.addRule(new FixedRule("fine", 0, "fine-violation"));
+
+        long start = System.nanoTime();
+        RuleEngine.Report report = engine.run(graph);
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(30).toNanos());
+
+        List<RuleEngine.RuleResult> results = report.results();
+        assertEquals(RuleEngine.Status.TIMED_OUT, results.get(4).status());
+        assertEquals(RuleEngine.Status.FAILED, results.get(5).status());
+        assertEquals(RuleEngine.Status.COMPLETED, results.get(6).status());
+        assertEquals("fine-violation", report.violations().get(report.violations().size() - 1).message());
+        assertTrue(report.violations().stream().noneMatch(v -> v.ruleName().equals("hanging")));
+    }
+
+    @Test
+    void shouldTimeOutSingleRule() {
+        RuleEngine engine = new RuleEngine(executor, Duration.ofMillis(200));
+        for (ArchitectureRule rule : List.copyOf(engine.getRules())) {
+            engine.removeRule(rule.getName());
+        }
+        engine.addRule(new FixedRule("hanging", 60_000, "never"));
+
+        long start = System.nanoTime();
+        RuleEngine.Report report = engine.run(graph);
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(30).toNanos());
+        assertEquals(RuleEngine.Status.TIMED_OUT, report.results().get(0).status());
+        assertTrue(report.violations().isEmpty());
+    }
+
+    @Test
+    void shouldGiveUpOnRulesQueuedBehindUninterruptibleRule() {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        SpinningRule spinning = new SpinningRule();
+        try {
+            RuleEngine engine = new RuleEngine(single, Duration.ofMillis(200));
+            for (ArchitectureRule rule : List.copyOf(engine.getRules())) {
+                engine.removeRule(rule.getName());
+            }
+            engine.addRule(spinning);
+            engine.addRule(new FixedRule("queued", 0, "queued-violation"));
+
+            long start = System.nanoTime();
+            RuleEngine.Report report = engine.run(graph);
+            assertTrue(System.nanoTime() - start < Duration.ofSeconds(30).toNanos());
+            assertEquals(RuleEngine.Status.TIMED_OUT, report.results().get(0).status());
+            assertEquals(RuleEngine.Status.TIMED_OUT, report.results().get(1).status());
+            assertTrue(report.violations().isEmpty());
+        } finally {
+            spinning.released = true;
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRecordPhasePerRule() {
+        RuleEngine engine = new RuleEngine(executor, null);
+        MetricsRecorder recorder = new MetricsRecorder();
+        List<ArchitectureRule.Violation> violations = engine.evaluate(graph, recorder);
+
+        List<PhaseMetrics> phases = recorder.getPhases();
+        PhaseMetrics rules = phases.get(phases.size() - 1);
+        assertEquals("rules", rules.getName());
+        assertEquals(4L, rules.getCounts().get("rules"));
+        assertEquals((long) violations.size(), rules.getCounts().get("violations"));
+        assertTrue(phases.stream().anyMatch(p -> p.getName().equals("rules.circular-dependency")
+                && p.getCounts().get("violations") > 0));
+    }
+
+    /**
+     * A rule that takes a fixed time and reports one violation, or fails
+     * when the time is negative.
+     */
+    private static final class FixedRule implements ArchitectureRule {
+        private final String name;
+        private final long millis;
+        private final String message;
+
+        FixedRule(String name, long millis, String message) {
+            this.name = name;
+            this.millis = millis;
+            this.message = message;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Test rule";
+        }
+
+        @Override
+        public List<Violation> evaluate(CodeGraph graph) {
+            if (millis < 0)
+                throw new IllegalStateException("broken rule");
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return List.of();
+            }
+            return List.of(new Violation(name, "INFO", message, "class:A", null, 0));
+        }
+    }
+
+    /**
+     * A rule that busy-waits until released, ignoring interruption like a
+     * long graph walk would.
+     */
+    private static final class SpinningRule implements ArchitectureRule {
+        private volatile boolean released;
+
+        @Override
+        public String getName() {
+            return "spinning";
+        }
+
+        @Override
+        public String getDescription() {
+            return "Test rule";
+        }
+
+        @Override
+        public List<Violation> evaluate(CodeGraph graph) {
+            while (!released) {
+                Thread.onSpinWait();
+            }
+            return List.of();
+        }
+    }
+
+    private static GraphNode node(String id) {
+        return GraphNode.builder().id(id).name(id.substring(id.indexOf(':') + 1)).qualifiedName(id)
+                .type(NodeType.CLASS).build();
+    }
+
+    private static GraphEdge edge(String source, String target, EdgeType type) {
+        return GraphEdge.builder().sourceId(source).targetId(target).type(type).build();
+    }
+}
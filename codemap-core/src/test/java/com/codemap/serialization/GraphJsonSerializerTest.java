@@ -0,0 +1,127 @@
+package com.codemap.serialization;
+
+import com.codemap.model.*;
+import com.google.gson.*;
+import org.junit.jupiter.api.*;
+
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for GraphJsonSerializer — the verbose and compact layouts must carry
+ * the same graph.
+ */
+class GraphJsonSerializerTest {
+
+    private CodeGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        List<GraphNode> nodes = List.of(
+                GraphNode.builder().id("class:com.example.A").name("A").qualifiedName("com.example.A")
+                        .type(NodeType.CLASS).filePath("/src/A.java").lineNumber(3)
+                        .metadata("access", "public").metadata("isAbstract", "false").build(),
+                GraphNode.builder().id("method:com.example.A.run()").name("run").qualifiedName("com.example.A.run()")
+                        .type(NodeType.METHOD).filePath("/src/A.java").lineNumber(7)
+                        .metadata("access", "public").build(),
+                GraphNode.builder().id("pkg-com.example").name("com.example").qualifiedName("com.example")
+                        .type(NodeType.PACKAGE).build());
+        List<GraphEdge> edges = List.of(
+                GraphEdge.builder().sourceId("class:com.example.A").targetId("method:com.example.A.run()")
+                        .type(EdgeType.CONTAINS).build(),
+                GraphEdge.builder().id("custom").sourceId("method:com.example.A.run()").targetId("class:Missing")
+                        .type(EdgeType.CALLS).metadata("line", "8").build());
+        graph = new CodeGraph(nodes, edges);
+    }
+
+    @Test
+    void shouldRoundTripCompactFormat() {
+        AnalysisResult result = AnalysisResult.builder()
+                .command("fullgraph")
+                .timestamp(Instant.EPOCH)
+                .graph(graph)
+                .build();
+
+        JsonObject compact = JsonParser.parseString(
+                new GraphJsonSerializer(OutputFormat.COMPACT).toJson(result)).getAsJsonObject();
+        assertEquals("compact", compact.get("format").getAsString());
+        assertEquals(3, compact.getAsJsonObject("stats").get("graphNodes").getAsInt());
+
+        JsonObject verbose = JsonParser.parseString(
+                new GraphJsonSerializer(OutputFormat.PLAIN).toJson(graph)).getAsJsonObject();
+        assertEquals(verbose, decode(compact.getAsJsonObject("graph")));
+    }
+
+    /**
+     * Reference decoder mirroring the IDE bridges.
+     */
+    private static JsonObject decode(JsonObject compact) {
+        JsonArray nodeTypes = compact.getAsJsonArray("nodeTypes");
+        JsonArray edgeTypes = compact.getAsJsonArray("edgeTypes");
+        JsonArray strings = compact.getAsJsonArray("strings");
+
+        JsonArray nodes = new JsonArray();
+        List<String> nodeIds = new ArrayList<>();
+        for (JsonElement element : compact.getAsJsonArray("nodes")) {
+            JsonArray n = element.getAsJsonArray();
+            String type = nodeTypes.get(n.get(0).getAsInt()).getAsString();
+            String qn = string(strings, n.get(2).getAsInt());
+            String id = n.size() > 6 ? string(strings, n.get(6).getAsInt())
+                    : (type.equals("METHOD") || type.equals("CONSTRUCTOR") ? "method:" : "class:") + qn;
+            nodeIds.add(id);
+
+            JsonObject node = new JsonObject();
+            node.addProperty("id", id);
+            node.addProperty("name", string(strings, n.get(1).getAsInt()));
+            node.addProperty("qualifiedName", qn);
+            node.addProperty("type", type);
+            if (n.size() > 3 && n.get(3).getAsInt() >= 0)
+                node.addProperty("filePath", string(strings, n.get(3).getAsInt()));
+            if (n.size() > 4 && n.get(4).getAsInt() > 0)
+                node.addProperty("lineNumber", n.get(4).getAsInt());
+            if (n.size() > 5 && !n.get(5).getAsJsonArray().isEmpty())
+                node.add("metadata", metadata(strings, n.get(5).getAsJsonArray()));
+            nodes.add(node);
+        }
+
+        JsonArray edges = new JsonArray();
+        for (JsonElement element : compact.getAsJsonArray("edges")) {
+            JsonArray e = element.getAsJsonArray();
+            String type = edgeTypes.get(e.get(0).getAsInt()).getAsString();
+            String source = endpoint(strings, nodeIds, e.get(1).getAsInt());
+            String target = endpoint(strings, nodeIds, e.get(2).getAsInt());
+
+            JsonObject edge = new JsonObject();
+            edge.addProperty("id", e.size() > 4 ? string(strings, e.get(4).getAsInt()) : source + "-" + type + "-" + target);
+            edge.addProperty("source", source);
+            edge.addProperty("target", target);
+            edge.addProperty("type", type);
+            if (e.size() > 3 && !e.get(3).getAsJsonArray().isEmpty())
+                edge.add("metadata", metadata(strings, e.get(3).getAsJsonArray()));
+            edges.add(edge);
+        }
+
+        JsonObject decoded = new JsonObject();
+        decoded.add("nodes", nodes);
+        decoded.add("edges", edges);
+        return decoded;
+    }
+
+    private static String string(JsonArray strings, int index) {
+        return index < 0 ? null : strings.get(index).getAsString();
+    }
+
+    private static String endpoint(JsonArray strings, List<String> nodeIds, int ref) {
+        return ref >= 0 ? nodeIds.get(ref) : string(strings, -1 - ref);
+    }
+
+    private static JsonObject metadata(JsonArray strings, JsonArray pairs) {
+        JsonObject metadata = new JsonObject();
+        for (int i = 0; i < pairs.size(); i += 2) {
+            metadata.addProperty(string(strings, pairs.get(i).getAsInt()), string(strings, pairs.get(i + 1).getAsInt()));
+        }
+        return metadata;
+    }
+}
@@ -0,0 +1,166 @@
+package com.codemap.server;
+
+import com.codemap.CodeMapEngine;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for CodeMapServer — line-delimited request/response handling and
+ * change notifications.
+ */
+class CodeMapServerTest {
+
+    private static Path tempDir;
+    private CodeMapServer server;
+
+    @BeforeAll
+    static void createTestProject() throws IOException {
+        tempDir = Files.createTempDirectory("codemap-server-test");
+        Path srcDir = Files.createDirectories(tempDir.resolve("com/example"));
+        Files.writeString(srcDir.resolve("A.java"),
+                "package com.example; public class A { private B b; void run() { b.work(); } }");
+        Files.writeString(srcDir.resolve("B.java"),
+                "package com.example; public class B { void work() {} }");
+    }
+
+    @AfterAll
+    static void cleanup() throws IOException {
+        Files.walk(tempDir)
+                .sorted((a, b) -> b.compareTo(a))
+                .forEach(p -> {
+                    try {
+                        Files.deleteIfExists(p);
+                    } catch (IOException ignored) {
+                    }
+                });
+    }
+
+    @BeforeEach
+    void setUp() {
+        CodeMapEngine engine = new CodeMapEngine();
+        engine.analyze(tempDir);
+        server = new CodeMapServer(engine, tempDir);
+    }
+
+    @Test
+    void shouldAnswerRequestsLineByLine() throws IOException {
+        String input = """
+                {"id": 1, "command": "callgraph", "target": "A.run", "depth": 2}
+                {"id": 2, "command": "impact", "target": "B"}
+                {"id": 3, "command": "bogus"}
+                {"id": 4, "command": "shutdown"}
+                {"id": 5, "command": "ping"}
+                """;
+        StringWriter out = new StringWriter();
+        server.serve(new StringReader(input), out);
+
+        List<JsonObject> messages = out.toString().lines()
+                .map(l -> JsonParser.parseString(l).getAsJsonObject())
+                .toList();
+
+        assertEquals(5, messages.size(), "ready event plus one response per request until shutdown");
+        assertEquals("ready", messages.get(0).get("event").getAsString());
+
+        JsonObject callgraph = messages.get(1);
+        assertEquals(1, callgraph.get("id").getAsInt());
+        assertTrue(callgraph.get("ok").getAsBoolean());
+        assertEquals("callgraph", callgraph.getAsJsonObject("result").get("command").getAsString());
+
+        assertTrue(messages.get(2).get("ok").getAsBoolean());
+        assertFalse(messages.get(3).get("ok").getAsBoolean());
+        assertTrue(messages.get(3).get("error").getAsString().contains("Unknown command"));
+        assertTrue(messages.get(4).get("ok").getAsBoolean());
+    }
+
+    @Test
+    void shouldNotifyClientsWhenWatchedFilesChange(@TempDir Path root) throws Exception {
+        Path a = Files.createDirectories(root.resolve("p")).resolve("A.java");
+        Files.writeString(a, "package p; public class A { void run() {} }");
+        CodeMapEngine engine = new CodeMapEngine();
+        engine.analyze(root);
+        CodeMapServer watching = new CodeMapServer(engine, root);
+        watching.watch(Duration.ofMillis(50));
+
+        PipedWriter requests = new PipedWriter();
+        Reader in = new PipedReader(requests);
+        LineQueue out = new LineQueue();
+        Thread client = new Thread(() -> {
+            try {
+                watching.serve(in, out);
+            } catch (IOException ignored) {
+            }
+        });
+        client.start();
+        try {
+            assertEquals("ready", out.next().get("event").getAsString());
+
+            Files.writeString(a, "package p; public class A { void run() {} void stop() {} }");
+            JsonObject event = out.next();
+            assertEquals("graphChanged", event.get("event").getAsString());
+            assertEquals("[\"method:p.A.stop()\"]", event.get("addedNodes").toString());
+            assertEquals(engine.getFullGraph().nodeCount(), event.get("nodes").getAsInt());
+            assertTrue(engine.getFullGraph().getNode("method:p.A.stop()").isPresent());
+        } finally {
+            watching.stop();
+            requests.close();
+            client.join(10_000);
+        }
+    }
+
+    @Test
+    void shouldReportMalformedRequests() {
+        JsonObject response = server.handle("not json").envelope;
+        assertFalse(response.get("ok").getAsBoolean());
+
+        JsonObject missingTarget = server.handle("{\"id\": \"x\", \"command\": \"dependencies\"}").envelope;
+        assertEquals("x", missingTarget.get("id").getAsString());
+        assertFalse(missingTarget.get("ok").getAsBoolean());
+    }
+
+    /**
+     * Collects the server's output lines, which may be written from the
+     * watcher's thread as well as the serving one.
+     */
+    private static final class LineQueue extends Writer {
+        private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        private final StringBuilder line = new StringBuilder();
+
+        JsonObject next() throws InterruptedException {
+            String next = lines.poll(30, TimeUnit.SECONDS);
+            assertNotNull(next, "no message within 30s");
+            return JsonParser.parseString(next).getAsJsonObject();
+        }
+
+        @Override
+        public synchronized void write(char[] buf, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (buf[i] == '\n') {
+                    lines.add(line.toString());
+                    line.setLength(0);
+                } else {
+                    line.append(buf[i]);
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
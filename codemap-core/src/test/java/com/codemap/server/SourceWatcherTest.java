@@ -0,0 +1,55 @@
+package com.codemap.server;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for SourceWatcher — which changes are reported.
+ */
+class SourceWatcherTest {
+
+    @Test
+    void shouldIgnoreHiddenExcludedAndNonSourceChanges(@TempDir Path root) throws Exception {
+        Path a = Files.createDirectories(root.resolve("p")).resolve("A.java");
+        Files.writeString(a, "package p; public class A {}");
+        Path notes = Files.writeString(root.resolve("p/notes.txt"), "notes");
+        Path git = Files.createDirectories(root.resolve(".git"));
+        Path cache = Files.createDirectories(root.resolve("build/cache"));
+
+        BlockingQueue<Set<Path>> batches = new LinkedBlockingQueue<>();
+        try (SourceWatcher watcher = new SourceWatcher(List.of(root), List.of(root.resolve("build")),
+                Duration.ofMillis(50), new SourceWatcher.Listener() {
+                    @Override
+                    public void filesChanged(Set<Path> paths) {
+                        batches.add(paths);
+                    }
+
+                    @Override
+                    public void overflow() {
+                        fail("Unexpected overflow");
+                    }
+                })) {
+            watcher.start();
+
+            Files.writeString(git.resolve("HEAD"), "ref: refs/heads/main");
+            Files.delete(git.resolve("HEAD"));
+            Path temp = Files.writeString(cache.resolve("entry1.tmp"), "entry");
+            Files.move(temp, cache.resolve("entry.bin"));
+            Files.delete(notes);
+            Files.writeString(a, "package p; public class A { void run() {} }");
+
+            assertEquals(Set.of(a), batches.poll(10, TimeUnit.SECONDS));
+            assertNull(batches.poll(300, TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.codemap.intellij.engine
+
+import com.codemap.intellij.model.AnalysisResult
+import com.codemap.intellij.model.CodeGraph
+import com.codemap.intellij.model.GraphEdge
+import com.codemap.intellij.model.GraphNode
+import com.google.gson.Gson
+import com.google.gson.JsonArray
+import com.google.gson.JsonObject
+import com.google.gson.JsonParser
+
+/**
+ * Decodes engine output produced with `--format compact`.
+ * Mirrors CompactGraphWriter in codemap-core: strings are indexes into a
+ * shared table (-1 for absent), edges point at nodes by index, and trailing
+ * default fields are omitted.
+ */
+object CompactFormatDecoder {
+
+    /**
+     * Parse engine output, expanding the compact graph layout if present.
+     */
+    fun decode(json: String, gson: Gson): AnalysisResult {
+        val root = JsonParser.parseString(json).asJsonObject
+        if (root.get("format")?.asString != "compact") {
+            return gson.fromJson(root, AnalysisResult::class.java)
+        }
+        val graph = decodeGraph(root.getAsJsonObject("graph"))
+        root.remove("format")
+        root.remove("graph")
+        return gson.fromJson(root, AnalysisResult::class.java).copy(graph = graph)
+    }
+
+    fun decodeGraph(compact: JsonObject): CodeGraph {
+        val nodeTypes = compact.getAsJsonArray("nodeTypes").map { it.asString }
+        val edgeTypes = compact.getAsJsonArray("edgeTypes").map { it.asString }
+        val strings = compact.getAsJsonArray("strings").map { it.asString }
+
+        fun str(index: Int): String? = if (index < 0) null else strings[index]
+
+        fun metadata(pairs: JsonArray?): Map<String, String>? {
+            if (pairs == null || pairs.size() == 0) return null
+            val result = LinkedHashMap<String, String>(pairs.size() / 2)
+            for (i in 0 until pairs.size() step 2) {
+                result[strings[pairs[i].asInt]] = strings[pairs[i + 1].asInt]
+            }
+            return result
+        }
+
+        val nodes = compact.getAsJsonArray("nodes").map { element ->
+            val n = element.asJsonArray
+            val type = nodeTypes[n[0].asInt]
+            val qualifiedName = str(n[2].asInt)
+            val prefix = if (type == "METHOD" || type == "CONSTRUCTOR") "method:" else "class:"
+            GraphNode(
+                id = if (n.size() > 6) strings[n[6].asInt] else prefix + qualifiedName,
+                name = str(n[1].asInt) ?: "",
+                qualifiedName = qualifiedName,
+                type = type,
+                filePath = if (n.size() > 3) str(n[3].asInt) else null,
+                lineNumber = if (n.size() > 4 && n[4].asInt > 0) n[4].asInt else null,
+                metadata = if (n.size() > 5) metadata(n[5].asJsonArray) else null
+            )
+        }
+
+        fun endpoint(ref: Int): String = if (ref >= 0) nodes[ref].id else strings[-1 - ref]
+
+        val edges = compact.getAsJsonArray("edges").map { element ->
+            val e = element.asJsonArray
+            val type = edgeTypes[e[0].asInt]
+            val source = endpoint(e[1].asInt)
+            val target = endpoint(e[2].asInt)
+            GraphEdge(
+                id = if (e.size() > 4) strings[e[4].asInt] else "$source-$type-$target",
+                source = source,
+                target = target,
+                type = type,
+                metadata = if (e.size() > 3) metadata(e[3].asJsonArray) else null
+            )
+        }
+
+        return CodeGraph(nodes, edges)
+    }
+}
@@ -25,7 +25,8 @@ class CoreEngineBridge(private val project: Project) {
         val javaPath = resolveJavaPath()
         val projectPath = resolveSourceRoot()
 
-        val args = mutableListOf(javaPath, "-jar", jarPath, "--project", projectPath, "--command", command)
+        val args = mutableListOf(javaPath, "-jar", jarPath, "--project", projectPath, "--command", command,
+            "--format", "compact")
         if (target != null) {
             args.addAll(listOf("--target", target))
         }
@@ -51,7 +52,7 @@ class CoreEngineBridge(private val project: Project) {
             log.info("Engine logs: $stderr")
         }
 
-        return gson.fromJson(stdout, AnalysisResult::class.java)
+        return CompactFormatDecoder.decode(stdout, gson)
     }
 
     fun getCallGraph(target: String, depth: Int = 5): AnalysisResult =
@@ -0,0 +1,81 @@
+import { AnalysisResult, CodeGraph, CompactCodeGraph, GraphEdge, GraphNode } from '../types/graph';
+
+/**
+ * Decoder for the engine's compact output format.
+ * Mirrors CompactGraphWriter in codemap-core.
+ */
+
+/**
+ * Expand a raw engine result into the regular AnalysisResult shape.
+ * Results that are not in the compact format are returned unchanged.
+ */
+export function decodeResult(raw: any): AnalysisResult {
+    if (raw && raw.format === 'compact') {
+        const { format, ...rest } = raw;
+        return { ...rest, graph: decodeCompactGraph(raw.graph) };
+    }
+    return raw as AnalysisResult;
+}
+
+export function decodeCompactGraph(compact: CompactCodeGraph): CodeGraph {
+    const strings = compact.strings;
+    const str = (index: number | undefined): string | undefined =>
+        index === undefined || index < 0 ? undefined : strings[index];
+    const metadata = (pairs: number[] | undefined): Record<string, string> | undefined => {
+        if (!pairs || pairs.length === 0) {
+            return undefined;
+        }
+        const result: Record<string, string> = {};
+        for (let i = 0; i < pairs.length; i += 2) {
+            result[strings[pairs[i]]] = strings[pairs[i + 1]];
+        }
+        return result;
+    };
+
+    const nodes: GraphNode[] = compact.nodes.map(entry => {
+        const n = entry as any[];
+        const type = compact.nodeTypes[n[0]];
+        const qualifiedName = str(n[2]) as string;
+        const derivedPrefix = type === 'METHOD' || type === 'CONSTRUCTOR' ? 'method:' : 'class:';
+        const node: GraphNode = {
+            id: n.length > 6 ? strings[n[6]] : derivedPrefix + qualifiedName,
+            name: str(n[1]) as string,
+            qualifiedName,
+            type
+        };
+        const filePath = str(n[3]);
+        if (filePath !== undefined) {
+            node.filePath = filePath;
+        }
+        if (n[4] > 0) {
+            node.lineNumber = n[4];
+        }
+        const meta = metadata(n[5]);
+        if (meta) {
+            node.metadata = meta;
+        }
+        return node;
+    });
+
+    const endpoint = (ref: number): string => ref >= 0 ? nodes[ref].id : strings[-1 - ref];
+
+    const edges: GraphEdge[] = compact.edges.map(entry => {
+        const e = entry as any[];
+        const type = compact.edgeTypes[e[0]];
+        const source = endpoint(e[1]);
+        const target = endpoint(e[2]);
+        const edge: GraphEdge = {
+            id: e.length > 4 ? strings[e[4]] : `${source}-${type}-${target}`,
+            source,
+            target,
+            type
+        };
+        const meta = metadata(e[3]);
+        if (meta) {
+            edge.metadata = meta;
+        }
+        return edge;
+    });
+
+    return { nodes, edges };
+}
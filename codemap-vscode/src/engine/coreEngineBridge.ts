@@ -2,6 +2,7 @@ import * as vscode from 'vscode';
 import * as cp from 'child_process';
 import * as path from 'path';
 import { AnalysisResult } from '../types/graph';
+import { decodeResult } from './compactFormat';
 
 /**
  * Bridge to the CodeMap core Java engine.
@@ -24,7 +25,8 @@ export class CoreEngineBridge {
         const args = [
             '-jar', this.jarPath,
             '--project', projectPath,
-            '--command', command
+            '--command', command,
+            '--format', 'compact'
         ];
 
         if (target) {
@@ -54,7 +56,7 @@ export class CoreEngineBridge {
             process.on('close', (code: number | null) => {
                 if (code === 0) {
                     try {
-                        const result: AnalysisResult = JSON.parse(stdout);
+                        const result: AnalysisResult = decodeResult(JSON.parse(stdout));
                         resolve(result);
                     } catch (parseError) {
                         reject(new Error(`Failed to parse engine output: ${parseError}`));
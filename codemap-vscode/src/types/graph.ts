@@ -40,6 +40,23 @@ export interface AnalysisResult {
     graph: CodeGraph;
 }
 
+/**
+ * Graph in the engine's compact wire format (`--format compact`).
+ * Strings are indexes into `strings` (-1 for absent), types are indexes into
+ * `nodeTypes`/`edgeTypes`, and metadata is a flat [key, value, ...] index list.
+ * Edge endpoints are node indexes, or `-1 - s` for an ID stored at `strings[s]`
+ * that has no node. Trailing default fields are omitted; see decodeCompactGraph.
+ */
+export interface CompactCodeGraph {
+    nodeTypes: GraphNode['type'][];
+    edgeTypes: GraphEdge['type'][];
+    strings: string[];
+    /** [type, name, qualifiedName, filePath?, lineNumber?, metadata?, id?] */
+    nodes: (number | number[])[][];
+    /** [type, source, target, metadata?, id?] */
+    edges: (number | number[])[][];
+}
+
 export interface GraphFilter {
     maxDepth?: number;
     includePackages?: string[];